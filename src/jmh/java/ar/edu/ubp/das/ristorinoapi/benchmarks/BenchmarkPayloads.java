@@ -0,0 +1,84 @@
+package ar.edu.ubp.das.ristorinoapi.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Payloads generados con la forma que devuelven los SP (FOR JSON fragmentado en filas de 2033 caracteres,
+ * 'contenidos' y 'click' doblemente serializados como strings).
+ */
+final class BenchmarkPayloads {
+
+    /** Tamaño de cada fila que SQL Server usa al fragmentar un resultado FOR JSON. */
+    static final int FOR_JSON_FRAGMENT = 2033;
+
+    private BenchmarkPayloads() {
+    }
+
+    /** JSON de dbo.usp_get_promociones_restaurante con {@code contents} contenidos. */
+    static String promotionsJson(int contents, boolean embeddedContenidos) {
+        StringBuilder arr = new StringBuilder("[");
+        for (int i = 1; i <= contents; i++) {
+            if (i > 1) arr.append(',');
+            arr.append("{\"nro_contenido\":").append(i)
+                    .append(",\"nro_sucursal\":").append(i % 3 == 0 ? "null" : String.valueOf(i % 5 + 1))
+                    .append(",\"nom_sucursal\":").append(i % 3 == 0 ? "null" : "\"Sucursal " + (i % 5 + 1) + "\"")
+                    .append(",\"nro_idioma\":1,\"cod_idioma\":\"es\",\"nom_idioma\":\"Español\"")
+                    .append(",\"contenido_promocional\":\"2x1 en platos principales de lunes a jueves, promoción número ").append(i)
+                    .append(", válida presentando el cupón en el local.\"")
+                    .append(",\"imagen_promocional\":\"/assets/promos/restaurante-1/promo-").append(i).append(".jpg\"")
+                    .append(",\"contenido_a_publicar\":\"¡Vení a disfrutar del 2x1! Promoción ").append(i)
+                    .append(" sujeta a disponibilidad. No acumulable con otras promociones.\"")
+                    .append(",\"fecha_ini_vigencia\":\"2025-01-01\",\"fecha_fin_vigencia\":")
+                    .append(i % 4 == 0 ? "null" : "\"2025-12-31\"")
+                    .append(",\"costo_click\":").append(0.5 + (i % 10) / 10.0)
+                    .append(",\"cod_contenido_restaurante\":\"PROMO-").append(1000 + i).append('"')
+                    .append(",\"vigente\":").append(i % 4 != 0).append('}');
+        }
+        arr.append(']');
+        String contenidos = embeddedContenidos ? quote(arr.toString()) : arr.toString();
+        return "{\"nro_restaurante\":1,\"razon_social\":\"La Parrilla de Córdoba S.A.\",\"contenidos\":" + contenidos + "}";
+    }
+
+    /** JSON de dbo.usp_get_clicks_no_notificados con {@code rows} clicks y 'click' como string embebido. */
+    static String unnotifiedClicksJson(int rows) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 1; i <= rows; i++) {
+            if (i > 1) sb.append(',');
+            String click = "{\"nro_restaurante\":" + (i % 50 + 1) + ",\"nro_idioma\":1,\"nro_contenido\":" + (i % 300 + 1)
+                    + ",\"nro_click\":" + (100000 + i) + ",\"fecha_hora_registro\":\"2025-03-01T12:30:00\",\"notificado\":false}";
+            sb.append("{\"click\":").append(quote(click))
+                    .append(",\"contenido\":{\"cod_contenido_restaurante\":\"PROMO-").append(1000 + i % 300)
+                    .append("\",\"costo_click\":").append(0.5 + (i % 10) / 10.0).append("}}");
+        }
+        return sb.append(']').toString();
+    }
+
+    /** Divide el JSON en filas como lo hace FOR JSON. */
+    static List<String> fragments(String json) {
+        List<String> out = new ArrayList<>();
+        for (int i = 0; i < json.length(); i += FOR_JSON_FRAGMENT) {
+            out.add(json.substring(i, Math.min(json.length(), i + FOR_JSON_FRAGMENT)));
+        }
+        return out;
+    }
+
+    /** ResultSet mínimo de una columna que sólo soporta next(), getString(1) y close(). */
+    static ResultSet resultSet(List<String> fragments) {
+        int[] row = {-1};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "next" -> ++row[0] < fragments.size();
+                    case "getString", "getObject" -> fragments.get(row[0]);
+                    case "close" -> null;
+                    case "isClosed" -> false;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static String quote(String json) {
+        return '"' + json.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+}
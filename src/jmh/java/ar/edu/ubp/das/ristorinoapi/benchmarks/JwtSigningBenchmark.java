@@ -0,0 +1,33 @@
+package ar.edu.ubp.das.ristorinoapi.benchmarks;
+
+import ar.edu.ubp.das.ristorinoapi.components.JwtSigner;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Firma HS256 del token que ClickNotificationService envía a la API del restaurante cada vez que el token
+ * cacheado expira. Con varios hilos mide además la contención.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtSigningBenchmark {
+
+    private final JwtSigner signer = new JwtSigner("ClaveSuperDuperHiperMegaSecreta12345");
+    private final String payload = "{\"registrador\":\"ristorino\",\"iat\":1735732800,\"exp\":1735733100}";
+
+    @Benchmark
+    public String sign() {
+        return signer.sign(payload);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String signConcurrent() {
+        return signer.sign(payload);
+    }
+}
@@ -0,0 +1,59 @@
+package ar.edu.ubp.das.ristorinoapi.benchmarks;
+
+import ar.edu.ubp.das.ristorinoapi.beans.RestaurantResponse;
+import ar.edu.ubp.das.ristorinoapi.components.ForJsonReader;
+import ar.edu.ubp.das.ristorinoapi.components.RestaurantResponseReader;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parseo del resultado de dbo.usp_get_promociones_restaurante: concatenación de fragmentos + normalización
+ * con Gson (implementación original de PromotionRepository) contra {@link RestaurantResponseReader}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromotionParsingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int contents;
+
+    private List<String> fragments;
+    private final Gson gson = new Gson();
+    private final RestaurantResponseReader reader = new RestaurantResponseReader();
+
+    @Setup
+    public void setUp() {
+        fragments = BenchmarkPayloads.fragments(BenchmarkPayloads.promotionsJson(contents, true));
+    }
+
+    @Benchmark
+    public RestaurantResponse gsonConcatenateAndNormalize() {
+        StringBuilder sb = new StringBuilder();
+        for (String fragment : fragments) {
+            sb.append(fragment);
+        }
+        JsonObject root = JsonParser.parseString(sb.toString()).getAsJsonObject();
+        JsonElement contenidos = root.get("contenidos");
+        if (contenidos.isJsonPrimitive() && contenidos.getAsJsonPrimitive().isString()) {
+            root.add("contenidos", JsonParser.parseString(contenidos.getAsString()));
+        }
+        return gson.fromJson(root, RestaurantResponse.class);
+    }
+
+    @Benchmark
+    public RestaurantResponse jacksonStreaming() throws Exception {
+        try (ForJsonReader json = new ForJsonReader(BenchmarkPayloads.resultSet(fragments))) {
+            return reader.read(json);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package ar.edu.ubp.das.ristorinoapi.benchmarks;
+
+import ar.edu.ubp.das.ristorinoapi.beans.RestaurantResponse;
+import ar.edu.ubp.das.ristorinoapi.components.RestaurantResponseReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización con Jackson de {@link RestaurantResponse}, el costo que PromotionCache evita al guardar
+ * el JSON ya serializado.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RestaurantResponseSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int contents;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private RestaurantResponse response;
+
+    @Setup
+    public void setUp() throws Exception {
+        response = new RestaurantResponseReader().read(new StringReader(BenchmarkPayloads.promotionsJson(contents, false)));
+    }
+
+    @Benchmark
+    public byte[] writeValueAsBytes() throws Exception {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
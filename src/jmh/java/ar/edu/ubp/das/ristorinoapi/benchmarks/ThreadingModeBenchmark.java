@@ -0,0 +1,123 @@
+package ar.edu.ubp.das.ristorinoapi.benchmarks;
+
+import ar.edu.ubp.das.ristorinoapi.components.BoundedCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Modo de ejecución actual (pool de hilos de plataforma del tamaño por defecto de Tomcat,
+ * {@code server.tomcat.threads.max=200}) contra hilos virtuales ({@code spring.threads.virtual.enabled=true}).
+ * <p>Cada "request" lee el cache de promociones y se bloquea {@code ioMillis} (equivalente a un round trip
+ * JDBC o HTTP). Se mide el tiempo en atender {@code clients} requests simultáneas. Las variantes
+ * {@code ...HoldingMonitor} y {@code ...HoldingLock} hacen la espera dentro de una sección crítica (64 locks):
+ * con {@code synchronized} el hilo virtual queda fijado a su portador y se pierde la ventaja.</p>
+ * <pre>mvn -Pjmh -DskipTests test-compile exec:exec -Djmh.args="ThreadingMode"</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ThreadingModeBenchmark {
+
+    private static final int STRIPES = 64;
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    @Param({"1000"})
+    public int clients;
+
+    @Param({"5"})
+    public int ioMillis;
+
+    private ExecutorService executor;
+    private BoundedCache<Integer, String> cache;
+    private final Object[] monitors = new Object[STRIPES];
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    @Setup
+    public void setUp() {
+        executor = "virtual".equals(mode)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(200);
+        cache = new BoundedCache<>(Duration.ofMinutes(5), 1000, Long.MAX_VALUE, v -> 1);
+        for (int i = 0; i < 50; i++) {
+            cache.get(i, k -> "restaurante " + k);
+        }
+        for (int i = 0; i < STRIPES; i++) {
+            monitors[i] = new Object();
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public int blockingRequests() throws Exception {
+        return run(i -> {
+            String value = cache.getIfPresent(i % 50);
+            blockingIo();
+            return value.length();
+        });
+    }
+
+    @Benchmark
+    public int blockingRequestsHoldingMonitor() throws Exception {
+        return run(i -> {
+            synchronized (monitors[i % STRIPES]) {
+                blockingIo();
+            }
+            return 1;
+        });
+    }
+
+    @Benchmark
+    public int blockingRequestsHoldingLock() throws Exception {
+        return run(i -> {
+            ReentrantLock lock = locks[i % STRIPES];
+            lock.lock();
+            try {
+                blockingIo();
+            } finally {
+                lock.unlock();
+            }
+            return 1;
+        });
+    }
+
+    private int run(Request request) throws Exception {
+        List<Future<Integer>> futures = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            int n = i;
+            futures.add(executor.submit(() -> request.handle(n)));
+        }
+        int sum = 0;
+        for (Future<Integer> f : futures) {
+            sum += f.get();
+        }
+        return sum;
+    }
+
+    private void blockingIo() {
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(ioMillis));
+    }
+
+    @FunctionalInterface
+    private interface Request {
+        int handle(int index);
+    }
+}
@@ -0,0 +1,75 @@
+package ar.edu.ubp.das.ristorinoapi.benchmarks;
+
+import ar.edu.ubp.das.ristorinoapi.beans.PendingClick;
+import ar.edu.ubp.das.ristorinoapi.components.ForJsonReader;
+import ar.edu.ubp.das.ristorinoapi.components.PendingClickParser;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lectura de dbo.usp_get_clicks_no_notificados: aplanado a mapas (implementación original de
+ * ClickRepository.getUnnotifiedClicks) contra {@link PendingClickParser}.
+ * <p>La comparación de memoria sale de {@code -prof gc} (incluido en {@code jmh.args} por defecto):
+ * {@code gc.alloc.rate.norm} son los bytes asignados por operación.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnnotifiedClicksBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int contents;
+
+    private List<String> fragments;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PendingClickParser parser = new PendingClickParser();
+
+    @Setup
+    public void setUp() {
+        fragments = BenchmarkPayloads.fragments(BenchmarkPayloads.unnotifiedClicksJson(contents));
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public List<Map<String, Object>> mapFlattening() throws Exception {
+        List<Map<String, Object>> flattened = new ArrayList<>();
+        try (ForJsonReader json = new ForJsonReader(BenchmarkPayloads.resultSet(fragments));
+             JsonParser p = objectMapper.getFactory().createParser(json)) {
+            p.nextToken();
+            while (p.nextToken() == JsonToken.START_OBJECT) {
+                Map<String, Object> entry = objectMapper.readValue(p, Map.class);
+                Map<String, Object> flat = new HashMap<>();
+                for (String part : new String[]{"click", "contenido"}) {
+                    Object v = entry.get(part);
+                    if (v instanceof Map<?, ?> m) {
+                        m.forEach((k, x) -> flat.put(String.valueOf(k), x));
+                    } else if (v instanceof String s && !s.isBlank()) {
+                        objectMapper.readValue(s, Map.class).forEach((k, x) -> flat.put(String.valueOf(k), x));
+                    }
+                }
+                flattened.add(flat);
+            }
+        }
+        return flattened;
+    }
+
+    @Benchmark
+    public List<PendingClick> typedParser() throws Exception {
+        List<PendingClick> clicks = new ArrayList<>();
+        try (ForJsonReader json = new ForJsonReader(BenchmarkPayloads.resultSet(fragments))) {
+            parser.parse(json, clicks::add);
+        }
+        return clicks;
+    }
+}
@@ -0,0 +1,308 @@
+package ar.edu.ubp.das.ristorinoapi.loadtest;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba de carga de punta a punta: la aplicación completa sobre H2 (ver {@link StandInProcedures}) y una API
+ * de restaurante simulada que recibe las notificaciones de clicks.
+ * <p>Tráfico mixto desde {@code loadtest.concurrency} hilos durante {@code loadtest.duration-seconds}:
+ * 60% promociones (una de cada seis con {@code imagenes=url} y la descarga de una imagen, la mitad como variante
+ * {@code ?w=160}), 20% detalle de
+ * restaurante, 15% clicks y 5% consulta masiva, más una notificación manual de clicks cada
+ * {@code loadtest.notify-interval-ms}. Informa por endpoint cantidad, errores,
+ * requests por segundo y latencias p50/p99 (log y {@code target/loadtest-report.txt}).</p>
+ * <pre>mvn -Ploadtest test -Dloadtest.duration-seconds=60 -Dloadtest.concurrency=32</pre>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("loadtest")
+class MixedTrafficLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(MixedTrafficLoadTest.class);
+
+    private static final int RESTAURANTS = 50;
+    private static final int CONTENTS = 40;
+    private static final Pattern IMAGE_URL = Pattern.compile("/api/promotions/\\d+/\\d+/\\d+/imagen/[\\w-]+");
+    private static final String RESTAURANT_FIELDS = "nro_restaurante,sucursales(nom_sucursal,contenidos(nro_contenido))";
+
+    private static final AtomicInteger notificationsReceived = new AtomicInteger();
+    private static final HttpServer restaurantApi = startRestaurantApi();
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void restaurantApiUrl(DynamicPropertyRegistry registry) {
+        registry.add("ristorino.notification.dest-url",
+                () -> "http://localhost:" + restaurantApi.getAddress().getPort() + "/api/v1/clicks");
+    }
+
+    @AfterAll
+    static void stopRestaurantApi() {
+        restaurantApi.stop(0);
+    }
+
+    @Test
+    void mixedTraffic() throws Exception {
+        int durationSeconds = Integer.getInteger("loadtest.duration-seconds", 20);
+        int concurrency = Integer.getInteger("loadtest.concurrency", 16);
+        long notifyIntervalMs = Long.getLong("loadtest.notify-interval-ms", 2000);
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(4))
+                .build();
+        String base = "http://localhost:" + port;
+
+        warmUp(client, base);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency + 1);
+        List<Future<Map<String, Recorder>>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+            results.add(workers.submit(() -> drive(client, base, deadline)));
+        }
+        results.add(workers.submit(() -> notifyPeriodically(client, base, deadline, notifyIntervalMs)));
+
+        Map<String, Recorder> merged = new TreeMap<>();
+        for (Future<Map<String, Recorder>> f : results) {
+            f.get().forEach((endpoint, r) -> merged.computeIfAbsent(endpoint, k -> new Recorder()).merge(r));
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        workers.shutdown();
+
+        // Notificación final: todos los clicks registrados deben llegar a la API del restaurante
+        Recorder last = new Recorder();
+        execute(client, post(base + "/api/manual/notify-clicks", ""), last);
+        merged.computeIfAbsent("POST /api/manual/notify-clicks", k -> new Recorder()).merge(last);
+
+        String report = report(merged, elapsedSeconds, concurrency);
+        log.info("\n{}", report);
+        Path out = Path.of("target", "loadtest-report.txt");
+        Files.createDirectories(out.getParent());
+        Files.writeString(out, report, StandardCharsets.UTF_8);
+
+        for (Map.Entry<String, Recorder> e : merged.entrySet()) {
+            assertEquals(0, e.getValue().serverErrors, "Respuestas 5xx en " + e.getKey());
+            assertTrue(e.getValue().count > 0, "Sin requests en " + e.getKey());
+        }
+        assertTrue(notificationsReceived.get() > 0, "La API del restaurante no recibió notificaciones");
+    }
+
+    /** Completa el cache de promociones y la compilación de procedimientos antes de medir. */
+    private void warmUp(HttpClient client, String base) {
+        Recorder ignored = new Recorder();
+        for (int r = 1; r <= RESTAURANTS; r++) {
+            execute(client, get(base + "/api/promotions/" + r), ignored);
+            execute(client, get(base + "/api/restaurants/" + r), ignored);
+        }
+    }
+
+    private Map<String, Recorder> drive(HttpClient client, String base, long deadline) {
+        Map<String, Recorder> recorders = new TreeMap<>();
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            int dice = rnd.nextInt(100);
+            int restaurant = rnd.nextInt(RESTAURANTS) + 1;
+            if (dice < 50) {
+                HttpRequest req = HttpRequest.newBuilder(URI.create(base + "/api/promotions/" + restaurant))
+                        .header("Accept-Encoding", "gzip")
+                        .GET().build();
+                execute(client, req, recorders.computeIfAbsent("GET /api/promotions/{nro}", k -> new Recorder()));
+            } else if (dice < 60) {
+                // Modo imágenes por URL: se pide además una de las imágenes referenciadas
+                String body = executeForBody(client, get(base + "/api/promotions/" + restaurant + "?imagenes=url"),
+                        recorders.computeIfAbsent("GET /api/promotions/{nro}?imagenes=url", k -> new Recorder()));
+                Matcher image = IMAGE_URL.matcher(body);
+                if (image.find()) {
+                    // La mitad como variante reducida (se genera la primera vez y luego sale del cache en disco)
+                    boolean variant = rnd.nextBoolean();
+                    execute(client, get(base + image.group() + (variant ? "?w=160" : "")),
+                            recorders.computeIfAbsent(variant ? "GET .../imagen/{id}?w=160"
+                                    : "GET /api/promotions/{r}/{i}/{c}/imagen", k -> new Recorder()));
+                }
+            } else if (dice < 72) {
+                execute(client, get(base + "/api/restaurants/" + restaurant),
+                        recorders.computeIfAbsent("GET /api/restaurants/{nro}", k -> new Recorder()));
+            } else if (dice < 80) {
+                execute(client, get(base + "/api/restaurants/" + restaurant + "?fields=" + RESTAURANT_FIELDS),
+                        recorders.computeIfAbsent("GET /api/restaurants/{nro}?fields=", k -> new Recorder()));
+            } else if (dice < 95) {
+                String uri = base + "/api/promotions/" + restaurant + "/" + (rnd.nextInt(2) + 1) + "/"
+                        + (rnd.nextInt(CONTENTS) + 1) + "/click";
+                execute(client, post(uri, ""),
+                        recorders.computeIfAbsent("POST /api/promotions/{r}/{i}/{c}/click", k -> new Recorder()));
+            } else {
+                StringBuilder ids = new StringBuilder();
+                for (int i = 0; i < 10; i++) {
+                    ids.append(i == 0 ? "" : ",").append(rnd.nextInt(RESTAURANTS) + 1);
+                }
+                execute(client, get(base + "/api/promotions?ids=" + ids),
+                        recorders.computeIfAbsent("GET /api/promotions?ids=", k -> new Recorder()));
+            }
+        }
+        return recorders;
+    }
+
+    private Map<String, Recorder> notifyPeriodically(HttpClient client, String base, long deadline, long intervalMs)
+            throws InterruptedException {
+        Recorder recorder = new Recorder();
+        while (System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(intervalMs);
+            execute(client, post(base + "/api/manual/notify-clicks", ""), recorder);
+        }
+        return Map.of("POST /api/manual/notify-clicks", recorder);
+    }
+
+    private static void execute(HttpClient client, HttpRequest request, Recorder recorder) {
+        send(client, request, HttpResponse.BodyHandlers.discarding(), recorder);
+    }
+
+    /** @return el cuerpo de la respuesta ("" si falló) */
+    private static String executeForBody(HttpClient client, HttpRequest request, Recorder recorder) {
+        HttpResponse<String> response = send(client, request, HttpResponse.BodyHandlers.ofString(), recorder);
+        return response == null ? "" : response.body();
+    }
+
+    private static <T> HttpResponse<T> send(HttpClient client, HttpRequest request, HttpResponse.BodyHandler<T> handler,
+                                            Recorder recorder) {
+        long t0 = System.nanoTime();
+        HttpResponse<T> response = null;
+        int status;
+        try {
+            response = client.send(request, handler);
+            status = response.statusCode();
+        } catch (IOException e) {
+            status = -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        recorder.record(System.nanoTime() - t0, status);
+        return response;
+    }
+
+    private static HttpRequest get(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri)).GET().build();
+    }
+
+    private static HttpRequest post(String uri, String body) {
+        return HttpRequest.newBuilder(URI.create(uri))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static String report(Map<String, Recorder> recorders, double elapsedSeconds, int concurrency) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Prueba de carga: %.1f s, %d hilos, %d notificaciones recibidas%n",
+                elapsedSeconds, concurrency, notificationsReceived.get()));
+        sb.append(String.format("%-42s %9s %7s %9s %9s %9s%n", "endpoint", "requests", "errores", "req/s", "p50 ms", "p99 ms"));
+        for (Map.Entry<String, Recorder> e : recorders.entrySet()) {
+            Recorder r = e.getValue();
+            sb.append(String.format("%-42s %9d %7d %9.1f %9.2f %9.2f%n", e.getKey(), r.count, r.errors,
+                    r.count / elapsedSeconds, r.percentileMillis(0.50), r.percentileMillis(0.99)));
+        }
+        return sb.toString();
+    }
+
+    /** API de restaurante simulada: acepta toda notificación con 200. */
+    private static HttpServer startRestaurantApi() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/api/v1/clicks", exchange -> {
+                try (InputStream in = exchange.getRequestBody()) {
+                    in.transferTo(OutputStream.nullOutputStream());
+                }
+                notificationsReceived.incrementAndGet();
+                byte[] body = "{\"ok\":true}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            });
+            server.setExecutor(Executors.newFixedThreadPool(8));
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo iniciar la API de restaurante simulada", e);
+        }
+    }
+
+    /** Latencias (ns) y resultados de un endpoint; cada hilo usa los suyos y se combinan al final. */
+    private static final class Recorder {
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+        private int serverErrors;
+
+        void record(long nanos, int status) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (status < 200 || status >= 400) {
+                errors++;
+            }
+            if (status >= 500) {
+                serverErrors++;
+            }
+        }
+
+        void merge(Recorder other) {
+            for (int i = 0; i < other.count; i++) {
+                record(other.latencies[i], 200);
+            }
+            errors += other.errors;
+            serverErrors += other.serverErrors;
+        }
+
+        double percentileMillis(double p) {
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(p * count) - 1;
+            return sorted[Math.max(0, Math.min(count - 1, index))] / 1e6;
+        }
+    }
+}
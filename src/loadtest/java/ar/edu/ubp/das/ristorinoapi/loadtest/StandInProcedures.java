@@ -0,0 +1,323 @@
+package ar.edu.ubp.das.ristorinoapi.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.h2.tools.SimpleResultSet;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Versiones Java de los procedimientos almacenados, registradas en H2 con {@code CREATE ALIAS dbo.usp_...}
+ * (ver {@code loadtest-schema.sql}).
+ * <p>Devuelven lo mismo que los SP de SQL Server: un result set de una columna con el JSON partido en filas
+ * de {@value #FOR_JSON_FRAGMENT} caracteres, con 'click' de los clicks pendientes doblemente serializado
+ * como string. Sin filas cuando FOR JSON no tendría resultados.</p>
+ */
+public final class StandInProcedures {
+
+    /** Tamaño de cada fila que SQL Server usa al fragmentar un resultado FOR JSON. */
+    static final int FOR_JSON_FRAGMENT = 2033;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private StandInProcedures() {
+    }
+
+    /** dbo.usp_get_promociones_restaurante @nro_restaurante, @soloVigentes, @nro_sucursal */
+    public static ResultSet promotions(Connection con, Integer nroRestaurante, Boolean soloVigentes,
+                                       Integer nroSucursal) throws SQLException {
+        if (isColumnListCall(con)) {
+            return forJson(null);
+        }
+        Map<String, Object> restaurant = restaurant(con, nroRestaurante);
+        if (restaurant == null) {
+            return forJson(null);
+        }
+        String sql = "SELECT c.nro_contenido, c.nro_sucursal, s.nom_sucursal, c.nro_idioma, i.cod_idioma, i.nom_idioma,"
+                + " c.contenido_promocional, c.imagen_promocional, c.contenido_a_publicar, c.fecha_ini_vigencia,"
+                + " c.fecha_fin_vigencia, c.costo_click, c.cod_contenido_restaurante"
+                + " FROM dbo.contenidos c"
+                + " JOIN dbo.idiomas i ON i.nro_idioma = c.nro_idioma"
+                + " LEFT JOIN dbo.sucursales s ON s.nro_restaurante = c.nro_restaurante AND s.nro_sucursal = c.nro_sucursal"
+                + " WHERE c.nro_restaurante = ? AND (? IS NULL OR c.nro_sucursal IS NULL OR c.nro_sucursal = ?)"
+                + " ORDER BY c.nro_contenido";
+        List<Map<String, Object>> contenidos = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setInt(1, nroRestaurante);
+            setInteger(ps, 2, nroSucursal);
+            setInteger(ps, 3, nroSucursal);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Date ini = rs.getDate("fecha_ini_vigencia");
+                    Date fin = rs.getDate("fecha_fin_vigencia");
+                    boolean vigente = !ini.toLocalDate().isAfter(today) && (fin == null || !fin.toLocalDate().isBefore(today));
+                    if (Boolean.TRUE.equals(soloVigentes) && !vigente) {
+                        continue;
+                    }
+                    Map<String, Object> c = new LinkedHashMap<>();
+                    c.put("nro_contenido", rs.getInt("nro_contenido"));
+                    c.put("nro_sucursal", rs.getObject("nro_sucursal"));
+                    c.put("nom_sucursal", rs.getString("nom_sucursal"));
+                    c.put("nro_idioma", rs.getInt("nro_idioma"));
+                    c.put("cod_idioma", rs.getString("cod_idioma"));
+                    c.put("nom_idioma", rs.getString("nom_idioma"));
+                    c.put("contenido_promocional", rs.getString("contenido_promocional"));
+                    c.put("imagen_promocional", rs.getString("imagen_promocional"));
+                    c.put("contenido_a_publicar", rs.getString("contenido_a_publicar"));
+                    c.put("fecha_ini_vigencia", ini.toString());
+                    c.put("fecha_fin_vigencia", fin == null ? null : fin.toString());
+                    c.put("costo_click", rs.getBigDecimal("costo_click"));
+                    c.put("cod_contenido_restaurante", rs.getString("cod_contenido_restaurante"));
+                    c.put("vigente", vigente);
+                    contenidos.add(c);
+                }
+            }
+        }
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("nro_restaurante", restaurant.get("nro_restaurante"));
+        out.put("razon_social", restaurant.get("razon_social"));
+        out.put("contenidos", contenidos);
+        return forJson(toJson(out));
+    }
+
+    /** dbo.usp_get_restaurante_detalle @nro_restaurante, @nro_idioma */
+    public static ResultSet restaurantDetail(Connection con, Integer nroRestaurante, Integer nroIdioma) throws SQLException {
+        if (isColumnListCall(con)) {
+            return forJson(null);
+        }
+        Map<String, Object> out = restaurant(con, nroRestaurante);
+        if (out == null) {
+            return forJson(null);
+        }
+        List<Map<String, Object>> sucursales = new ArrayList<>();
+        try (PreparedStatement ps = con.prepareStatement(
+                "SELECT nro_sucursal, nom_sucursal, calle, nro_calle FROM dbo.sucursales WHERE nro_restaurante = ? ORDER BY nro_sucursal")) {
+            ps.setInt(1, nroRestaurante);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Map<String, Object> s = new LinkedHashMap<>();
+                    s.put("nro_sucursal", rs.getInt(1));
+                    s.put("nom_sucursal", rs.getString(2));
+                    s.put("calle", rs.getString(3));
+                    s.put("nro_calle", rs.getInt(4));
+                    s.put("contenidos", sucursalContents(con, nroRestaurante, rs.getInt(1), nroIdioma));
+                    sucursales.add(s);
+                }
+            }
+        }
+        out.put("sucursales", sucursales);
+        return forJson(toJson(out));
+    }
+
+    /** dbo.usp_registrar_click_contenido_restaurante @nro_restaurante, @nro_idioma, @nro_contenido, @fecha_hora_registro, @nro_cliente */
+    public static ResultSet registerClick(Connection con, Integer nroRestaurante, Integer nroIdioma, Integer nroContenido,
+                                          Timestamp fechaRegistro, Integer nroCliente) throws SQLException {
+        if (isColumnListCall(con)) {
+            return forJson(null);
+        }
+        Map<String, Object> contenido = new LinkedHashMap<>();
+        try (PreparedStatement ps = con.prepareStatement(
+                "SELECT cod_contenido_restaurante, costo_click FROM dbo.contenidos"
+                        + " WHERE nro_restaurante = ? AND nro_idioma = ? AND nro_contenido = ?")) {
+            ps.setInt(1, nroRestaurante);
+            ps.setInt(2, nroIdioma);
+            ps.setInt(3, nroContenido);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Contenido inexistente: " + nroRestaurante + "/" + nroIdioma + "/" + nroContenido);
+                }
+                contenido.put("cod_contenido_restaurante", rs.getString(1));
+                contenido.put("costo_click", rs.getBigDecimal(2));
+            }
+        }
+        Timestamp fecha = fechaRegistro != null ? fechaRegistro : new Timestamp(System.currentTimeMillis());
+        Map<String, Object> click = new LinkedHashMap<>();
+        try (PreparedStatement ps = con.prepareStatement(
+                "INSERT INTO dbo.clicks (nro_restaurante, nro_idioma, nro_contenido, fecha_hora_registro, nro_cliente, costo_click)"
+                        + " VALUES (?, ?, ?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+            ps.setInt(1, nroRestaurante);
+            ps.setInt(2, nroIdioma);
+            ps.setInt(3, nroContenido);
+            ps.setTimestamp(4, fecha);
+            setInteger(ps, 5, nroCliente);
+            ps.setBigDecimal(6, (java.math.BigDecimal) contenido.get("costo_click"));
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                keys.next();
+                click.put("nro_click", keys.getInt(1));
+            }
+        }
+        click.put("nro_restaurante", nroRestaurante);
+        click.put("nro_idioma", nroIdioma);
+        click.put("nro_contenido", nroContenido);
+        click.put("fecha_hora_registro", fecha.toLocalDateTime().toString());
+        click.put("notificado", false);
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("click", click);
+        out.put("contenido", contenido);
+        return forJson(toJson(out));
+    }
+
+    /** dbo.usp_get_clicks_no_notificados @nro_restaurante, @nro_idioma, @nro_contenido */
+    public static ResultSet unnotifiedClicks(Connection con, Integer nroRestaurante, Integer nroIdioma,
+                                             Integer nroContenido) throws SQLException {
+        return unnotifiedClicks(con, nroRestaurante, nroIdioma, nroContenido, null, null, null, null, null);
+    }
+
+    /**
+     * dbo.usp_get_clicks_no_notificados con paginación keyset sobre la clave completa del click
+     * (@ultimo_nro_restaurante, @ultimo_nro_idioma, @ultimo_nro_contenido, @ultimo_nro_click, @tamanio_pagina)
+     */
+    public static ResultSet unnotifiedClicks(Connection con, Integer nroRestaurante, Integer nroIdioma, Integer nroContenido,
+                                             Integer ultimoNroRestaurante, Integer ultimoNroIdioma,
+                                             Integer ultimoNroContenido, Integer ultimoNroClick,
+                                             Integer tamanioPagina) throws SQLException {
+        if (isColumnListCall(con)) {
+            return forJson(null);
+        }
+        String sql = "SELECT k.nro_click, k.nro_restaurante, k.nro_idioma, k.nro_contenido, k.fecha_hora_registro,"
+                + " c.cod_contenido_restaurante, k.costo_click"
+                + " FROM dbo.clicks k JOIN dbo.contenidos c ON c.nro_restaurante = k.nro_restaurante"
+                + " AND c.nro_idioma = k.nro_idioma AND c.nro_contenido = k.nro_contenido"
+                + " WHERE k.notificado = 0 AND (? IS NULL OR k.nro_restaurante = ?) AND (? IS NULL OR k.nro_idioma = ?)"
+                + " AND (? IS NULL OR k.nro_contenido = ?)"
+                + " AND (? IS NULL OR (k.nro_restaurante, k.nro_idioma, k.nro_contenido, k.nro_click) > (?, ?, ?, ?))"
+                + " ORDER BY k.nro_restaurante, k.nro_idioma, k.nro_contenido, k.nro_click"
+                + (tamanioPagina != null ? " OFFSET 0 ROWS FETCH NEXT " + tamanioPagina + " ROWS ONLY" : "");
+        List<Map<String, Object>> rows = new ArrayList<>();
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            Integer[] filters = {nroRestaurante, nroIdioma, nroContenido};
+            for (int i = 0; i < filters.length; i++) {
+                setInteger(ps, 2 * i + 1, filters[i]);
+                setInteger(ps, 2 * i + 2, filters[i]);
+            }
+            setInteger(ps, 7, ultimoNroClick);
+            setInteger(ps, 8, ultimoNroRestaurante);
+            setInteger(ps, 9, ultimoNroIdioma);
+            setInteger(ps, 10, ultimoNroContenido);
+            setInteger(ps, 11, ultimoNroClick);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Map<String, Object> click = new LinkedHashMap<>();
+                    click.put("nro_restaurante", rs.getInt("nro_restaurante"));
+                    click.put("nro_idioma", rs.getInt("nro_idioma"));
+                    click.put("nro_contenido", rs.getInt("nro_contenido"));
+                    click.put("nro_click", rs.getInt("nro_click"));
+                    click.put("fecha_hora_registro", rs.getTimestamp("fecha_hora_registro").toLocalDateTime().toString());
+                    click.put("notificado", false);
+                    Map<String, Object> contenido = new LinkedHashMap<>();
+                    contenido.put("cod_contenido_restaurante", rs.getString("cod_contenido_restaurante"));
+                    contenido.put("costo_click", rs.getBigDecimal("costo_click"));
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("click", toJson(click)); // FOR JSON anidado: llega como string
+                    row.put("contenido", contenido);
+                    rows.add(row);
+                }
+            }
+        }
+        return forJson(rows.isEmpty() ? null : toJson(rows));
+    }
+
+    /** dbo.usp_confirmar_click_notificado @nro_restaurante, @nro_idioma, @nro_contenido, @nro_click */
+    public static ResultSet confirmClick(Connection con, Integer nroRestaurante, Integer nroIdioma, Integer nroContenido,
+                                         Integer nroClick) throws SQLException {
+        if (isColumnListCall(con)) {
+            return forJson(null);
+        }
+        int updated;
+        try (PreparedStatement ps = con.prepareStatement(
+                "UPDATE dbo.clicks SET notificado = 1 WHERE nro_restaurante = ? AND nro_idioma = ?"
+                        + " AND nro_contenido = ? AND nro_click = ? AND notificado = 0")) {
+            ps.setInt(1, nroRestaurante);
+            ps.setInt(2, nroIdioma);
+            ps.setInt(3, nroContenido);
+            ps.setInt(4, nroClick);
+            updated = ps.executeUpdate();
+        }
+        return forJson("{\"actualizado\":" + updated + "}");
+    }
+
+    private static Map<String, Object> restaurant(Connection con, Integer nroRestaurante) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement(
+                "SELECT nro_restaurante, razon_social, cuit FROM dbo.restaurantes WHERE nro_restaurante = ?")) {
+            ps.setInt(1, nroRestaurante);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                Map<String, Object> out = new LinkedHashMap<>();
+                out.put("nro_restaurante", rs.getInt(1));
+                out.put("razon_social", rs.getString(2));
+                out.put("cuit", rs.getString(3));
+                return out;
+            }
+        }
+    }
+
+    private static List<Map<String, Object>> sucursalContents(Connection con, int nroRestaurante, int nroSucursal,
+                                                              Integer nroIdioma) throws SQLException {
+        List<Map<String, Object>> out = new ArrayList<>();
+        try (PreparedStatement ps = con.prepareStatement(
+                "SELECT nro_contenido, contenido_a_publicar, imagen_promocional FROM dbo.contenidos"
+                        + " WHERE nro_restaurante = ? AND nro_idioma = ? AND (nro_sucursal IS NULL OR nro_sucursal = ?)"
+                        + " ORDER BY nro_contenido")) {
+            ps.setInt(1, nroRestaurante);
+            ps.setInt(2, nroIdioma == null ? 1 : nroIdioma);
+            ps.setInt(3, nroSucursal);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Map<String, Object> c = new LinkedHashMap<>();
+                    c.put("nro_contenido", rs.getInt(1));
+                    c.put("contenido_a_publicar", rs.getString(2));
+                    c.put("imagen_promocional", rs.getString(3));
+                    out.add(c);
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Al preparar un CALL, H2 invoca la función para conocer sus columnas con una conexión especial.
+     */
+    private static boolean isColumnListCall(Connection con) throws SQLException {
+        return "jdbc:columnlist:connection".equals(con.getMetaData().getURL());
+    }
+
+    /** Result set de una columna con el JSON fragmentado como FOR JSON (sin filas si json es null). */
+    private static ResultSet forJson(String json) {
+        SimpleResultSet rs = new SimpleResultSet();
+        rs.addColumn("JSON_F52E2B61-18A1-11d1-B105-00805F49916B", Types.NVARCHAR, FOR_JSON_FRAGMENT, 0);
+        if (json != null) {
+            for (int i = 0; i < json.length(); i += FOR_JSON_FRAGMENT) {
+                rs.addRow(json.substring(i, Math.min(json.length(), i + FOR_JSON_FRAGMENT)));
+            }
+        }
+        return rs;
+    }
+
+    private static String toJson(Object value) throws SQLException {
+        try {
+            return MAPPER.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new SQLException("No se pudo serializar la respuesta: " + e.getMessage(), e);
+        }
+    }
+
+    private static void setInteger(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value != null) ps.setInt(index, value); else ps.setNull(index, Types.INTEGER);
+    }
+}
@@ -0,0 +1,95 @@
+-- Base embebida (H2, MODE=MSSQLServer) para la prueba de carga: tablas mínimas, datos generados
+-- y los procedimientos almacenados reemplazados por StandInProcedures.
+
+CREATE SCHEMA IF NOT EXISTS dbo;
+
+CREATE TABLE dbo.idiomas (
+    nro_idioma INT PRIMARY KEY,
+    cod_idioma VARCHAR(5) NOT NULL,
+    nom_idioma VARCHAR(50) NOT NULL
+);
+
+CREATE TABLE dbo.restaurantes (
+    nro_restaurante INT PRIMARY KEY,
+    razon_social VARCHAR(200) NOT NULL,
+    cuit VARCHAR(20) NOT NULL
+);
+
+CREATE TABLE dbo.sucursales (
+    nro_restaurante INT NOT NULL,
+    nro_sucursal INT NOT NULL,
+    nom_sucursal VARCHAR(100) NOT NULL,
+    calle VARCHAR(100) NOT NULL,
+    nro_calle INT NOT NULL,
+    PRIMARY KEY (nro_restaurante, nro_sucursal)
+);
+
+CREATE TABLE dbo.contenidos (
+    nro_restaurante INT NOT NULL,
+    nro_idioma INT NOT NULL,
+    nro_contenido INT NOT NULL,
+    nro_sucursal INT NULL,
+    contenido_promocional VARCHAR(500) NOT NULL,
+    imagen_promocional VARCHAR(2000) NULL,
+    contenido_a_publicar VARCHAR(500) NOT NULL,
+    fecha_ini_vigencia DATE NOT NULL,
+    fecha_fin_vigencia DATE NULL,
+    costo_click DECIMAL(10, 2) NOT NULL,
+    cod_contenido_restaurante VARCHAR(50) NOT NULL,
+    PRIMARY KEY (nro_restaurante, nro_idioma, nro_contenido)
+);
+
+CREATE TABLE dbo.clicks (
+    nro_click INT IDENTITY PRIMARY KEY,
+    nro_restaurante INT NOT NULL,
+    nro_idioma INT NOT NULL,
+    nro_contenido INT NOT NULL,
+    fecha_hora_registro TIMESTAMP NOT NULL,
+    nro_cliente INT NULL,
+    costo_click DECIMAL(10, 2) NOT NULL,
+    notificado BIT NOT NULL DEFAULT 0
+);
+
+CREATE INDEX ix_clicks_pendientes ON dbo.clicks (notificado, nro_restaurante, nro_idioma, nro_contenido, nro_click);
+
+-- Claves de idempotencia del diario local de clicks (src/main/resources/db/clicks_diario.sql)
+CREATE TABLE dbo.clicks_diario (
+    nro_segmento BIGINT NOT NULL,
+    desplazamiento INT NOT NULL,
+    fecha_hora_registro TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (nro_segmento, desplazamiento)
+);
+
+-- 50 restaurantes, 5 sucursales c/u, 40 contenidos por restaurante en 2 idiomas
+INSERT INTO dbo.idiomas VALUES (1, 'es', 'Español'), (2, 'en', 'English');
+
+INSERT INTO dbo.restaurantes
+SELECT X, CONCAT('Restaurante de prueba ', X, ' S.A.'), CONCAT('30-', 10000000 + X, '-9')
+FROM SYSTEM_RANGE(1, 50);
+
+INSERT INTO dbo.sucursales
+SELECT r.X, s.X, CONCAT('Sucursal ', s.X), CONCAT('Av. Colón ', s.X * 100), r.X * 10 + s.X
+FROM SYSTEM_RANGE(1, 50) r CROSS JOIN SYSTEM_RANGE(1, 5) s;
+
+INSERT INTO dbo.contenidos
+SELECT r.X, i.X, c.X,
+       CASE WHEN MOD(c.X, 3) = 0 THEN NULL ELSE MOD(c.X, 5) + 1 END,
+       CONCAT('2x1 en platos principales de lunes a jueves, promoción número ', c.X, ', válida presentando el cupón en el local.'),
+       -- Una de cada cuatro promociones trae la imagen embebida en base64: un PNG real de 640x320 (para las
+       -- variantes ?w=) seguido de un relleno distinto por contenido después de IEND, que los lectores ignoran
+       CASE WHEN MOD(c.X, 4) = 1 THEN CONCAT('data:image/png;base64,iVBORw0KGgoAAAANSUhEUgAAAoAAAAFACAMAAAAbEz04AAAABlBMVEX/jAAAPMjT+XztAAADYUlEQVR42u3SMQEAAAwCINe/9EL4eEAGEipHxSABBRRQQAQUUEABEVBAAQVEQAEFFBABBRRQQAQUUEABEVBAAQVEQAEFFFBABBRQQAERUEABBURAAQUUEAEFFFBABBRQQAERUEABBURAAQUUEAEFFFBAARFQQAEFREABBRQQAQUUUEAEFFBAARFQQAEFREABBRQQAQUUUEAEFFBAAQVEQAEFFBABBRRQQAQUUEABEVBAAQVEQAEFFBABBRRQQAQUUEABEVBAAQUUEAEFFFBABBRQQAERUEABBURAAQUUEAEFFFBABBRQQAERUEABBURAAQUUUEAEFFBAARFQQAEFREABBRQQAQUUUEAEFFBAARFQQAEFREABBRRQQAQUUEABEVBAAQVEQAEFFBABBRRQQAQUUEABEVBAAQVEQAEFFBABBRRQQAERUEABBURAAQUUEAEFFFBABBRQQAERUEABBURAAQUUEAEFFFBABBRQQAEFREABBRQQAQUUUEAEFFBAARFQQAEFREABBRQQAQUUUEAEFFBAARFQQAEFFBABBRRQQAQUUEABEVBAAQVEQAEFFBABBRRQQAQUUEABEVBAAQVEQAEFFFBABBRQQAERUEABBURAAQUUEAEFFFBABBRQQAERUEABBURAAQUUEIUEFFBAARFQQAEFREABBRQQAQUUUEAEFFBAARFQQAEFREABBRQQAQUUUEABEVBAAQVEQAEFFBABBRRQQAQUUEABEVBAAQVEQAEFFBABBRRQQAQUUEABBURAAQUUEAEFFFBABBRQQAERUEABBURAAQUUEAEFFFBABBRQQAERUEABBRQQAQUUUEAEFFBAARFQQAEFREABBRQQAQUUUEAEFFBAARFQQAEFREABBRRQQAQUUEABEVBAAQVEQAEFFBABBRRQQAQUUEABEVBAAQVEQAEFFBCDBBRQQAERUEABBURAAQUUEAEFFFBABBRQQAERUEABBURAAQUUEAEFFFBAARFQQAEFREABBRQQAQUUUEAEFFBAARFQQAEFREABBRQQAQUUUEAEFFBAAQVEQAEFFBABBRRQQAQUUEABEVBAAQVEQAEFFBABBRRQQAQUUEABEVBAAQUUEAEFFFBABBRQQAERUEABBURAAQUUEAEFFFBABBRwzAPCiZAQsvgPcgAAAABJRU5ErkJgggAA', LPAD(CAST(r.X * 100 + c.X AS VARCHAR), 8, 'A'))
+            ELSE CONCAT('/assets/promos/restaurante-', r.X, '/promo-', c.X, '.jpg') END,
+       CONCAT('¡Vení a disfrutar del 2x1! Promoción ', c.X, ' sujeta a disponibilidad. No acumulable con otras promociones.'),
+       DATEADD('DAY', -30, CURRENT_DATE),
+       CASE WHEN MOD(c.X, 4) = 0 THEN NULL
+            WHEN MOD(c.X, 7) = 0 THEN DATEADD('DAY', -1, CURRENT_DATE)
+            ELSE DATEADD('DAY', 90, CURRENT_DATE) END,
+       0.5 + MOD(c.X, 10) / 10.0,
+       CONCAT('PROMO-', r.X, '-', i.X, '-', c.X)
+FROM SYSTEM_RANGE(1, 50) r CROSS JOIN SYSTEM_RANGE(1, 2) i CROSS JOIN SYSTEM_RANGE(1, 40) c;
+
+CREATE ALIAS dbo.usp_get_promociones_restaurante FOR 'ar.edu.ubp.das.ristorinoapi.loadtest.StandInProcedures.promotions';
+CREATE ALIAS dbo.usp_get_restaurante_detalle FOR 'ar.edu.ubp.das.ristorinoapi.loadtest.StandInProcedures.restaurantDetail';
+CREATE ALIAS dbo.usp_registrar_click_contenido_restaurante FOR 'ar.edu.ubp.das.ristorinoapi.loadtest.StandInProcedures.registerClick';
+CREATE ALIAS dbo.usp_get_clicks_no_notificados FOR 'ar.edu.ubp.das.ristorinoapi.loadtest.StandInProcedures.unnotifiedClicks';
+CREATE ALIAS dbo.usp_confirmar_click_notificado FOR 'ar.edu.ubp.das.ristorinoapi.loadtest.StandInProcedures.confirmClick';
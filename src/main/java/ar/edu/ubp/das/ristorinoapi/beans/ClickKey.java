@@ -0,0 +1,16 @@
+package ar.edu.ubp.das.ristorinoapi.beans;
+
+import java.util.Comparator;
+
+/**
+ * Clave compuesta que identifica un click registrado: (restaurante, idioma, contenido, número de click).
+ * Se usa para confirmar notificaciones en lote y como cursor de la paginación keyset de clicks pendientes.
+ */
+public record ClickKey(Integer nroRestaurante, Integer nroIdioma, Integer nroContenido, Integer nroClick) {
+
+    /** Orden de la paginación keyset: restaurante, idioma, contenido y número de click. */
+    public static final Comparator<ClickKey> KEYSET_ORDER = Comparator.comparing(ClickKey::nroRestaurante)
+            .thenComparing(ClickKey::nroIdioma)
+            .thenComparing(ClickKey::nroContenido)
+            .thenComparing(ClickKey::nroClick);
+}
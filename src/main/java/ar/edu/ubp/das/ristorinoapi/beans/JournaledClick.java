@@ -0,0 +1,7 @@
+package ar.edu.ubp.das.ristorinoapi.beans;
+
+/**
+ * Click leído del diario local junto con su posición en él (segmento y offset), que lo identifica de forma única
+ * y se usa como clave de idempotencia al registrarlo en la base.
+ */
+public record JournaledClick(long nroSegmento, int desplazamiento, ClickRequest click) {}
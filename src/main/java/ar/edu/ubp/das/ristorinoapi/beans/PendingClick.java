@@ -0,0 +1,24 @@
+package ar.edu.ubp.das.ristorinoapi.beans;
+
+/**
+ * Click registrado pendiente de notificar a la API del restaurante.
+ * Combina los datos de 'click' y 'contenido' que devuelve dbo.usp_get_clicks_no_notificados.
+ * Los identificadores ausentes en el JSON se representan con 0 y el costo ausente con 0.0.
+ */
+public record PendingClick(int nroRestaurante,
+                           int nroIdioma,
+                           int nroContenido,
+                           int nroClick,
+                           double costoClick,
+                           String codContenidoRestaurante) {
+
+    /** @return true si trae todas las claves necesarias para notificar y confirmar el click */
+    public boolean hasKeys() {
+        return nroRestaurante > 0 && nroIdioma > 0 && nroContenido > 0 && nroClick > 0;
+    }
+
+    /** @return clave compuesta del click */
+    public ClickKey key() {
+        return new ClickKey(nroRestaurante, nroIdioma, nroContenido, nroClick);
+    }
+}
@@ -23,6 +23,27 @@ public class PromotionContent {
     /** Constructor vacío para frameworks de deserialización */
     public PromotionContent() {}
 
+    /**
+     * Constructor de copia. Todos los campos son inmutables, por lo que la copia es independiente del original.
+     * @param other contenido a copiar
+     */
+    public PromotionContent(PromotionContent other) {
+        this.nro_contenido = other.nro_contenido;
+        this.nro_sucursal = other.nro_sucursal;
+        this.nom_sucursal = other.nom_sucursal;
+        this.nro_idioma = other.nro_idioma;
+        this.cod_idioma = other.cod_idioma;
+        this.nom_idioma = other.nom_idioma;
+        this.contenido_promocional = other.contenido_promocional;
+        this.contenido_a_publicar = other.contenido_a_publicar;
+        this.fecha_ini_vigencia = other.fecha_ini_vigencia;
+        this.fecha_fin_vigencia = other.fecha_fin_vigencia;
+        this.imagen_promocional = other.imagen_promocional;
+        this.costo_click = other.costo_click;
+        this.cod_contenido_restaurante = other.cod_contenido_restaurante;
+        this.vigente = other.vigente;
+    }
+
     /**
      * Obtiene el número de contenido.
      * @return El número de contenido.
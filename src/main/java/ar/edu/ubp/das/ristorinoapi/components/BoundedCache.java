@@ -0,0 +1,273 @@
+package ar.edu.ubp.das.ristorinoapi.components;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cache en memoria de lectura directa (read-through) con expiración por TTL y desalojo LRU acotado
+ * por cantidad de entradas y por peso total.
+ * <p>Las cargas concurrentes de una misma clave se unifican: sólo un hilo ejecuta el loader y el resto
+ * espera su resultado, evitando ráfagas de llamadas idénticas a la base de datos cuando una entrada expira.</p>
+ * <p>Los valores null no se almacenan. Una invalidación ocurrida mientras se carga un valor impide que ese
+ * valor (potencialmente desactualizado) quede guardado.</p>
+ * <p>El estado se protege con un {@link ReentrantLock} en lugar de {@code synchronized}, para no fijar
+ * (pin) el hilo portador cuando se accede desde hilos virtuales.</p>
+ * @param <K> tipo de la clave
+ * @param <V> tipo del valor
+ */
+public class BoundedCache<K, V> {
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private final LongSupplier nanoClock;
+
+    // LinkedHashMap en modo access-order: el primer elemento es siempre el menos usado recientemente
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private long totalWeight;
+    private long epoch;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * @param ttl tiempo de vida de cada entrada desde su carga (null o cero = sin expiración)
+     * @param maxEntries cantidad máxima de entradas
+     * @param maxWeight peso total máximo según {@code weigher}
+     * @param weigher función que calcula el peso de un valor
+     */
+    public BoundedCache(Duration ttl, int maxEntries, long maxWeight, ToLongFunction<V> weigher) {
+        this(ttl, maxEntries, maxWeight, weigher, System::nanoTime);
+    }
+
+    /**
+     * Variante con reloj configurable (en nanosegundos), útil para pruebas.
+     */
+    public BoundedCache(Duration ttl, int maxEntries, long maxWeight, ToLongFunction<V> weigher, LongSupplier nanoClock) {
+        if (maxEntries <= 0 || maxWeight <= 0) {
+            throw new IllegalArgumentException("maxEntries y maxWeight deben ser positivos");
+        }
+        this.ttlNanos = ttl == null ? 0 : ttl.toNanos();
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Devuelve el valor cacheado para la clave o lo carga con {@code loader} si no existe o expiró.
+     * @throws RuntimeException la excepción original lanzada por el loader
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        misses.increment();
+
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            return await(existing);
+        }
+        long loadEpoch;
+        lock.lock();
+        try {
+            loadEpoch = epoch;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            V value = loader.apply(key);
+            if (value != null) {
+                put(key, value, loadEpoch);
+            }
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException ex) {
+            loadFailures.increment();
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Devuelve el valor cacheado (registrando hit) o null si no existe o expiró. No registra miss.
+     */
+    public V getIfPresent(K key) {
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (isExpired(entry)) {
+                removeEntry(key, entry);
+                expirations.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return true si la clave está cacheada y no expiró; no registra hit ni miss
+     */
+    public boolean containsKey(K key) {
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            return entry != null && !isExpired(entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Invalida una clave puntual.
+     * @return true si la clave estaba cacheada
+     */
+    public boolean invalidate(K key) {
+        return invalidateIf(key::equals) > 0;
+    }
+
+    /**
+     * Invalida todas las claves que cumplan el predicado.
+     * @return cantidad de entradas eliminadas
+     */
+    public int invalidateIf(Predicate<? super K> predicate) {
+        lock.lock();
+        try {
+            epoch++;
+            int removed = 0;
+            Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<K, Entry<V>> e = it.next();
+                if (predicate.test(e.getKey())) {
+                    totalWeight -= e.getValue().weight;
+                    it.remove();
+                    removed++;
+                }
+            }
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Vacía completamente el cache. */
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            epoch++;
+            entries.clear();
+            totalWeight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return instantánea de las estadísticas de uso */
+    public Stats stats() {
+        lock.lock();
+        try {
+            return new Stats(hits.sum(), misses.sum(), loadFailures.sum(), evictions.sum(), expirations.sum(),
+                    entries.size(), totalWeight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void put(K key, V value, long loadEpoch) {
+        long weight = Math.max(0, weigher.applyAsLong(value));
+        if (weight > maxWeight) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (loadEpoch != epoch) {
+                return; // hubo una invalidación durante la carga: el valor puede estar desactualizado
+            }
+            Entry<V> previous = entries.put(key, new Entry<>(value, weight, nanoClock.getAsLong()));
+            if (previous != null) {
+                totalWeight -= previous.weight;
+            }
+            totalWeight += weight;
+            Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || totalWeight > maxWeight) && it.hasNext()) {
+                Map.Entry<K, Entry<V>> eldest = it.next();
+                totalWeight -= eldest.getValue().weight;
+                it.remove();
+                evictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void removeEntry(K key, Entry<V> entry) {
+        entries.remove(key);
+        totalWeight -= entry.weight;
+    }
+
+    private boolean isExpired(Entry<V> entry) {
+        return ttlNanos > 0 && nanoClock.getAsLong() - entry.loadedAtNanos >= ttlNanos;
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ce) {
+            if (ce.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw ce;
+        }
+    }
+
+    private record Entry<V>(V value, long weight, long loadedAtNanos) {}
+
+    /**
+     * Estadísticas acumuladas del cache.
+     * @param hits lecturas resueltas desde el cache
+     * @param misses lecturas que requirieron carga (o espera de una carga en curso)
+     * @param loadFailures cargas que terminaron con excepción
+     * @param evictions entradas desalojadas por límite de tamaño o peso
+     * @param expirations entradas descartadas por TTL
+     * @param size cantidad de entradas actuales
+     * @param weight peso total actual
+     */
+    public record Stats(long hits, long misses, long loadFailures, long evictions, long expirations,
+                        int size, long weight) {
+        /** @return proporción de hits sobre el total de lecturas (0 si no hubo lecturas) */
+        @JsonProperty("hitRate")
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+}
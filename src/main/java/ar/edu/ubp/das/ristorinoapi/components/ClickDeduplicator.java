@@ -0,0 +1,156 @@
+package ar.edu.ubp.das.ristorinoapi.components;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Descarta clicks repetidos (bots, doble toque) antes de registrarlos en la base de datos.
+ * <p>Un click es duplicado si el mismo contenido (restaurante, idioma, contenido) recibió un click del mismo
+ * cliente (IP + User-Agent) dentro de la ventana configurada. Los clicks aceptados se guardan en un
+ * {@link SlidingWindowBloomFilter}, con memoria fija: puede descartar por error un click legítimo con
+ * probabilidad {@code false-positive-rate}, pero no deja pasar un duplicado dentro de la ventana.</p>
+ * <p>Mientras un click se está registrando su clave queda en un conjunto exacto de clicks en curso
+ * ({@link #claim}): una repetición simultánea se descarta aunque el primero todavía no haya llegado al filtro, y si
+ * el registro falla la clave se libera sin marcarla, de modo que el reintento no se descarta.</p>
+ * <p>Configuración (application.properties):
+ * <pre>ristorino.clicks.dedup.enabled=true
+ * ristorino.clicks.dedup.window-seconds=10
+ * ristorino.clicks.dedup.expected-clicks=100000
+ * ristorino.clicks.dedup.false-positive-rate=0.001</pre></p>
+ * <p>Métrica {@code ristorino.clicks.dedup} por {@code outcome}: accepted, suppressed.</p>
+ */
+@Component
+public class ClickDeduplicator {
+
+    private static final Logger log = LoggerFactory.getLogger(ClickDeduplicator.class);
+
+    /** Franjas en que se divide la ventana. */
+    private static final int SLICES = 4;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ristorino.clicks.dedup.enabled:true}")
+    private boolean enabled;
+    @Value("${ristorino.clicks.dedup.window-seconds:10}")
+    private long windowSeconds;
+    // Clicks distintos esperados por ventana: dimensiona la memoria del filtro
+    @Value("${ristorino.clicks.dedup.expected-clicks:100000}")
+    private long expectedClicks;
+    @Value("${ristorino.clicks.dedup.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    private SlidingWindowBloomFilter filter;
+    // Claves de clicks en curso (entre claim y close): a lo sumo uno por request concurrente
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private Counter accepted;
+    private Counter suppressed;
+
+    @PostConstruct
+    void init() {
+        filter = new SlidingWindowBloomFilter(Duration.ofSeconds(windowSeconds), SLICES, expectedClicks, falsePositiveRate);
+        accepted = dedupCounter("accepted");
+        suppressed = dedupCounter("suppressed");
+        log.info("Deduplicación de clicks {} (ventana={}s, {} bytes, {} hashes)",
+                enabled ? "habilitada" : "deshabilitada", windowSeconds, filter.sizeInBytes(), filter.hashFunctions());
+    }
+
+    /**
+     * Reserva el click para registrarlo, o lo descarta si es un duplicado: otro click igual ya se aceptó dentro de
+     * la ventana o se está registrando en este momento. El llamador registra el click, invoca
+     * {@link Claim#accept()} si se aceptó (diario, cola o base) y cierra la reserva; cerrarla sin aceptar (503, 500)
+     * no cuenta el click, para que el reintento no se descarte. Con la deduplicación deshabilitada nunca descarta.
+     * @param clientAddress IP del cliente
+     * @param userAgent header User-Agent (puede ser null)
+     * @return la reserva, o null si el click es un duplicado que debe descartarse
+     */
+    public Claim claim(int nroRestaurante, int nroIdioma, int nroContenido, String clientAddress, String userAgent) {
+        if (!enabled) {
+            return new Claim(null);
+        }
+        String key = key(nroRestaurante, nroIdioma, nroContenido, clientAddress, userAgent);
+        if (!inFlight.add(key)) {
+            suppressed.increment();
+            return null;
+        }
+        if (filter.mightContain(key)) {
+            inFlight.remove(key);
+            suppressed.increment();
+            return null;
+        }
+        return new Claim(key);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** @return estado y contadores de la deduplicación */
+    public Stats stats() {
+        return new Stats(enabled, windowSeconds, (long) accepted.count(), (long) suppressed.count(),
+                filter.sizeInBytes(), falsePositiveRate);
+    }
+
+    private static String key(int nroRestaurante, int nroIdioma, int nroContenido, String clientAddress, String userAgent) {
+        return nroRestaurante + "|" + nroIdioma + "|" + nroContenido + "|" + clientAddress + "|"
+                + (userAgent == null ? "" : userAgent);
+    }
+
+    private Counter dedupCounter(String outcome) {
+        return Counter.builder("ristorino.clicks.dedup")
+                .description("Clicks aceptados y descartados por duplicados")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Click reservado por {@link #claim} mientras se registra.
+     */
+    public final class Claim implements AutoCloseable {
+
+        private final String key;
+
+        private Claim(String key) {
+            this.key = key;
+        }
+
+        /** Cuenta el click como aceptado: sus repeticiones dentro de la ventana se descartan. */
+        public void accept() {
+            if (key != null) {
+                // Antes de liberar la reserva, para que ninguna repetición pase entre ambos pasos
+                filter.put(key);
+                accepted.increment();
+            }
+        }
+
+        /** Libera la reserva; sin {@link #accept()} el click no cuenta para la ventana. */
+        @Override
+        public void close() {
+            if (key != null) {
+                inFlight.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Estado de la deduplicación.
+     * @param enabled si está habilitada
+     * @param windowSeconds ventana de duplicados
+     * @param accepted clicks aceptados
+     * @param suppressed clicks descartados por duplicados
+     * @param sizeInBytes memoria del filtro
+     * @param falsePositiveRate probabilidad de descartar por error un click legítimo a la carga esperada
+     */
+    public record Stats(boolean enabled, long windowSeconds, long accepted, long suppressed, long sizeInBytes,
+                        double falsePositiveRate) {}
+}
@@ -0,0 +1,392 @@
+package ar.edu.ubp.das.ristorinoapi.components;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Diario local de clicks, append-only, sobre archivos de segmento mapeados en memoria.
+ * <p>Cada click es un registro binario de {@value #RECORD_BYTES} bytes: marca, restaurante, idioma, contenido,
+ * fecha (epoch ms) y CRC32C del contenido. Los segmentos ({@code clicks-<id>.seg}) tienen tamaño fijo; al
+ * llenarse se abre el siguiente. Al abrir el diario siempre se empieza un segmento nuevo y los existentes se
+ * recorren hasta el primer registro inválido (escritura cortada por una caída).</p>
+ * <p>El archivo {@code cursor} guarda hasta dónde se reprodujo el diario: la posición confirmada y la del lote en
+ * curso. Antes de registrar un lote se graba {@link #beginReplay} y al confirmarlo {@link #commit}; si el
+ * proceso cae entre ambos, al reabrir el lote se vuelve a reproducir ({@link #uncertainOnOpen()}). La posición de
+ * cada registro ({@link Entry#position()}) es su clave de idempotencia: los ids de segmento nunca se repiten (se
+ * parte de la hora actual en ms al abrir), así que la base puede reconocer un registro ya registrado. Los
+ * segmentos ya reproducidos se borran.</p>
+ * <p>Los registros quedan en el page cache apenas se escriben (sobreviven a la caída del proceso); {@link #force}
+ * los baja a disco (caída del sistema operativo). Thread-safe.</p>
+ */
+public class ClickJournal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ClickJournal.class);
+
+    public static final int RECORD_BYTES = 28;
+    private static final int MAGIC = 0x434C4B31; // "CLK1"
+    private static final Pattern SEGMENT_NAME = Pattern.compile("clicks-(\\d{16})\\.seg");
+    private static final String CURSOR_FILE = "cursor";
+
+    /** Posición en el diario: segmento y offset en bytes dentro del segmento. */
+    public record Position(long segment, int offset) implements Comparable<Position> {
+        @Override
+        public int compareTo(Position o) {
+            int c = Long.compare(segment, o.segment);
+            return c != 0 ? c : Integer.compare(offset, o.offset);
+        }
+    }
+
+    /**
+     * Click leído del diario.
+     * @param next posición inmediatamente posterior al registro
+     */
+    public record Entry(int nroRestaurante, int nroIdioma, int nroContenido, long epochMillis, Position next) {
+
+        /** @return posición del registro, única en el diario: clave de idempotencia del click */
+        public Position position() {
+            return new Position(next.segment(), next.offset() - RECORD_BYTES);
+        }
+    }
+
+    private final Path dir;
+    private final int segmentCapacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+    private final CRC32C crc = new CRC32C();
+    private Segment active;
+    private Position committed;
+    private Position inFlight;
+    private final long uncertainOnOpen;
+
+    /**
+     * Abre (o crea) el diario en {@code dir}.
+     * @param segmentBytes tamaño de cada segmento; se redondea a un múltiplo de {@value #RECORD_BYTES}
+     */
+    public ClickJournal(Path dir, int segmentBytes) throws IOException {
+        if (segmentBytes < RECORD_BYTES) {
+            throw new IllegalArgumentException("segmentBytes debe ser al menos " + RECORD_BYTES);
+        }
+        this.dir = dir;
+        this.segmentCapacity = segmentBytes - segmentBytes % RECORD_BYTES;
+        Files.createDirectories(dir);
+        long lastId = 0;
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                Matcher m = SEGMENT_NAME.matcher(p.getFileName().toString());
+                if (m.matches()) {
+                    Segment s = openSealed(Long.parseLong(m.group(1)), p);
+                    segments.put(s.id, s);
+                    lastId = Math.max(lastId, s.id);
+                }
+            }
+        }
+        Position[] cursor = readCursor();
+        committed = cursor[0];
+        if (cursor[1].compareTo(cursor[0]) > 0) {
+            // Caída con un lote en curso: no se sabe si llegó a la BD, pero los clicks ya se aceptaron (202)
+            uncertainOnOpen = recordsBetween(cursor[0], cursor[1]);
+            log.warn("El diario de clicks tenía un lote en curso al detenerse; se vuelven a registrar {} clicks que pudieron haberse registrado", uncertainOnOpen);
+        } else {
+            uncertainOnOpen = 0;
+        }
+        lastId = Math.max(lastId, committed.segment());
+        // Ids crecientes aunque se borre el directorio: una posición nunca identifica a dos clicks distintos
+        active = createSegment(Math.max(lastId + 1, System.currentTimeMillis()));
+        segments.put(active.id, active);
+        if (segments.firstKey() > committed.segment()) {
+            committed = new Position(segments.firstKey(), 0);
+        }
+        inFlight = committed;
+        writeCursor();
+    }
+
+    /**
+     * Agrega un click al final del diario.
+     */
+    public void append(int nroRestaurante, int nroIdioma, int nroContenido, long epochMillis) throws IOException {
+        lock.lock();
+        try {
+            if (active.limit + RECORD_BYTES > segmentCapacity) {
+                rotate();
+            }
+            record.clear();
+            record.putInt(MAGIC).putInt(nroRestaurante).putInt(nroIdioma).putInt(nroContenido).putLong(epochMillis);
+            crc.reset();
+            crc.update(record.array(), 4, RECORD_BYTES - 8);
+            record.putInt((int) crc.getValue());
+            active.buffer.put(active.limit, record.array());
+            active.limit += RECORD_BYTES;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Lee hasta {@code max} clicks desde la posición confirmada. Los segmentos que quedan completamente
+     * detrás de la posición confirmada se borran.
+     */
+    public List<Entry> read(int max) throws IOException {
+        lock.lock();
+        try {
+            skipExhaustedSegments();
+            List<Entry> out = new ArrayList<>(Math.min(max, 256));
+            Position pos = committed;
+            while (out.size() < max) {
+                Segment s = segments.get(pos.segment());
+                if (s == null) {
+                    break;
+                }
+                if (pos.offset() + RECORD_BYTES > s.limit) {
+                    Long nextId = segments.higherKey(s.id);
+                    if (nextId == null || s == active) {
+                        break;
+                    }
+                    pos = new Position(nextId, 0);
+                    continue;
+                }
+                ByteBuffer b = s.buffer;
+                int o = pos.offset();
+                pos = new Position(s.id, o + RECORD_BYTES);
+                out.add(new Entry(b.getInt(o + 4), b.getInt(o + 8), b.getInt(o + 12), b.getLong(o + 16), pos));
+            }
+            return out;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Registra que se va a reproducir hasta {@code end} (exclusive). Debe llamarse antes de escribir en la BD.
+     */
+    public void beginReplay(Position end) throws IOException {
+        lock.lock();
+        try {
+            inFlight = end;
+            writeCursor();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Confirma lo reproducido hasta {@code end} (exclusive) y borra los segmentos ya consumidos. La posición en
+     * memoria avanza aunque falle la escritura del cursor, por lo que el lote no se vuelve a leer.
+     */
+    public void commit(Position end) throws IOException {
+        lock.lock();
+        try {
+            committed = end;
+            inFlight = end;
+            writeCursor();
+            skipExhaustedSegments();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Descarta el lote en curso (no llegó a la BD): se volverá a leer desde la posición confirmada.
+     */
+    public void abortReplay() throws IOException {
+        lock.lock();
+        try {
+            inFlight = committed;
+            writeCursor();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Baja a disco los registros del segmento activo. */
+    public void force() {
+        lock.lock();
+        try {
+            active.buffer.force();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return clicks escritos y todavía no confirmados */
+    public long pendingRecords() {
+        lock.lock();
+        try {
+            return recordsBetween(committed, new Position(active.id, active.limit));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return clicks de un lote en curso durante una caída previa, que se vuelven a reproducir */
+    public long uncertainOnOpen() {
+        return uncertainOnOpen;
+    }
+
+    /** @return cantidad de archivos de segmento en el directorio */
+    public int segmentCount() {
+        lock.lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            active.buffer.force();
+            writeCursor();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void rotate() throws IOException {
+        active.buffer.force();
+        Segment next = createSegment(active.id + 1);
+        segments.put(next.id, next);
+        active = next;
+    }
+
+    /** Avanza la posición confirmada sobre segmentos agotados y los borra. */
+    private void skipExhaustedSegments() throws IOException {
+        boolean moved = false;
+        while (true) {
+            Segment s = segments.get(committed.segment());
+            Long nextId = segments.higherKey(committed.segment());
+            if (s == null || s == active || nextId == null || committed.offset() + RECORD_BYTES <= s.limit) {
+                break;
+            }
+            committed = new Position(nextId, 0);
+            moved = true;
+        }
+        if (moved) {
+            if (inFlight.compareTo(committed) < 0) {
+                inFlight = committed;
+            }
+            writeCursor();
+        }
+        for (Map.Entry<Long, Segment> e : new ArrayList<>(segments.headMap(committed.segment()).entrySet())) {
+            segments.remove(e.getKey());
+            try {
+                Files.deleteIfExists(e.getValue().path);
+            } catch (IOException ex) {
+                // p.ej. Windows no borra un archivo mapeado: queda detrás del cursor y se reintenta al reabrir
+                log.warn("No se pudo borrar el segmento reproducido {}: {}", e.getValue().path.getFileName(), ex.getMessage());
+            }
+        }
+    }
+
+    private long recordsBetween(Position from, Position to) {
+        long records = 0;
+        for (Segment s : segments.subMap(from.segment(), true, to.segment(), true).values()) {
+            int start = s.id == from.segment() ? from.offset() : 0;
+            int end = s.id == to.segment() ? Math.min(to.offset(), s.limit) : s.limit;
+            records += Math.max(0, end - start) / RECORD_BYTES;
+        }
+        return records;
+    }
+
+    private Segment createSegment(long id) throws IOException {
+        Path path = dir.resolve(String.format("clicks-%016d.seg", id));
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // El mapeo sigue vigente después de cerrar el canal
+            return new Segment(id, path, ch.map(FileChannel.MapMode.READ_WRITE, 0, segmentCapacity), 0);
+        }
+    }
+
+    /** Mapea un segmento existente (sólo lectura) y calcula hasta dónde tiene registros válidos. */
+    private Segment openSealed(long id, Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            int size = (int) Math.min(ch.size(), Integer.MAX_VALUE);
+            MappedByteBuffer buffer = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int limit = 0;
+            byte[] payload = new byte[RECORD_BYTES - 8];
+            while (limit + RECORD_BYTES <= size && buffer.getInt(limit) == MAGIC) {
+                buffer.get(limit + 4, payload);
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != buffer.getInt(limit + RECORD_BYTES - 4)) {
+                    log.warn("Registro corrupto en {} (offset {}), se descarta el resto del segmento", path.getFileName(), limit);
+                    break;
+                }
+                limit += RECORD_BYTES;
+            }
+            return new Segment(id, path, buffer, limit);
+        }
+    }
+
+    /** @return [confirmada, en curso]; sin cursor válido, el comienzo del primer segmento */
+    private Position[] readCursor() throws IOException {
+        Position start = new Position(segments.isEmpty() ? 0 : segments.firstKey(), 0);
+        Path path = dir.resolve(CURSOR_FILE);
+        if (!Files.exists(path)) {
+            return new Position[]{start, start};
+        }
+        ByteBuffer b = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (b.remaining() != 28) {
+            log.warn("Cursor del diario de clicks inválido, se reproduce desde el primer segmento");
+            return new Position[]{start, start};
+        }
+        crc.reset();
+        crc.update(b.array(), 0, 24);
+        if ((int) crc.getValue() != b.getInt(24)) {
+            log.warn("Cursor del diario de clicks corrupto, se reproduce desde el primer segmento");
+            return new Position[]{start, start};
+        }
+        return new Position[]{new Position(b.getLong(0), b.getInt(8)), new Position(b.getLong(12), b.getInt(20))};
+    }
+
+    /** Graba el cursor en un archivo temporal y lo reemplaza con un rename atómico. */
+    private void writeCursor() throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(28);
+        b.putLong(committed.segment()).putInt(committed.offset()).putLong(inFlight.segment()).putInt(inFlight.offset());
+        crc.reset();
+        crc.update(b.array(), 0, 24);
+        b.putInt((int) crc.getValue()).flip();
+        Path tmp = dir.resolve(CURSOR_FILE + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (b.hasRemaining()) {
+                ch.write(b);
+            }
+            ch.force(false);
+        }
+        Files.move(tmp, dir.resolve(CURSOR_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static final class Segment {
+        private final long id;
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private int limit; // fin de los registros válidos
+
+        private Segment(long id, Path path, MappedByteBuffer buffer, int limit) {
+            this.id = id;
+            this.path = path;
+            this.buffer = buffer;
+            this.limit = limit;
+        }
+    }
+}
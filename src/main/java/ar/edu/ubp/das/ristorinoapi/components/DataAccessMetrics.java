@@ -0,0 +1,90 @@
+package ar.edu.ubp.das.ristorinoapi.components;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+/**
+ * Métricas (Micrometer) del acceso a datos, expuestas por Actuator en {@code /actuator/prometheus}:
+ * <ul>
+ *   <li>{@code ristorino.db.procedure}: latencia por procedimiento almacenado, con tags {@code procedure},
+ *       {@code mode} (call, streaming, single, batch) y {@code outcome} (success, error). Publica histograma.</li>
+ *   <li>{@code ristorino.db.forjson.fragments} y {@code ristorino.db.forjson.size}: cantidad de fragmentos
+ *       y caracteres del JSON devuelto por los SP con FOR JSON.</li>
+ *   <li>{@code ristorino.json.parse}: tiempo de parseo por método de repositorio. En los parseos en streaming
+ *       incluye la lectura de los fragmentos desde el result set.</li>
+ * </ul>
+ */
+@Component
+public class DataAccessMetrics {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Ejecuta y mide la invocación de un procedimiento almacenado.
+     * @param procedure nombre calificado (p.ej. "dbo.usp_get_promociones_restaurante")
+     * @param mode forma de invocación (call, streaming, single, batch)
+     */
+    public <T> T recordProcedure(String procedure, String mode, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(Timer.builder("ristorino.db.procedure")
+                    .description("Latencia de procedimientos almacenados")
+                    .tag("procedure", procedure)
+                    .tag("mode", mode)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Registra el tamaño del JSON leído de un SP con FOR JSON.
+     */
+    public void recordForJson(String procedure, long fragments, long chars) {
+        DistributionSummary.builder("ristorino.db.forjson.fragments")
+                .description("Fragmentos (filas) del resultado FOR JSON")
+                .tag("procedure", procedure)
+                .register(meterRegistry)
+                .record(fragments);
+        DistributionSummary.builder("ristorino.db.forjson.size")
+                .description("Tamaño del JSON devuelto por FOR JSON")
+                .baseUnit("chars")
+                .tag("procedure", procedure)
+                .register(meterRegistry)
+                .record(chars);
+    }
+
+    /**
+     * Ejecuta y mide un parseo de JSON.
+     * @param method método de repositorio (p.ej. "ClickRepository.getUnnotifiedClicks")
+     */
+    public <T> T recordParse(String method, ParseCall<T> parse) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return parse.call();
+        } finally {
+            sample.stop(Timer.builder("ristorino.json.parse")
+                    .description("Tiempo de parseo de JSON por método de repositorio")
+                    .tag("method", method)
+                    .register(meterRegistry));
+        }
+    }
+
+    /** Parseo que puede fallar con IOException. */
+    @FunctionalInterface
+    public interface ParseCall<T> {
+        T call() throws IOException;
+    }
+}
@@ -0,0 +1,212 @@
+package ar.edu.ubp.das.ristorinoapi.components;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Cache en disco de valores binarios por clave, con desalojo LRU acotado por el tamaño total de los archivos.
+ * <p>Cada entrada es un archivo {@code <clave>} en el directorio. Las escrituras van a un archivo temporal que
+ * luego se renombra atómicamente, por lo que un lector nunca ve un archivo a medio escribir. El índice (orden de
+ * uso y tamaños) se mantiene en memoria y se reconstruye al abrir a partir de la fecha de modificación de los
+ * archivos, que se actualiza en cada lectura para conservar el orden LRU entre reinicios.</p>
+ * <p>Un archivo borrado por fuera (o desalojado mientras se leía) se trata como un miss.</p>
+ * <p>El índice se protege con un {@link ReentrantLock}; la E/S de archivos se hace fuera del lock.</p>
+ */
+public class DiskLruCache {
+
+    private static final Pattern KEY = Pattern.compile("[A-Za-z0-9_-]{1,200}");
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private final Path dir;
+    private final long maxBytes;
+
+    // LinkedHashMap en modo access-order: el primer elemento es siempre el menos usado recientemente
+    private final LinkedHashMap<String, Long> sizes = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private long totalBytes;
+    private long tmpCounter;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Abre (o crea) el cache en {@code dir}, indexando los archivos existentes y borrando temporales huérfanos.
+     * @param maxBytes tamaño total máximo de los archivos
+     */
+    public DiskLruCache(Path dir, long maxBytes) throws IOException {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes debe ser positivo");
+        }
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(dir);
+        record Existing(String key, long size, FileTime modified) {}
+        List<Existing> existing = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TMP_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                } else if (KEY.matcher(name).matches()) {
+                    BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                    existing.add(new Existing(name, attrs.size(), attrs.lastModifiedTime()));
+                }
+            }
+        }
+        existing.sort(Comparator.comparing(Existing::modified));
+        for (Existing e : existing) {
+            sizes.put(e.key(), e.size());
+            totalBytes += e.size();
+        }
+        deleteFiles(evictOverLimit());
+    }
+
+    /**
+     * @return el contenido guardado para la clave, o null si no está
+     * @throws IllegalArgumentException si la clave no es un nombre de archivo válido ({@code [A-Za-z0-9_-]})
+     */
+    public byte[] get(String key) {
+        checkKey(key);
+        lock.lock();
+        try {
+            if (sizes.get(key) == null) {
+                misses.increment();
+                return null;
+            }
+        } finally {
+            lock.unlock();
+        }
+        Path file = dir.resolve(key);
+        try {
+            byte[] data = Files.readAllBytes(file);
+            hits.increment();
+            try {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (IOException ignored) {
+                // Sólo afecta el orden LRU tras un reinicio
+            }
+            return data;
+        } catch (NoSuchFileException e) {
+            forget(key);
+            misses.increment();
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Guarda (o reemplaza) el contenido de la clave y desaloja las entradas menos usadas si se supera el tamaño
+     * máximo. Un valor más grande que el máximo no se guarda.
+     * @throws IllegalArgumentException si la clave no es un nombre de archivo válido
+     */
+    public void put(String key, byte[] data) throws IOException {
+        checkKey(key);
+        if (data.length > maxBytes) {
+            return;
+        }
+        long tmpId;
+        lock.lock();
+        try {
+            tmpId = ++tmpCounter;
+        } finally {
+            lock.unlock();
+        }
+        Path tmp = dir.resolve(key + "." + tmpId + TMP_SUFFIX);
+        try {
+            Files.write(tmp, data);
+            Files.move(tmp, dir.resolve(key), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        writes.increment();
+        List<String> evicted;
+        lock.lock();
+        try {
+            Long previous = sizes.put(key, (long) data.length);
+            totalBytes += data.length - (previous == null ? 0 : previous);
+            evicted = evictOverLimit();
+        } finally {
+            lock.unlock();
+        }
+        deleteFiles(evicted);
+    }
+
+    /** @return estadísticas del cache */
+    public Stats stats() {
+        lock.lock();
+        try {
+            return new Stats(hits.sum(), misses.sum(), writes.sum(), evictions.sum(), sizes.size(), totalBytes, maxBytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Quita del índice las entradas más antiguas hasta quedar dentro del máximo (con el lock tomado o en el constructor). */
+    private List<String> evictOverLimit() {
+        List<String> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> it = sizes.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            totalBytes -= eldest.getValue();
+            it.remove();
+            evicted.add(eldest.getKey());
+            evictions.increment();
+        }
+        return evicted;
+    }
+
+    private void deleteFiles(List<String> keys) throws IOException {
+        for (String key : keys) {
+            Files.deleteIfExists(dir.resolve(key));
+        }
+    }
+
+    private void forget(String key) {
+        lock.lock();
+        try {
+            Long size = sizes.remove(key);
+            if (size != null) {
+                totalBytes -= size;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void checkKey(String key) {
+        if (key == null || !KEY.matcher(key).matches()) {
+            throw new IllegalArgumentException("Clave de cache inválida: " + key);
+        }
+    }
+
+    /**
+     * Estadísticas del cache en disco.
+     * @param hits lecturas encontradas
+     * @param misses lecturas no encontradas
+     * @param writes escrituras
+     * @param evictions archivos desalojados por tamaño
+     * @param entries archivos actuales
+     * @param bytes tamaño total actual
+     * @param maxBytes tamaño total máximo
+     */
+    public record Stats(long hits, long misses, long writes, long evictions, int entries, long bytes, long maxBytes) {}
+}
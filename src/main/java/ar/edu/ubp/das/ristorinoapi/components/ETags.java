@@ -0,0 +1,54 @@
+package ar.edu.ubp.das.ristorinoapi.components;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Utilidades para ETags fuertes calculados a partir del contenido serializado de una respuesta.
+ * <p>El ETag es el SHA-256 del cuerpo en base64url sin padding y entre comillas, de modo que dos respuestas
+ * con los mismos bytes tienen el mismo ETag aunque provengan de instancias distintas de la aplicación.</p>
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * @param body bytes exactos del cuerpo de la respuesta
+     * @return ETag fuerte (entre comillas) del contenido
+     */
+    public static String of(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + '"';
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Evalúa un header If-None-Match contra el ETag actual con comparación débil (RFC 9110), admitiendo
+     * listas de ETags y el comodín {@code *}.
+     * @param ifNoneMatch valor del header (puede ser null)
+     * @param etag ETag actual del recurso
+     * @return true si el cliente ya tiene la representación actual (corresponde responder 304)
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank() || etag == null) {
+            return false;
+        }
+        String current = opaque(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String c = candidate.trim();
+            if (c.equals("*") || opaque(c).equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaque(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
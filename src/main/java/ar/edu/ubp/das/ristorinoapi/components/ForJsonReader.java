@@ -0,0 +1,98 @@
+package ar.edu.ubp.das.ristorinoapi.components;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * {@link Reader} sobre el resultado de un {@code SELECT ... FOR JSON} de SQL Server.
+ * <p>SQL Server entrega el JSON partido en filas de una única columna (fragmentos de ~2033 caracteres).
+ * Este reader avanza el {@link ResultSet} a medida que se consumen caracteres, de modo que el JSON completo
+ * nunca se materializa en memoria: sólo se mantiene el fragmento actual.</p>
+ * <p>Debe consumirse mientras la conexión/statement sigan abiertos. Cerrar el reader no cierra el ResultSet.</p>
+ */
+public class ForJsonReader extends Reader {
+
+    private final ResultSet rs;
+    private String fragment;
+    private int pos;
+    private boolean exhausted;
+    private long fragmentCount;
+    private long charCount;
+
+    public ForJsonReader(ResultSet rs) {
+        this.rs = rs;
+    }
+
+    /**
+     * Indica si el resultado no trae ningún carácter. Puede avanzar al primer fragmento, sin consumirlo.
+     */
+    public boolean isEmpty() throws IOException {
+        return !ensureFragment();
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureFragment()) {
+            return -1;
+        }
+        int n = Math.min(len, fragment.length() - pos);
+        fragment.getChars(pos, pos + n, cbuf, off);
+        pos += n;
+        charCount += n;
+        return n;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureFragment()) {
+            return -1;
+        }
+        charCount++;
+        return fragment.charAt(pos++);
+    }
+
+    /** @return cantidad de filas (fragmentos) no vacías leídas hasta el momento */
+    public long getFragmentCount() {
+        return fragmentCount;
+    }
+
+    /** @return cantidad de caracteres entregados hasta el momento */
+    public long getCharCount() {
+        return charCount;
+    }
+
+    @Override
+    public void close() {
+        fragment = null;
+        exhausted = true;
+    }
+
+    private boolean ensureFragment() throws IOException {
+        while (fragment == null || pos >= fragment.length()) {
+            if (exhausted) {
+                return false;
+            }
+            try {
+                if (!rs.next()) {
+                    exhausted = true;
+                    fragment = null;
+                    return false;
+                }
+                String next = rs.getString(1);
+                if (next != null && !next.isEmpty()) {
+                    fragment = next;
+                    pos = 0;
+                    fragmentCount++;
+                }
+            } catch (SQLException e) {
+                throw new IOException("Error leyendo fragmento FOR JSON: " + e.getMessage(), e);
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,228 @@
+package ar.edu.ubp.das.ristorinoapi.components;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Proyección de campos ("sparse fieldset") compilada a partir de una expresión {@code fields=}, aplicable a un
+ * JSON en streaming: los tokens se copian de un {@link JsonParser} a un {@link JsonGenerator} salteando las
+ * propiedades excluidas, sin construir el árbol.
+ * <p>Sintaxis: nombres de propiedad separados por coma; los hijos de una propiedad se indican entre paréntesis
+ * o con punto. Por ejemplo {@code nombre,sucursales(nom_sucursal,contenidos(nro_contenido))} o, equivalente,
+ * {@code nombre,sucursales.nom_sucursal,sucursales.contenidos.nro_contenido}. Una propiedad sin hijos se incluye
+ * completa; {@code *} incluye todas las propiedades del nivel.</p>
+ * <p>Los arrays son transparentes: la proyección se aplica a cada elemento. Se conservan los objetos y arrays que
+ * quedan vacíos, de modo que la cantidad de elementos de cada array no cambia. Si se pide hijos de un valor
+ * escalar, el valor se incluye tal cual.</p>
+ * <p>No usa los {@code FilteringParserDelegate}/{@code TokenFilter} de Jackson: con inclusión de contenedores
+ * vacíos reinyectan tokens ya emitidos (el cierre de objeto consulta {@code includeEmptyArray}).</p>
+ * <p>Inmutable y thread-safe: una misma instancia compilada se reutiliza entre requests (ver
+ * {@link JsonProjections}).</p>
+ */
+public final class JsonProjection {
+
+    private static final int MAX_DEPTH = 32;
+
+    private final String expression;
+    private final Node root;
+
+    private JsonProjection(String expression, Node root) {
+        this.expression = expression;
+        this.root = root;
+    }
+
+    /**
+     * Compila la expresión.
+     * @throws IllegalArgumentException si la expresión está vacía o mal formada
+     */
+    public static JsonProjection compile(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("La expresión fields no puede estar vacía");
+        }
+        Parser parser = new Parser(expression);
+        Node root = parser.parseList(0);
+        if (parser.pos < expression.length()) {
+            throw parser.error("carácter inesperado '" + expression.charAt(parser.pos) + "'");
+        }
+        return new JsonProjection(expression, root);
+    }
+
+    /** @return la expresión original */
+    public String expression() {
+        return expression;
+    }
+
+    /**
+     * Copia el próximo valor de {@code parser} (o todo el documento si aún no se leyó ningún token) en
+     * {@code generator}, incluyendo sólo las propiedades de la proyección. No cierra ninguno de los dos.
+     */
+    public void copy(JsonParser parser, JsonGenerator generator) throws IOException {
+        if (parser.currentToken() == null && parser.nextToken() == null) {
+            return;
+        }
+        copyValue(root, parser, generator);
+    }
+
+    /** Copia el valor actual del parser (ya posicionado en su primer token). */
+    private static void copyValue(Node node, JsonParser parser, JsonGenerator generator) throws IOException {
+        if (node == Node.ALL) {
+            generator.copyCurrentStructure(parser);
+            return;
+        }
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            generator.writeStartObject();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                Node child = node.child(name);
+                parser.nextToken();
+                if (child == null) {
+                    parser.skipChildren();
+                } else {
+                    generator.writeFieldName(name);
+                    copyValue(child, parser, generator);
+                }
+            }
+            generator.writeEndObject();
+        } else if (token == JsonToken.START_ARRAY) {
+            generator.writeStartArray();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                copyValue(node, parser, generator);
+            }
+            generator.writeEndArray();
+        } else {
+            generator.copyCurrentEvent(parser);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    /** Nivel del árbol de proyección; {@link #ALL} representa una hoja (incluir el valor completo). */
+    private static final class Node {
+        static final Node ALL = new Node(Map.of(), true);
+
+        private final Map<String, Node> children;
+        private final boolean all; // '*': el resto de las propiedades del nivel se incluyen completas
+
+        private Node(Map<String, Node> children, boolean all) {
+            this.children = Collections.unmodifiableMap(children);
+            this.all = all;
+        }
+
+        Node child(String name) {
+            Node child = children.get(name);
+            return child == null && all ? ALL : child;
+        }
+
+        @Override
+        public String toString() {
+            return this == ALL ? "ALL" : all ? "*" + children : children.toString();
+        }
+    }
+
+    /** Parser recursivo descendente de la expresión. */
+    private static final class Parser {
+        private final String text;
+        private int pos;
+
+        private Parser(String text) {
+            this.text = text;
+        }
+
+        /** lista := item (',' item)* ; termina en ')' o al final */
+        private Node parseList(int depth) {
+            if (depth > MAX_DEPTH) {
+                throw error("anidamiento mayor a " + MAX_DEPTH + " niveles");
+            }
+            Map<String, Node> children = new LinkedHashMap<>();
+            boolean all = false;
+            do {
+                skipSpaces();
+                if (peek() == '*') {
+                    pos++;
+                    all = true;
+                } else {
+                    parseItem(children, depth);
+                }
+                skipSpaces();
+            } while (accept(','));
+            return new Node(children, all);
+        }
+
+        /** item := nombre ('.' item | '(' lista ')')? */
+        private void parseItem(Map<String, Node> into, int depth) {
+            if (depth > MAX_DEPTH) {
+                throw error("anidamiento mayor a " + MAX_DEPTH + " niveles");
+            }
+            String name = parseName();
+            skipSpaces();
+            Node child;
+            if (accept('.')) {
+                Map<String, Node> nested = new LinkedHashMap<>();
+                parseItem(nested, depth + 1);
+                child = new Node(nested, false);
+            } else if (accept('(')) {
+                child = parseList(depth + 1);
+                skipSpaces();
+                if (!accept(')')) {
+                    throw error("falta ')'");
+                }
+            } else {
+                child = Node.ALL;
+            }
+            into.merge(name, child, Parser::merge);
+        }
+
+        private String parseName() {
+            int start = pos;
+            while (pos < text.length() && (Character.isLetterOrDigit(text.charAt(pos)) || text.charAt(pos) == '_')) {
+                pos++;
+            }
+            if (start == pos) {
+                throw error("se esperaba un nombre de campo");
+            }
+            return text.substring(start, pos);
+        }
+
+        /** Une dos menciones de la misma propiedad: si alguna la incluye completa, gana la inclusión completa. */
+        private static Node merge(Node a, Node b) {
+            if (a == Node.ALL || b == Node.ALL) {
+                return Node.ALL;
+            }
+            Map<String, Node> merged = new LinkedHashMap<>(a.children);
+            b.children.forEach((k, v) -> merged.merge(k, v, Parser::merge));
+            return new Node(merged, a.all || b.all);
+        }
+
+        private char peek() {
+            return pos < text.length() ? text.charAt(pos) : '\0';
+        }
+
+        private boolean accept(char c) {
+            if (peek() == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipSpaces() {
+            while (pos < text.length() && text.charAt(pos) == ' ') {
+                pos++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Expresión fields inválida en la posición " + pos + ": " + message);
+        }
+    }
+}
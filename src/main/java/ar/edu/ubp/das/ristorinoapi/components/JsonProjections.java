@@ -0,0 +1,41 @@
+package ar.edu.ubp.das.ristorinoapi.components;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache de proyecciones {@code fields=} compiladas: cada expresión distinta se parsea una sola vez y la
+ * {@link JsonProjection} resultante (inmutable) se comparte entre requests.
+ * <p>Acotado por cantidad de expresiones ({@code ristorino.projections.cache.max-entries}) y por el largo total
+ * de las expresiones guardadas ({@code ristorino.projections.cache.max-chars}), para que clientes que envían
+ * expresiones arbitrarias no hagan crecer el cache sin límite. Las expresiones inválidas no se cachean.</p>
+ */
+@Component
+public class JsonProjections {
+
+    @Value("${ristorino.projections.cache.max-entries:256}")
+    private int maxEntries;
+    @Value("${ristorino.projections.cache.max-chars:65536}")
+    private long maxChars;
+
+    private BoundedCache<String, JsonProjection> cache;
+
+    @PostConstruct
+    void init() {
+        cache = new BoundedCache<>(null, maxEntries, maxChars, p -> p.expression().length());
+    }
+
+    /**
+     * @return la proyección compilada de la expresión
+     * @throws IllegalArgumentException si la expresión está mal formada
+     */
+    public JsonProjection compile(String expression) {
+        return cache.get(expression, JsonProjection::compile);
+    }
+
+    /** @return estadísticas del cache de expresiones */
+    public BoundedCache.Stats stats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,64 @@
+package ar.edu.ubp.das.ristorinoapi.components;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+/**
+ * Firma tokens JWT HS256 (header fijo {"alg":"HS256","typ":"JWT"}) con un secreto compartido.
+ * Extraído de {@link ar.edu.ubp.das.ristorinoapi.services.ClickNotificationService} para poder medirlo
+ * y reutilizarlo.
+ * <p>El header en base64url y la clave se calculan una sola vez; cada hilo reutiliza su propia instancia
+ * de {@link Mac} (no es thread-safe), así que firmar no busca el proveedor ni inicializa la clave de nuevo.</p>
+ */
+public class JwtSigner {
+
+    private static final String HEADER_JSON = "{\"alg\":\"HS256\",\"typ\":\"JWT\"}";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final String headerPrefix;
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> mac;
+
+    /**
+     * @param secret secreto compartido con la API del restaurante
+     */
+    public JwtSigner(String secret) {
+        this.headerPrefix = base64Url(HEADER_JSON.getBytes(StandardCharsets.UTF_8)) + ".";
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.mac = ThreadLocal.withInitial(this::newMac);
+        newMac(); // valida algoritmo y clave al construir, no en la primera firma
+    }
+
+    /**
+     * Genera un token firmado con el payload indicado.
+     * @param payloadJson claims del token en JSON
+     * @return token JWT listo para usar en Authorization Bearer
+     */
+    public String sign(String payloadJson) {
+        String toSign = headerPrefix + base64Url(payloadJson.getBytes(StandardCharsets.UTF_8));
+        // doFinal deja el Mac listo para la siguiente firma con la misma clave
+        byte[] raw = mac.get().doFinal(toSign.getBytes(StandardCharsets.US_ASCII));
+        return toSign + "." + base64Url(raw);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac m = Mac.getInstance(ALGORITHM);
+            m.init(key);
+            return m;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo generar firma JWT", e);
+        }
+    }
+
+    /**
+     * Codifica bytes en base64url sin padding.
+     */
+    private static String base64Url(byte[] bytes) {
+        return BASE64_URL.encodeToString(bytes);
+    }
+}
@@ -0,0 +1,143 @@
+package ar.edu.ubp.das.ristorinoapi.components;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Provee el token JWT con el que {@link ar.edu.ubp.das.ristorinoapi.services.ClickNotificationService}
+ * se autentica ante la API del restaurante.
+ * <p>El token vigente es un valor inmutable en un {@link AtomicReference}: leerlo no toma locks. Un hilo de
+ * fondo lo renueva {@code ristorino.notification.jwt-refresh-ahead-seconds} antes de que expire, fuera del
+ * camino de los envíos. Sólo si el token ya expiró (p.ej. el hilo de renovación no pudo correr) el hilo que
+ * lo pide firma uno nuevo y lo publica con compareAndSet.</p>
+ * <p>Métrica {@code ristorino.jwt.refresh} por {@code trigger}: scheduled o inline.</p>
+ */
+@Component
+public class JwtTokenProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtTokenProvider.class);
+
+    /** Espera antes de reintentar una renovación fallida. */
+    private static final long RETRY_SECONDS = 5;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ristorino.notification.jwt-secret}")
+    private String jwtSecret;
+    @Value("${ristorino.notification.jwt-ttl-seconds:300}")
+    private long tokenTtlSeconds;
+    // Anticipación con la que se renueva el token antes de su expiración
+    @Value("${ristorino.notification.jwt-refresh-ahead-seconds:30}")
+    private long refreshAheadSeconds;
+
+    // Reloj en segundos epoch; los tests lo reemplazan para no depender del paso del tiempo
+    private LongSupplier epochSeconds = () -> Instant.now().getEpochSecond();
+
+    private final AtomicReference<Token> current = new AtomicReference<>();
+    private JwtSigner signer;
+    private ScheduledExecutorService refresher;
+    private Counter scheduledRefreshes;
+    private Counter inlineRefreshes;
+
+    @PostConstruct
+    void start() {
+        signer = new JwtSigner(jwtSecret);
+        scheduledRefreshes = refreshCounter("scheduled");
+        inlineRefreshes = refreshCounter("inline");
+        current.set(issue());
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "jwt-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduleRefresh(current.get());
+    }
+
+    @PreDestroy
+    void stop() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * @return token vigente, listo para usar en Authorization Bearer
+     */
+    public String getToken() {
+        Token token = current.get();
+        long now = epochSeconds.getAsLong();
+        if (now < token.expEpochSeconds()) {
+            return token.value();
+        }
+        // Expirado: renovación en línea. Si otro hilo ya publicó uno nuevo, se usa ése.
+        Token fresh = issue();
+        if (current.compareAndSet(token, fresh)) {
+            inlineRefreshes.increment();
+            return fresh.value();
+        }
+        return current.get().value();
+    }
+
+    /**
+     * Firma y publica un token nuevo (la renovación en segundo plano). Visible para tests.
+     * @return el token publicado
+     */
+    Token refresh() {
+        Token fresh = issue();
+        current.set(fresh);
+        scheduledRefreshes.increment();
+        return fresh;
+    }
+
+    private void scheduleRefresh(Token token) {
+        long delay = Math.max(1, token.refreshAtEpochSeconds() - epochSeconds.getAsLong());
+        refresher.schedule(this::refreshAndReschedule, delay, TimeUnit.SECONDS);
+    }
+
+    private void refreshAndReschedule() {
+        try {
+            scheduleRefresh(refresh());
+        } catch (Exception e) {
+            log.error("No se pudo renovar el token JWT, se reintenta en {} s: {}", RETRY_SECONDS, e.getMessage());
+            refresher.schedule(this::refreshAndReschedule, RETRY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private Token issue() {
+        long now = epochSeconds.getAsLong();
+        long exp = now + tokenTtlSeconds;
+        String payloadJson = "{\"registrador\":\"ristorino\",\"iat\":" + now + ",\"exp\":" + exp + "}";
+        // margen de seguridad: se deja de usar 5 s antes de expirar
+        long usableUntil = exp - Math.min(5, tokenTtlSeconds / 2);
+        long refreshAt = Math.max(now + 1, usableUntil - refreshAheadSeconds);
+        return new Token(signer.sign(payloadJson), usableUntil, refreshAt);
+    }
+
+    private Counter refreshCounter(String trigger) {
+        return Counter.builder("ristorino.jwt.refresh")
+                .description("Renovaciones del token JWT de notificación")
+                .tag("trigger", trigger)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Token firmado inmutable.
+     * @param value JWT
+     * @param expEpochSeconds hasta cuándo se usa (antes de la expiración real, con margen)
+     * @param refreshAtEpochSeconds cuándo se renueva en segundo plano
+     */
+    record Token(String value, long expEpochSeconds, long refreshAtEpochSeconds) {}
+}
@@ -0,0 +1,144 @@
+package ar.edu.ubp.das.ristorinoapi.components;
+
+import ar.edu.ubp.das.ristorinoapi.beans.PendingClick;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.function.Consumer;
+
+/**
+ * Parser en streaming (Jackson core) del JSON de dbo.usp_get_clicks_no_notificados a {@link PendingClick}.
+ * <p>Cada elemento trae { click: {...}, contenido: {...} } donde, por FOR JSON anidado, 'click' y 'contenido'
+ * pueden venir como objetos o como strings con JSON embebido. Ambas formas se leen en una sola pasada,
+ * token a token, sin construir mapas intermedios: los strings embebidos se parsean directamente sobre el
+ * buffer de caracteres del parser principal. También se aceptan las claves ya aplanadas en el propio elemento.</p>
+ */
+@Component
+public class PendingClickParser {
+
+    private static final Logger log = LoggerFactory.getLogger(PendingClickParser.class);
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    /**
+     * Parsea un arreglo JSON de clicks pendientes entregando cada uno al consumidor a medida que se lee.
+     * @return cantidad de clicks entregados
+     * @throws IOException si el JSON es inválido o falla la lectura
+     */
+    public int parse(Reader json, Consumer<PendingClick> sink) throws IOException {
+        int count = 0;
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            JsonToken first = parser.nextToken();
+            if (first == null) {
+                return 0;
+            }
+            if (first != JsonToken.START_ARRAY) {
+                throw new IOException("Se esperaba un arreglo JSON de clicks");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                sink.accept(readEntry(parser));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private PendingClick readEntry(JsonParser parser) throws IOException {
+        Fields f = new Fields();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("click".equals(name) || "contenido".equals(name)) {
+                if (value == JsonToken.START_OBJECT) {
+                    readFields(parser, f);
+                } else if (value == JsonToken.VALUE_STRING) {
+                    readEmbedded(parser, f);
+                } else {
+                    parser.skipChildren();
+                }
+            } else {
+                readField(name, parser, f);
+            }
+        }
+        return new PendingClick(f.nroRestaurante, f.nroIdioma, f.nroContenido, f.nroClick, f.costoClick,
+                f.codContenidoRestaurante);
+    }
+
+    /**
+     * Parsea el objeto JSON contenido en el string actual, sin copiarlo a un String.
+     * Un string embebido inválido se registra y se ignora, como un campo ausente.
+     */
+    private void readEmbedded(JsonParser parser, Fields f) throws IOException {
+        int len = parser.getTextLength();
+        if (len == 0) {
+            return;
+        }
+        try (JsonParser nested = jsonFactory.createParser(parser.getTextCharacters(), parser.getTextOffset(), len)) {
+            if (nested.nextToken() == JsonToken.START_OBJECT) {
+                readFields(nested, f);
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("No se pudo parsear '{}' embebido: {}", parser.currentName(), e.getOriginalMessage());
+        }
+    }
+
+    private void readFields(JsonParser parser, Fields f) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            readField(name, parser, f);
+        }
+    }
+
+    private void readField(String name, JsonParser parser, Fields f) throws IOException {
+        switch (name) {
+            case "nro_restaurante" -> f.nroRestaurante = intValue(parser);
+            case "nro_idioma" -> f.nroIdioma = intValue(parser);
+            case "nro_contenido" -> f.nroContenido = intValue(parser);
+            case "nro_click" -> f.nroClick = intValue(parser);
+            case "costo_click", "costoClick" -> f.costoClick = doubleValue(parser);
+            case "cod_contenido_restaurante", "codContenidoRestaurante" ->
+                    f.codContenidoRestaurante = parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+            default -> parser.skipChildren();
+        }
+    }
+
+    private static int intValue(JsonParser parser) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getValueAsInt();
+            case VALUE_STRING -> parser.getValueAsInt(0);
+            default -> {
+                parser.skipChildren();
+                yield 0;
+            }
+        };
+    }
+
+    private static double doubleValue(JsonParser parser) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getDoubleValue();
+            case VALUE_STRING -> parser.getValueAsDouble(0.0);
+            default -> {
+                parser.skipChildren();
+                yield 0.0;
+            }
+        };
+    }
+
+    /** Acumulador mutable de los campos de un elemento mientras se recorre. */
+    private static final class Fields {
+        int nroRestaurante;
+        int nroIdioma;
+        int nroContenido;
+        int nroClick;
+        double costoClick;
+        String codContenidoRestaurante;
+    }
+}
@@ -0,0 +1,165 @@
+package ar.edu.ubp.das.ristorinoapi.components;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cache de promociones por (nroRestaurante, soloVigentes, nroSucursal, modo de imágenes) usado por
+ * {@link ar.edu.ubp.das.ristorinoapi.repositories.PromotionRepository}.
+ * <p>Evita ejecutar {@code dbo.usp_get_promociones_restaurante} y re-parsear su JSON en cada request cuando
+ * el frontend consulta repetidamente los mismos restaurantes.</p>
+ * <p>Cada entrada es un {@link PromotionSnapshot}: junto con el objeto se guardan su JSON ya serializado,
+ * la variante gzip y sus ETags. El presupuesto de memoria ({@code max-bytes}) se mide en bytes según
+ * {@link PromotionSnapshot#sizeInBytes()}, de modo que restaurantes con muchas promociones o imágenes
+ * embebidas grandes consumen más presupuesto.</p>
+ * <p>Configuración (application.properties):
+ * <pre>ristorino.promotions.cache.enabled=true
+ * ristorino.promotions.cache.ttl-seconds=30
+ * ristorino.promotions.cache.max-entries=500
+ * ristorino.promotions.cache.max-bytes=67108864</pre></p>
+ * <p>Los objetos devueltos se comparten entre requests: no deben modificarse.</p>
+ */
+@Component
+public class PromotionCache {
+
+    private static final Logger log = LoggerFactory.getLogger(PromotionCache.class);
+
+    @Value("${ristorino.promotions.cache.enabled:true}")
+    private boolean enabled;
+    @Value("${ristorino.promotions.cache.ttl-seconds:30}")
+    private long ttlSeconds;
+    @Value("${ristorino.promotions.cache.max-entries:500}")
+    private int maxEntries;
+    @Value("${ristorino.promotions.cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    private BoundedCache<Key, PromotionSnapshot> cache;
+
+    // Métricas a nivel de bytes: JSON servido desde el cache vs. cargado, y bytes enviados por variante
+    private final LongAdder hitBytes = new LongAdder();
+    private final LongAdder missBytes = new LongAdder();
+    private final LongAdder identityBytesSent = new LongAdder();
+    private final LongAdder gzipBytesSent = new LongAdder();
+    private final LongAdder gzipBytesSaved = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        cache = new BoundedCache<>(Duration.ofSeconds(ttlSeconds), maxEntries, maxBytes, PromotionSnapshot::sizeInBytes);
+        log.info("Cache de promociones {} (ttl={}s, maxEntries={}, maxBytes={})",
+                enabled ? "habilitado" : "deshabilitado", ttlSeconds, maxEntries, maxBytes);
+    }
+
+    /**
+     * Devuelve las promociones cacheadas o las obtiene con {@code loader} si no están o expiraron.
+     * Con el cache deshabilitado delega siempre en el loader.
+     */
+    public PromotionSnapshot get(Integer nroRestaurante, Boolean soloVigentes, Integer nroSucursal,
+                                 Supplier<PromotionSnapshot> loader) {
+        return get(nroRestaurante, soloVigentes, nroSucursal, false, loader);
+    }
+
+    /**
+     * Igual que {@link #get(Integer, Boolean, Integer, Supplier)} para una variante de imágenes en particular.
+     * @param imageUrls true para la variante con las imágenes embebidas reemplazadas por URLs (ver {@link PromotionImages})
+     */
+    public PromotionSnapshot get(Integer nroRestaurante, Boolean soloVigentes, Integer nroSucursal, boolean imageUrls,
+                                 Supplier<PromotionSnapshot> loader) {
+        if (!enabled) {
+            PromotionSnapshot loaded = loader.get();
+            missBytes.add(loaded.json().length);
+            return loaded;
+        }
+        boolean[] loaded = new boolean[1];
+        PromotionSnapshot snapshot = cache.get(Key.of(nroRestaurante, soloVigentes, nroSucursal, imageUrls), k -> {
+            loaded[0] = true;
+            return loader.get();
+        });
+        (loaded[0] ? missBytes : hitBytes).add(snapshot.json().length);
+        return snapshot;
+    }
+
+    /**
+     * Registra los bytes efectivamente enviados al cliente para una respuesta completa (no 304).
+     * @param gzip true si se envió la variante gzip
+     */
+    public void recordSent(PromotionSnapshot snapshot, boolean gzip) {
+        if (gzip) {
+            gzipBytesSent.add(snapshot.gzip().length);
+            gzipBytesSaved.add(snapshot.json().length - snapshot.gzip().length);
+        } else {
+            identityBytesSent.add(snapshot.json().length);
+        }
+    }
+
+    /**
+     * Invalida todas las variantes (vigencia/sucursal/imágenes) cacheadas de un restaurante.
+     * @return cantidad de entradas eliminadas
+     */
+    public int invalidateRestaurant(Integer nroRestaurante) {
+        int removed = cache.invalidateIf(k -> Objects.equals(k.nroRestaurante(), nroRestaurante));
+        log.info("Cache de promociones invalidado para restaurante {} ({} entradas)", nroRestaurante, removed);
+        return removed;
+    }
+
+    /** Vacía el cache de promociones completo. */
+    public void invalidateAll() {
+        cache.invalidateAll();
+        log.info("Cache de promociones vaciado");
+    }
+
+    /** @return estadísticas de hits/misses, desalojos y ocupación */
+    public BoundedCache.Stats stats() {
+        return cache.stats();
+    }
+
+    /** @return métricas de bytes del cache y de las respuestas enviadas */
+    public ByteStats byteStats() {
+        return new ByteStats(hitBytes.sum(), missBytes.sum(), identityBytesSent.sum(), gzipBytesSent.sum(),
+                gzipBytesSaved.sum(), maxBytes);
+    }
+
+    /** @return true si el cache está habilitado por configuración */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Métricas a nivel de bytes.
+     * @param hitBytes bytes JSON servidos desde entradas cacheadas
+     * @param missBytes bytes JSON que hubo que cargar desde la base
+     * @param identityBytesSent bytes enviados sin comprimir
+     * @param gzipBytesSent bytes enviados con gzip
+     * @param gzipBytesSaved bytes ahorrados al enviar la variante gzip
+     * @param maxBytes presupuesto de memoria configurado
+     */
+    public record ByteStats(long hitBytes, long missBytes, long identityBytesSent, long gzipBytesSent,
+                            long gzipBytesSaved, long maxBytes) {
+        @JsonProperty("byteHitRate")
+        public double byteHitRate() {
+            long total = hitBytes + missBytes;
+            return total == 0 ? 0.0 : (double) hitBytes / total;
+        }
+    }
+
+    /**
+     * Clave del cache. {@code soloVigentes} null se normaliza a false, igual que al invocar el SP.
+     */
+    public record Key(Integer nroRestaurante, boolean soloVigentes, Integer nroSucursal, boolean imageUrls) {
+        public static Key of(Integer nroRestaurante, Boolean soloVigentes, Integer nroSucursal) {
+            return of(nroRestaurante, soloVigentes, nroSucursal, false);
+        }
+
+        public static Key of(Integer nroRestaurante, Boolean soloVigentes, Integer nroSucursal, boolean imageUrls) {
+            return new Key(nroRestaurante, Boolean.TRUE.equals(soloVigentes), nroSucursal, imageUrls);
+        }
+    }
+}
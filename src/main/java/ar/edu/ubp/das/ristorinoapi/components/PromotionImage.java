@@ -0,0 +1,122 @@
+package ar.edu.ubp.das.ristorinoapi.components;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Imagen promocional embebida en base64 ({@code PromotionContent.imagen_promocional}), ya decodificada para
+ * servirla aparte de las promociones (ver {@link PromotionImages}).
+ * <p>El identificador es el SHA-256 del texto base64 original: dos contenidos con la misma imagen comparten
+ * identificador, y una imagen distinta genera siempre una URL distinta, por lo que el cliente puede cachearla
+ * como inmutable.</p>
+ * <p>Se comparte entre requests: el arreglo no debe modificarse.</p>
+ * @param id identificador (SHA-256 en base64url, sin comillas)
+ * @param data bytes de la imagen
+ * @param contentType tipo de contenido (del data URI o detectado por la firma del archivo)
+ */
+public record PromotionImage(String id, byte[] data, String contentType) {
+
+    /** Un valor base64 "pelado" más corto que esto se considera una ruta o URL, no una imagen embebida. */
+    private static final int MIN_BARE_BASE64_CHARS = 64;
+
+    /** @return ETag fuerte de la imagen */
+    public String etag() {
+        return '"' + id + '"';
+    }
+
+    /** @return bytes ocupados por la entrada en el cache */
+    public long sizeInBytes() {
+        return data.length;
+    }
+
+    /**
+     * Indica, sin decodificar, si el valor puede ser una imagen embebida: un data URI en base64 o un texto
+     * base64 suficientemente largo. Las rutas y URLs ({@code /assets/x.jpg}, {@code https://...}) quedan afuera.
+     */
+    public static boolean isInline(String value) {
+        if (value == null) {
+            return false;
+        }
+        if (value.startsWith("data:")) {
+            int comma = value.indexOf(',');
+            return comma > 0 && value.substring(0, comma).endsWith(";base64");
+        }
+        if (value.length() < MIN_BARE_BASE64_CHARS) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!(Character.isLetterOrDigit(c) || c == '+' || c == '/' || c == '=' || Character.isWhitespace(c))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** @return identificador de un valor embebido (ver {@link #isInline}) */
+    public static String idOf(String inline) {
+        String etag = ETags.of(inline.getBytes(StandardCharsets.UTF_8));
+        return etag.substring(1, etag.length() - 1);
+    }
+
+    /**
+     * Decodifica un valor embebido.
+     * @return la imagen, o null si el valor no es base64 válido, el data URI no es de tipo {@code image/*} o
+     *         (sin data URI) no tiene la firma de un formato de imagen conocido
+     */
+    public static PromotionImage decode(String inline) {
+        if (!isInline(inline)) {
+            return null;
+        }
+        String contentType = null;
+        String payload = inline;
+        if (inline.startsWith("data:")) {
+            int comma = inline.indexOf(',');
+            contentType = inline.substring(5, comma - ";base64".length()).trim();
+            payload = inline.substring(comma + 1);
+        }
+        byte[] data;
+        try {
+            data = Base64.getDecoder().decode(payload.replaceAll("\\s", ""));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (contentType == null || contentType.isEmpty()) {
+            contentType = sniff(data);
+        }
+        // Sólo imágenes: otro tipo (p.ej. text/html) no debe servirse desde el dominio de la API
+        if (contentType == null || !contentType.toLowerCase().startsWith("image/")) {
+            return null;
+        }
+        return new PromotionImage(idOf(inline), data, contentType);
+    }
+
+    /** @return el tipo de imagen según los primeros bytes, o null si no se reconoce */
+    static String sniff(byte[] d) {
+        if (startsWith(d, 0, 0x89, 'P', 'N', 'G')) {
+            return "image/png";
+        }
+        if (startsWith(d, 0, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(d, 0, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (startsWith(d, 0, 'R', 'I', 'F', 'F') && startsWith(d, 8, 'W', 'E', 'B', 'P')) {
+            return "image/webp";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] data, int offset, int... signature) {
+        if (data.length < offset + signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((data[offset + i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
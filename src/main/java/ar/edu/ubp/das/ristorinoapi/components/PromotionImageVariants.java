@@ -0,0 +1,316 @@
+package ar.edu.ubp.das.ristorinoapi.components;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Variantes reducidas de las imágenes promocionales ({@code ?w=} en el endpoint de imágenes), para que los
+ * listados descarguen miniaturas en lugar de la imagen completa.
+ * <p>El ancho pedido se ajusta al menor de los anchos configurados ({@code widths}) que lo cubre; si supera a
+ * todos, o la imagen original ya es más angosta, se sirve la original. Cada variante se genera con ImageIO la
+ * primera vez que se pide, en un pool acotado ({@code threads} hilos y una cola de {@code queue} tareas), y se
+ * guarda en un cache en disco LRU ({@link DiskLruCache}, {@code max-bytes}) con clave
+ * {@code <id de la imagen>-w<ancho>}: como el id es el hash del contenido, una variante nunca queda
+ * desactualizada. Los pedidos concurrentes de una misma variante esperan la misma generación.</p>
+ * <p>Si el pool está saturado o la generación tarda más de {@code wait-ms}, el pedido recibe la imagen original
+ * (marcada como no cacheable) y la variante queda disponible para los pedidos siguientes.</p>
+ * <p>Las imágenes con transparencia se generan en PNG; el resto en JPEG con calidad {@code jpeg-quality}.
+ * Si la variante no resulta más chica que la original (p.ej. un JPEG pequeño y bien comprimido, o una imagen con
+ * transparencia recodificada en PNG) se sirve la original, y la decisión se guarda en disco con una entrada vacía
+ * bajo la clave de la variante para no volver a generarla.</p>
+ * <p>Antes de decodificar se leen las dimensiones del encabezado: una imagen de más de {@code max-pixels}
+ * píxeles ocuparía demasiada memoria al decodificarla (4 bytes por píxel), así que se sirve la original.</p>
+ * <p>Configuración (application.properties):
+ * <pre>ristorino.images.variants.enabled=true
+ * ristorino.images.variants.widths=160,320,640
+ * ristorino.images.variants.dir=data/image-variants
+ * ristorino.images.variants.max-bytes=268435456
+ * ristorino.images.variants.threads=2
+ * ristorino.images.variants.queue=64
+ * ristorino.images.variants.wait-ms=2000
+ * ristorino.images.variants.jpeg-quality=0.85
+ * ristorino.images.variants.max-pixels=16777216</pre></p>
+ */
+@Component
+public class PromotionImageVariants {
+
+    private static final Logger log = LoggerFactory.getLogger(PromotionImageVariants.class);
+
+    // Entrada en disco de una variante que no ahorra bytes: se sirve la original
+    private static final byte[] NOT_SMALLER = new byte[0];
+
+    @Value("${ristorino.images.variants.enabled:true}")
+    private boolean enabled;
+    @Value("${ristorino.images.variants.widths:160,320,640}")
+    private int[] widths;
+    @Value("${ristorino.images.variants.dir:data/image-variants}")
+    private String dir;
+    @Value("${ristorino.images.variants.max-bytes:268435456}")
+    private long maxBytes;
+    @Value("${ristorino.images.variants.threads:2}")
+    private int threads;
+    @Value("${ristorino.images.variants.queue:64}")
+    private int queue;
+    @Value("${ristorino.images.variants.wait-ms:2000}")
+    private long waitMs;
+    @Value("${ristorino.images.variants.jpeg-quality:0.85}")
+    private float jpegQuality;
+    @Value("${ristorino.images.variants.max-pixels:16777216}")
+    private long maxPixels;
+
+    private DiskLruCache disk;
+    private ThreadPoolExecutor executor;
+    private final ConcurrentHashMap<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder originals = new LongAdder();
+    private final LongAdder tooLarge = new LongAdder();
+    private final LongAdder notSmaller = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        widths = Arrays.stream(widths).filter(w -> w > 0).sorted().distinct().toArray();
+        // Sin cache en disco de ImageIO: las imágenes se leen de memoria
+        ImageIO.setUseCache(false);
+        disk = new DiskLruCache(Path.of(dir), maxBytes);
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, "image-variants-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queue)), factory, new ThreadPoolExecutor.AbortPolicy());
+        log.info("Variantes de imágenes {} en {} ({} variantes en disco)", Arrays.toString(widths),
+                Path.of(dir).toAbsolutePath(), disk.stats().entries());
+    }
+
+    @PreDestroy
+    void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @param requested ancho pedido (positivo)
+     * @return el menor ancho configurado mayor o igual al pedido, o null si no hay (se sirve la original)
+     */
+    public Integer snapWidth(int requested) {
+        if (!enabled) {
+            return null;
+        }
+        for (int width : widths) {
+            if (width >= requested) {
+                return width;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Devuelve la variante de la imagen con el ancho indicado, generándola si no está en disco.
+     * @param width uno de los anchos configurados (ver {@link #snapWidth})
+     * @return la variante; la misma {@code original} si es más angosta que {@code width}, su formato no se puede
+     *         leer, supera {@code max-pixels}, la variante no es más chica o falló la generación; o null si la variante no está lista todavía (pool saturado o demora
+     *         mayor a {@code wait-ms}) y debe servirse la original sin cachear
+     */
+    public PromotionImage variant(PromotionImage original, int width) {
+        String key = original.id() + "-w" + width;
+        byte[] cached = disk.get(key);
+        if (cached != null) {
+            return variantImage(key, cached, original);
+        }
+        int[] size = readSize(original.data());
+        if (size == null || size[0] <= width) {
+            originals.increment();
+            return original;
+        }
+        if ((long) size[0] * size[1] > maxPixels) {
+            tooLarge.increment();
+            return original;
+        }
+        CompletableFuture<byte[]> created = new CompletableFuture<>();
+        CompletableFuture<byte[]> future = inFlight.putIfAbsent(key, created);
+        if (future == null) {
+            future = created;
+            try {
+                executor.execute(() -> generate(key, original, width, created));
+            } catch (RejectedExecutionException e) {
+                inFlight.remove(key, created);
+                created.completeExceptionally(e);
+            }
+        }
+        try {
+            return variantImage(key, future.get(waitMs, TimeUnit.MILLISECONDS), original);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                rejected.increment();
+                return null;
+            }
+            log.warn("No se pudo generar la variante {} de la imagen {}: {}", width, original.id(), e.getCause().toString());
+            return original;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /** @return contadores de generación y estadísticas del cache en disco */
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("habilitado", enabled);
+        out.put("anchos", widths);
+        out.put("generadas", generated.sum());
+        out.put("originales", originals.sum());
+        out.put("excedenMaxPixeles", tooLarge.sum());
+        out.put("noMasChicas", notSmaller.sum());
+        out.put("rechazadasPorSaturacion", rejected.sum());
+        out.put("demoradas", timeouts.sum());
+        out.put("fallidas", failures.sum());
+        out.put("bytesAhorradosPorVariante", bytesSaved.sum());
+        out.put("enCola", executor == null ? 0 : executor.getQueue().size());
+        out.put("disco", disk == null ? null : disk.stats());
+        return out;
+    }
+
+    private void generate(String key, PromotionImage original, int width, CompletableFuture<byte[]> result) {
+        try {
+            byte[] data = resize(original.data(), width, jpegQuality);
+            if (data.length >= original.data().length) {
+                data = NOT_SMALLER;
+                notSmaller.increment();
+            } else {
+                generated.increment();
+                bytesSaved.add(original.data().length - data.length);
+            }
+            disk.put(key, data);
+            result.complete(data);
+        } catch (IOException | RuntimeException e) {
+            failures.increment();
+            result.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, result);
+        }
+    }
+
+    private static PromotionImage variantImage(String key, byte[] data, PromotionImage original) {
+        if (data.length == 0) {
+            return original;
+        }
+        String contentType = PromotionImage.sniff(data);
+        return new PromotionImage(key, data, contentType == null ? "application/octet-stream" : contentType);
+    }
+
+    /**
+     * @return {ancho, alto} de la imagen leyendo sólo su encabezado, o null si ImageIO no reconoce el formato
+     */
+    static int[] readSize(byte[] data) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                return new int[]{reader.getWidth(0), reader.getHeight(0)};
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reduce la imagen al ancho indicado manteniendo la proporción. Se reduce a la mitad en pasos sucesivos con
+     * interpolación bilineal: en un solo paso, una reducción grande pierde detalle y genera serrucho.
+     * @return la imagen en PNG (si tiene transparencia) o JPEG
+     */
+    static byte[] resize(byte[] source, int width, float jpegQuality) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(source));
+        if (image == null) {
+            throw new IOException("Formato de imagen no soportado");
+        }
+        int height = Math.max(1, Math.round((float) image.getHeight() * width / image.getWidth()));
+        boolean alpha = image.getColorModel().hasAlpha();
+        int w = image.getWidth();
+        int h = image.getHeight();
+        do {
+            w = Math.max(width, w / 2);
+            h = Math.max(height, h / 2);
+            BufferedImage step = new BufferedImage(w, h, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = step.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(image, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            image = step;
+        } while (w != width || h != height);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (alpha) {
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
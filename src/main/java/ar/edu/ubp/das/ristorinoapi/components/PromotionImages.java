@@ -0,0 +1,118 @@
+package ar.edu.ubp.das.ristorinoapi.components;
+
+import ar.edu.ubp.das.ristorinoapi.beans.PromotionContent;
+import ar.edu.ubp.das.ristorinoapi.beans.RestaurantResponse;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Imágenes promocionales servidas fuera de banda: en el modo {@code imagenes=url} de
+ * {@code GET /api/promotions/{nroRestaurante}} cada imagen embebida en base64 se reemplaza por la URL
+ * {@code /api/promotions/{nroRestaurante}/{nroIdioma}/{nroContenido}/imagen/{id}}, y los bytes decodificados
+ * se guardan en un cache acotado para que ese endpoint los sirva sin volver a decodificar.
+ * <p>Las imágenes se decodifican una sola vez, al armar la variante con URLs (que a su vez queda en
+ * {@link PromotionCache}). Si una imagen fue desalojada, el endpoint la vuelve a obtener de las promociones
+ * cacheadas del restaurante a partir del contenido indicado en la URL.</p>
+ * <p>Configuración (application.properties):
+ * <pre>ristorino.images.cache.max-entries=1000
+ * ristorino.images.cache.max-bytes=33554432
+ * ristorino.images.base-url=            # prefijo de las URLs (contexto del WAR, CDN); vacío = ruta relativa
+ * ristorino.images.cache-control=public, max-age=31536000, immutable</pre></p>
+ */
+@Component
+public class PromotionImages {
+
+    private static final Logger log = LoggerFactory.getLogger(PromotionImages.class);
+
+    @Value("${ristorino.images.cache.max-entries:1000}")
+    private int maxEntries;
+    @Value("${ristorino.images.cache.max-bytes:33554432}")
+    private long maxBytes;
+    @Value("${ristorino.images.base-url:}")
+    private String baseUrl;
+    @Value("${ristorino.images.cache-control:public, max-age=31536000, immutable}")
+    private String cacheControl;
+
+    private BoundedCache<String, PromotionImage> cache;
+
+    @PostConstruct
+    void init() {
+        cache = new BoundedCache<>(null, maxEntries, maxBytes, PromotionImage::sizeInBytes);
+        log.info("Cache de imágenes promocionales (maxEntries={}, maxBytes={})", maxEntries, maxBytes);
+    }
+
+    /**
+     * Copia las promociones reemplazando las imágenes embebidas por la URL del endpoint de imágenes.
+     * Los contenidos sin imagen embebida se comparten con el original, que no se modifica.
+     * @return la copia, o el mismo {@code response} si ningún contenido tiene imagen embebida
+     */
+    public RestaurantResponse withImageUrls(RestaurantResponse response) {
+        List<PromotionContent> contenidos = response.getContenidos();
+        if (contenidos == null
+                || contenidos.stream().noneMatch(c -> PromotionImage.isInline(c.getImagen_promocional()))) {
+            return response;
+        }
+        List<PromotionContent> replaced = new ArrayList<>(contenidos.size());
+        for (PromotionContent content : contenidos) {
+            String inline = content.getImagen_promocional();
+            PromotionImage image = PromotionImage.isInline(inline)
+                    ? cache.get(PromotionImage.idOf(inline), id -> PromotionImage.decode(inline))
+                    : null;
+            if (image == null) {
+                replaced.add(content);
+                continue;
+            }
+            PromotionContent copy = new PromotionContent(content);
+            copy.setImagen_promocional(url(response.getNro_restaurante(), content, image));
+            replaced.add(copy);
+        }
+        RestaurantResponse copy = new RestaurantResponse();
+        copy.setNro_restaurante(response.getNro_restaurante());
+        copy.setRazon_social(response.getRazon_social());
+        copy.setContenidos(replaced);
+        return copy;
+    }
+
+    /**
+     * Devuelve la imagen cacheada o, si no está, la decodifica del valor embebido que entrega {@code inlineSource}.
+     * @param id identificador de la URL
+     * @param inlineSource valor actual de {@code imagen_promocional} del contenido (null si no existe)
+     * @return la imagen, o null si el contenido no existe o su imagen ya no es la del identificador
+     */
+    public PromotionImage get(String id, Supplier<String> inlineSource) {
+        return cache.get(id, k -> {
+            String inline = inlineSource.get();
+            // La imagen del contenido cambió: la URL vieja deja de ser válida
+            return PromotionImage.isInline(inline) && PromotionImage.idOf(inline).equals(k)
+                    ? PromotionImage.decode(inline)
+                    : null;
+        });
+    }
+
+    /** @return true si la imagen está en el cache (servirla no consulta promociones) */
+    public boolean isCached(String id) {
+        return cache.containsKey(id);
+    }
+
+    /** @return valor del header Cache-Control de las imágenes (las URLs son inmutables) */
+    public String cacheControl() {
+        return cacheControl;
+    }
+
+    /** @return estadísticas del cache de imágenes */
+    public BoundedCache.Stats stats() {
+        return cache.stats();
+    }
+
+    private String url(Integer nroRestaurante, PromotionContent content, PromotionImage image) {
+        return baseUrl + "/api/promotions/" + nroRestaurante + "/" + content.getNro_idioma() + "/"
+                + content.getNro_contenido() + "/imagen/" + image.id();
+    }
+}
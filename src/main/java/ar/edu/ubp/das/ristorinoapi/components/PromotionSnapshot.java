@@ -0,0 +1,63 @@
+package ar.edu.ubp.das.ristorinoapi.components;
+
+import ar.edu.ubp.das.ristorinoapi.beans.RestaurantResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Promociones de un restaurante tal como se cachean en {@link PromotionCache}: el objeto mapeado, su
+ * serialización JSON, una variante comprimida con gzip y los ETags de ambas. Así una revalidación
+ * (If-None-Match) se resuelve sin volver a serializar, y una respuesta completa se escribe directamente desde
+ * los bytes, sin serializar ni comprimir por request.
+ * <p>Se comparte entre requests: ni el objeto ni los arreglos deben modificarse.</p>
+ * @param response promociones mapeadas
+ * @param json cuerpo JSON en UTF-8
+ * @param etag ETag fuerte de {@code json} (ver {@link ETags#of})
+ * @param gzip {@code json} comprimido con gzip, o null si comprimir no reduce el tamaño
+ * @param gzipEtag ETag de la variante gzip, o null si no hay variante gzip
+ */
+public record PromotionSnapshot(RestaurantResponse response, byte[] json, String etag, byte[] gzip, String gzipEtag) {
+
+    /** Por debajo de este tamaño gzip no compensa (encabezados + CRC). */
+    private static final int MIN_GZIP_BYTES = 256;
+
+    /** Crea el snapshot calculando la variante gzip y los ETags del JSON ya serializado. */
+    public static PromotionSnapshot of(RestaurantResponse response, byte[] json) {
+        String etag = ETags.of(json);
+        byte[] gzip = json.length < MIN_GZIP_BYTES ? null : gzip(json);
+        if (gzip != null && gzip.length >= json.length) {
+            gzip = null;
+        }
+        // Representaciones distintas requieren ETags fuertes distintos
+        String gzipEtag = gzip == null ? null : etag.substring(0, etag.length() - 1) + "-gzip\"";
+        return new PromotionSnapshot(response, json, etag, gzip, gzipEtag);
+    }
+
+    /** @return true si hay variante gzip disponible */
+    public boolean hasGzip() {
+        return gzip != null;
+    }
+
+    /**
+     * Tamaño estimado en memoria: los bytes JSON y gzip más el objeto mapeado, que se estima igual al JSON.
+     * @return bytes ocupados por la entrada
+     */
+    public long sizeInBytes() {
+        return 2L * json.length + (gzip == null ? 0 : gzip.length);
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        // Se comprime una sola vez por carga: conviene el máximo nivel de compresión
+        try (GZIPOutputStream gz = new GZIPOutputStream(out) {{ def.setLevel(Deflater.BEST_COMPRESSION); }}) {
+            gz.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
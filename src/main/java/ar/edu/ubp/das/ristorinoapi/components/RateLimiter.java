@@ -0,0 +1,164 @@
+package ar.edu.ubp.das.ristorinoapi.components;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Límites de tasa por cliente y por restaurante para los endpoints que llegan a la base de datos
+ * (registro de clicks y consultas de promociones). Lo aplica {@code RateLimitFilter} (ver
+ * {@link ar.edu.ubp.das.ristorinoapi.config.WebConfig}).
+ * <p>Cada límite es un {@link StripedTokenBuckets}: tasa sostenida ({@code rate}, requests por segundo) y
+ * ráfaga admitida ({@code burst}). Un request se admite sólo si hay token en el bucket del cliente y en el del
+ * restaurante; si el segundo lo rechaza se devuelve el token del cliente.</p>
+ * <p>Las consultas de varios restaurantes ({@code GET ?ids=}, {@code POST /bulk}) ejecutan hasta
+ * {@code max-ids} consultas cada una, así que tienen su propio límite por cliente y, en lugar del límite por
+ * restaurante, uno global compartido por todos los clientes.</p>
+ * <p>Configuración (application.properties):
+ * <pre>ristorino.ratelimit.enabled=true
+ * ristorino.ratelimit.stripes=4096
+ * ristorino.ratelimit.clicks.per-client.rate=5
+ * ristorino.ratelimit.clicks.per-client.burst=20
+ * ristorino.ratelimit.clicks.per-restaurant.rate=200
+ * ristorino.ratelimit.clicks.per-restaurant.burst=400
+ * ristorino.ratelimit.promotions.per-client.rate=20
+ * ristorino.ratelimit.promotions.per-client.burst=60
+ * ristorino.ratelimit.promotions.per-restaurant.rate=500
+ * ristorino.ratelimit.promotions.per-restaurant.burst=1000
+ * ristorino.ratelimit.bulk.per-client.rate=1
+ * ristorino.ratelimit.bulk.per-client.burst=5
+ * ristorino.ratelimit.bulk.global.rate=10
+ * ristorino.ratelimit.bulk.global.burst=20</pre></p>
+ * <p>Métrica {@code ristorino.ratelimit.rejected} por {@code endpoint} (clicks, promotions, bulk) y {@code scope}
+ * (client, restaurant, global).</p>
+ */
+@Component
+public class RateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimiter.class);
+
+    /** Grupo de endpoints con límites propios. */
+    public enum Endpoint {
+        CLICKS, PROMOTIONS, BULK;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ristorino.ratelimit.enabled:true}")
+    private boolean enabled;
+    @Value("${ristorino.ratelimit.stripes:4096}")
+    private int stripes;
+    @Value("${ristorino.ratelimit.clicks.per-client.rate:5}")
+    private double clicksPerClientRate;
+    @Value("${ristorino.ratelimit.clicks.per-client.burst:20}")
+    private int clicksPerClientBurst;
+    @Value("${ristorino.ratelimit.clicks.per-restaurant.rate:200}")
+    private double clicksPerRestaurantRate;
+    @Value("${ristorino.ratelimit.clicks.per-restaurant.burst:400}")
+    private int clicksPerRestaurantBurst;
+    @Value("${ristorino.ratelimit.promotions.per-client.rate:20}")
+    private double promotionsPerClientRate;
+    @Value("${ristorino.ratelimit.promotions.per-client.burst:60}")
+    private int promotionsPerClientBurst;
+    @Value("${ristorino.ratelimit.promotions.per-restaurant.rate:500}")
+    private double promotionsPerRestaurantRate;
+    @Value("${ristorino.ratelimit.promotions.per-restaurant.burst:1000}")
+    private int promotionsPerRestaurantBurst;
+    @Value("${ristorino.ratelimit.bulk.per-client.rate:1}")
+    private double bulkPerClientRate;
+    @Value("${ristorino.ratelimit.bulk.per-client.burst:5}")
+    private int bulkPerClientBurst;
+    @Value("${ristorino.ratelimit.bulk.global.rate:10}")
+    private double bulkGlobalRate;
+    @Value("${ristorino.ratelimit.bulk.global.burst:20}")
+    private int bulkGlobalBurst;
+
+    private final Map<Endpoint, Limits> limits = new EnumMap<>(Endpoint.class);
+
+    @PostConstruct
+    void init() {
+        limits.put(Endpoint.CLICKS, new Limits(Endpoint.CLICKS,
+                new StripedTokenBuckets(stripes, clicksPerClientRate, clicksPerClientBurst),
+                new StripedTokenBuckets(stripes, clicksPerRestaurantRate, clicksPerRestaurantBurst), false));
+        limits.put(Endpoint.PROMOTIONS, new Limits(Endpoint.PROMOTIONS,
+                new StripedTokenBuckets(stripes, promotionsPerClientRate, promotionsPerClientBurst),
+                new StripedTokenBuckets(stripes, promotionsPerRestaurantRate, promotionsPerRestaurantBurst), false));
+        limits.put(Endpoint.BULK, new Limits(Endpoint.BULK,
+                new StripedTokenBuckets(stripes, bulkPerClientRate, bulkPerClientBurst),
+                new StripedTokenBuckets(1, bulkGlobalRate, bulkGlobalBurst), true));
+        log.info("Límites de tasa {} (clicks {}/s por cliente, promociones {}/s por cliente)",
+                enabled ? "habilitados" : "deshabilitados", clicksPerClientRate, promotionsPerClientRate);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Consume un token del cliente y, si se indica, del restaurante (en {@link Endpoint#BULK}, del límite
+     * global). Sólo se consumen si ambos límites admiten el request.
+     * @param clientKey identificador del cliente (IP)
+     * @param nroRestaurante restaurante consultado, o null si el request no apunta a uno solo (se ignora en
+     *                       {@link Endpoint#BULK})
+     * @return 0 si se admite; si no, nanosegundos que el cliente debería esperar antes de reintentar
+     */
+    public long tryAcquire(Endpoint endpoint, String clientKey, Integer nroRestaurante) {
+        if (!enabled) {
+            return 0;
+        }
+        Limits l = limits.get(endpoint);
+        long wait = l.perClient.tryAcquire(clientKey);
+        if (wait > 0) {
+            l.rejectedByClient.increment();
+            return wait;
+        }
+        Object sharedKey = l.global ? endpoint : nroRestaurante;
+        if (sharedKey != null) {
+            wait = l.shared.tryAcquire(sharedKey);
+            if (wait > 0) {
+                l.perClient.release(clientKey);
+                l.rejectedByShared.increment();
+                return wait;
+            }
+        }
+        return 0;
+    }
+
+    private final class Limits {
+        private final StripedTokenBuckets perClient;
+        // Por restaurante, o un único bucket para todos los clientes si global
+        private final StripedTokenBuckets shared;
+        private final boolean global;
+        private final Counter rejectedByClient;
+        private final Counter rejectedByShared;
+
+        private Limits(Endpoint endpoint, StripedTokenBuckets perClient, StripedTokenBuckets shared, boolean global) {
+            this.perClient = perClient;
+            this.shared = shared;
+            this.global = global;
+            this.rejectedByClient = rejectedCounter(endpoint, "client");
+            this.rejectedByShared = rejectedCounter(endpoint, global ? "global" : "restaurant");
+        }
+    }
+
+    private Counter rejectedCounter(Endpoint endpoint, String scope) {
+        return Counter.builder("ristorino.ratelimit.rejected")
+                .description("Requests rechazados con 429 por límite de tasa")
+                .tag("endpoint", endpoint.tag())
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+}
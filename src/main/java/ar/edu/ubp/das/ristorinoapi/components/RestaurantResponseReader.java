@@ -0,0 +1,192 @@
+package ar.edu.ubp.das.ristorinoapi.components;
+
+import ar.edu.ubp.das.ristorinoapi.beans.PromotionContent;
+import ar.edu.ubp.das.ristorinoapi.beans.RestaurantResponse;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deserializador en streaming (Jackson core) del JSON de dbo.usp_get_promociones_restaurante a
+ * {@link RestaurantResponse}.
+ * <p>Mapea token a token, en una sola pasada, sin construir un árbol intermedio. Cuando 'contenidos' viene
+ * doblemente serializado (un string con el arreglo JSON) se parsea en el lugar sobre el buffer de caracteres
+ * del parser principal. Los campos desconocidos se ignoran.</p>
+ */
+@Component
+public class RestaurantResponseReader {
+
+    private static final Logger log = LoggerFactory.getLogger(RestaurantResponseReader.class);
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    /**
+     * Lee un {@link RestaurantResponse} desde el JSON recibido.
+     * @return la respuesta mapeada, o null si el JSON está vacío o es {@code null}
+     * @throws IOException si el JSON es inválido o falla la lectura
+     */
+    public RestaurantResponse read(Reader json) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            JsonToken first = parser.nextToken();
+            if (first == null || first == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            if (first != JsonToken.START_OBJECT) {
+                throw new IOException("Se esperaba un objeto JSON de restaurante");
+            }
+            return readRestaurant(parser);
+        }
+    }
+
+    private RestaurantResponse readRestaurant(JsonParser parser) throws IOException {
+        RestaurantResponse response = new RestaurantResponse();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (name) {
+                case "nro_restaurante" -> response.setNro_restaurante(intValue(parser));
+                case "razon_social" -> response.setRazon_social(textValue(parser));
+                case "contenidos" -> {
+                    if (value == JsonToken.START_ARRAY) {
+                        response.setContenidos(readContents(parser));
+                    } else if (value == JsonToken.VALUE_STRING) {
+                        response.setContenidos(readEmbeddedContents(parser));
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        return response;
+    }
+
+    /** Parsea el arreglo JSON contenido en el string actual, sin copiarlo a un String. */
+    private List<PromotionContent> readEmbeddedContents(JsonParser parser) throws IOException {
+        try (JsonParser nested = jsonFactory.createParser(parser.getTextCharacters(), parser.getTextOffset(),
+                parser.getTextLength())) {
+            JsonToken first = nested.nextToken();
+            if (first == JsonToken.START_ARRAY) {
+                return readContents(nested);
+            }
+            if (first == JsonToken.START_OBJECT) {
+                List<PromotionContent> single = new ArrayList<>(1);
+                single.add(readContent(nested));
+                return single;
+            }
+            return null;
+        } catch (JsonProcessingException e) {
+            log.warn("No se pudo parsear 'contenidos' como JSON embebido: {}", e.getOriginalMessage());
+            return null;
+        }
+    }
+
+    private List<PromotionContent> readContents(JsonParser parser) throws IOException {
+        List<PromotionContent> contents = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new IOException("Fin inesperado del JSON de contenidos");
+            }
+            if (token == JsonToken.START_OBJECT) {
+                contents.add(readContent(parser));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return contents;
+    }
+
+    private PromotionContent readContent(JsonParser parser) throws IOException {
+        PromotionContent c = new PromotionContent();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "nro_contenido" -> c.setNro_contenido(intValue(parser));
+                case "nro_sucursal" -> c.setNro_sucursal(intValue(parser));
+                case "nom_sucursal" -> c.setNom_sucursal(textValue(parser));
+                case "nro_idioma" -> c.setNro_idioma(intValue(parser));
+                case "cod_idioma" -> c.setCod_idioma(textValue(parser));
+                case "nom_idioma" -> c.setNom_idioma(textValue(parser));
+                case "contenido_promocional" -> c.setContenido_promocional(textValue(parser));
+                case "contenido_a_publicar" -> c.setContenido_a_publicar(textValue(parser));
+                case "fecha_ini_vigencia" -> c.setFecha_ini_vigencia(textValue(parser));
+                case "fecha_fin_vigencia" -> c.setFecha_fin_vigencia(textValue(parser));
+                case "imagen_promocional" -> c.setImagen_promocional(textValue(parser));
+                case "costo_click" -> c.setCosto_click(doubleValue(parser));
+                case "cod_contenido_restaurante" -> c.setCod_contenido_restaurante(textValue(parser));
+                case "vigente" -> c.setVigente(booleanValue(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return c;
+    }
+
+    private static String textValue(JsonParser parser) throws IOException {
+        if (parser.currentToken().isScalarValue()) {
+            return parser.getValueAsString();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static Integer intValue(JsonParser parser) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getValueAsInt();
+            case VALUE_STRING -> {
+                String text = parser.getText().trim();
+                try {
+                    yield text.isEmpty() ? null : Integer.valueOf(text);
+                } catch (NumberFormatException e) {
+                    throw new JsonParseException(parser, "Valor entero inválido: " + text);
+                }
+            }
+            default -> {
+                parser.skipChildren();
+                yield null;
+            }
+        };
+    }
+
+    private static Double doubleValue(JsonParser parser) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getDoubleValue();
+            case VALUE_STRING -> {
+                String text = parser.getText().trim();
+                try {
+                    yield text.isEmpty() ? null : Double.valueOf(text);
+                } catch (NumberFormatException e) {
+                    throw new JsonParseException(parser, "Valor decimal inválido: " + text);
+                }
+            }
+            default -> {
+                parser.skipChildren();
+                yield null;
+            }
+        };
+    }
+
+    private static Boolean booleanValue(JsonParser parser) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_TRUE -> Boolean.TRUE;
+            case VALUE_FALSE -> Boolean.FALSE;
+            case VALUE_NUMBER_INT -> parser.getIntValue() != 0; // BIT sin CAST a JSON boolean
+            case VALUE_STRING -> Boolean.valueOf(parser.getText().trim());
+            default -> {
+                parser.skipChildren();
+                yield null;
+            }
+        };
+    }
+}
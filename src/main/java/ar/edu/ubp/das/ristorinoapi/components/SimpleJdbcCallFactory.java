@@ -1,25 +1,76 @@
 package ar.edu.ubp.das.ristorinoapi.components;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.CallableStatementCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.core.StatementCreatorUtils;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.core.simple.SimpleJdbcCall;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.sql.CallableStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Factory liviana para crear y ejecutar {@link SimpleJdbcCall} contra procedimientos almacenados.
  * Centraliza el {@link JdbcTemplate} y estandariza la ejecución y recolección de OUT parameters
  * y result sets devueltos por SQL Server.
+ * <p>Cada (esquema, procedimiento) se compila una única vez y se reutiliza: {@link SimpleJdbcCall} es
+ * thread-safe una vez compilado, y así se evita consultar la metadata del SP a SQL Server en cada request.
+ * Los repositorios registran sus procedimientos con {@link #register} declarando los parámetros; con
+ * {@code ristorino.jdbc.skip-metadata-lookup=true} esos parámetros declarados se usan directamente y la
+ * metadata no se consulta nunca.</p>
+ * <p>Los procedimientos registrados se compilan al arrancar la aplicación
+ * ({@code ristorino.jdbc.warm-up-on-startup}, true por defecto).</p>
+ * <p>Para SPs que terminan en {@code SELECT ... FOR JSON}, {@link #executeStreamingJson} expone el resultado
+ * como un {@link ForJsonReader} sin concatenar los fragmentos en memoria.</p>
+ * <p>Cada ejecución se mide en {@link DataAccessMetrics} por procedimiento.</p>
  */
 @Component
 public class SimpleJdbcCallFactory {
 
+    private static final Logger log = LoggerFactory.getLogger(SimpleJdbcCallFactory.class);
+
     @Autowired
     private JdbcTemplate jdbcTpl;
 
+    @Autowired
+    private DataAccessMetrics metrics;
+
+    @Value("${ristorino.jdbc.skip-metadata-lookup:false}")
+    private boolean skipMetadataLookup;
+    @Value("${ristorino.jdbc.warm-up-on-startup:true}")
+    private boolean warmUpOnStartup;
+
+    private final Map<String, RegisteredCall> calls = new ConcurrentHashMap<>();
+
+    /**
+     * Registra un procedimiento con sus parámetros declarados, en el orden en que los recibe el SP.
+     * Si ya estaba registrado se conserva el registro existente.
+     * @param procedureName nombre del procedimiento
+     * @param schemaName esquema (por ejemplo, "dbo")
+     * @param parameters parámetros de entrada/salida del SP
+     */
+    public void register(String procedureName, String schemaName, SqlParameter... parameters) {
+        calls.computeIfAbsent(key(schemaName, procedureName),
+                k -> new RegisteredCall(procedureName, schemaName, List.of(parameters), true));
+    }
+
     /**
      * Ejecuta un procedimiento almacenado devolviendo el mapa de salida tal cual lo entrega SimpleJdbcCall.
      * @param procedureName nombre del procedimiento
@@ -28,10 +79,7 @@ public class SimpleJdbcCallFactory {
      * @return mapa de salida con OUT params y result sets (claves tipo "#result-set-1")
      */
     public Map<String, Object> executeWithOutputs(String procedureName, String schemaName, SqlParameterSource params) {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTpl)
-                .withProcedureName(procedureName)
-                .withSchemaName(schemaName);
-        return jdbcCall.execute(params);
+        return lookup(procedureName, schemaName).execute(params);
     }
 
     /**
@@ -46,9 +94,196 @@ public class SimpleJdbcCallFactory {
      * Útil cuando el SP hace un SELECT final (p.ej. SELECT ... FOR JSON PATH).
      */
     public Map<String, Object> executeReturningEverything(String procedureName, String schemaName, SqlParameterSource params) {
-        SimpleJdbcCall jdbcCall = new SimpleJdbcCall(jdbcTpl)
-                .withProcedureName(procedureName)
-                .withSchemaName(schemaName);
-        return jdbcCall.execute(params);
+        return lookup(procedureName, schemaName).execute(params);
+    }
+
+    /**
+     * Ejecuta un SP registrado y entrega el primer result set (FOR JSON) como {@link ForJsonReader} al callback.
+     * El reader sólo es válido dentro del callback: la conexión se libera al retornar.
+     * <p>Los parámetros se enlazan por posición según lo declarado en {@link #register}; los valores
+     * ausentes en {@code params} se envían como NULL.</p>
+     * @param procedureName nombre del procedimiento (debe estar registrado)
+     * @param schemaName esquema (por ejemplo, "dbo")
+     * @param params valores de entrada
+     * @param callback consumidor del JSON; recibe un reader vacío si el SP no devolvió filas
+     * @return el valor devuelto por el callback
+     */
+    public <T> T executeStreamingJson(String procedureName, String schemaName, SqlParameterSource params,
+                                      ForJsonCallback<T> callback) {
+        return executeStreamingJson(procedureName, schemaName, params, 0, callback);
+    }
+
+    /**
+     * Igual que {@link #executeStreamingJson(String, String, SqlParameterSource, ForJsonCallback)} pero con un
+     * tiempo máximo de ejecución en el servidor: vencido, el driver cancela el SP y la llamada falla con
+     * excepción, liberando la conexión.
+     * @param queryTimeoutSeconds segundos para {@link java.sql.Statement#setQueryTimeout}; 0 = el del JdbcTemplate
+     */
+    public <T> T executeStreamingJson(String procedureName, String schemaName, SqlParameterSource params,
+                                      int queryTimeoutSeconds, ForJsonCallback<T> callback) {
+        RegisteredCall call = calls.get(key(schemaName, procedureName));
+        if (call == null || !call.registered) {
+            throw new IllegalStateException("El procedimiento " + schemaName + "." + procedureName
+                    + " debe registrarse con sus parámetros para ejecutarse en modo streaming");
+        }
+        call.executions.incrementAndGet();
+        return metrics.recordProcedure(call.qualifiedName(), "streaming", () -> jdbcTpl.execute(con -> {
+            CallableStatement cs = con.prepareCall(call.streamingCallString());
+            for (int i = 0; i < call.parameters.size(); i++) {
+                SqlParameter p = call.parameters.get(i);
+                Object value = params.hasValue(p.getName()) ? params.getValue(p.getName()) : null;
+                StatementCreatorUtils.setParameterValue(cs, i + 1, p, value);
+            }
+            return cs;
+        }, (CallableStatementCallback<T>) cs -> {
+            // Después de applyStatementSettings del JdbcTemplate, para que no lo pise
+            if (queryTimeoutSeconds > 0) {
+                cs.setQueryTimeout(queryTimeoutSeconds);
+            }
+            boolean isResultSet = cs.execute();
+            // Saltear update counts previos (p.ej. si el SP no usa SET NOCOUNT ON)
+            while (!isResultSet && cs.getUpdateCount() != -1) {
+                isResultSet = cs.getMoreResults();
+            }
+            try (ResultSet rs = isResultSet ? cs.getResultSet() : null;
+                 ForJsonReader reader = new ForJsonReader(rs)) {
+                if (rs == null) {
+                    reader.close();
+                }
+                T result = callback.doWithJson(reader);
+                metrics.recordForJson(call.qualifiedName(), reader.getFragmentCount(), reader.getCharCount());
+                return result;
+            } catch (IOException e) {
+                if (e.getCause() instanceof SQLException sqlEx) {
+                    throw sqlEx;
+                }
+                throw new SQLException("Error procesando JSON de " + call.qualifiedName() + ": " + e.getMessage(), e);
+            }
+        }));
+    }
+
+    /**
+     * Callback que consume el JSON devuelto por un SP en modo streaming.
+     */
+    @FunctionalInterface
+    public interface ForJsonCallback<T> {
+        T doWithJson(ForJsonReader json) throws IOException, SQLException;
+    }
+
+    /**
+     * Compila todos los procedimientos registrados. Los errores (p.ej. base no disponible) se registran
+     * en el log y el procedimiento se vuelve a intentar compilar en su primer uso.
+     * @return cantidad de procedimientos compilados correctamente
+     */
+    public int warmUp() {
+        int ok = 0;
+        for (RegisteredCall call : calls.values()) {
+            try {
+                call.ensureCompiled();
+                ok++;
+            } catch (Exception ex) {
+                log.warn("No se pudo precompilar {}: {}", call.qualifiedName(), ex.getMessage());
+            }
+        }
+        log.info("Procedimientos precompilados: {} de {}", ok, calls.size());
+        return ok;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void warmUpOnStartup() {
+        if (warmUpOnStartup) {
+            warmUp();
+        }
+    }
+
+    /**
+     * @return por procedimiento ("esquema.nombre"): cantidad de compilaciones y de ejecuciones
+     */
+    public Map<String, ProcedureStats> stats() {
+        Map<String, ProcedureStats> out = new TreeMap<>();
+        calls.values().forEach(c -> out.put(c.qualifiedName(), new ProcedureStats(c.compiles.get(), c.executions.get())));
+        return out;
+    }
+
+    private RegisteredCall lookup(String procedureName, String schemaName) {
+        // Procedimientos no registrados: se compilan con metadata en su primer uso y luego se reutilizan
+        return calls.computeIfAbsent(key(schemaName, procedureName),
+                k -> new RegisteredCall(procedureName, schemaName, List.of(), false));
+    }
+
+    private static String key(String schemaName, String procedureName) {
+        return (schemaName == null ? "" : schemaName.toLowerCase()) + "." + procedureName.toLowerCase();
+    }
+
+    /**
+     * Cantidades acumuladas por procedimiento.
+     * @param compiles veces que se compiló (normalmente 1)
+     * @param executions veces que se ejecutó
+     */
+    public record ProcedureStats(long compiles, long executions) {}
+
+    private final class RegisteredCall {
+        private final String procedureName;
+        private final String schemaName;
+        private final List<SqlParameter> parameters;
+        private final boolean registered;
+        private final AtomicLong compiles = new AtomicLong();
+        private final AtomicLong executions = new AtomicLong();
+        private volatile SimpleJdbcCall jdbcCall;
+        private final ReentrantLock compileLock = new ReentrantLock();
+
+        private RegisteredCall(String procedureName, String schemaName, List<SqlParameter> parameters, boolean registered) {
+            this.procedureName = procedureName;
+            this.schemaName = schemaName;
+            this.parameters = parameters;
+            this.registered = registered;
+        }
+
+        private String qualifiedName() {
+            return schemaName + "." + procedureName;
+        }
+
+        private String streamingCallString() {
+            StringBuilder sb = new StringBuilder("{call ").append(qualifiedName()).append('(');
+            for (int i = 0; i < parameters.size(); i++) {
+                sb.append(i == 0 ? "?" : ", ?");
+            }
+            return sb.append(")}").toString();
+        }
+
+        private Map<String, Object> execute(SqlParameterSource params) {
+            SimpleJdbcCall call = ensureCompiled();
+            executions.incrementAndGet();
+            return metrics.recordProcedure(qualifiedName(), "call", () -> call.execute(params));
+        }
+
+        private SimpleJdbcCall ensureCompiled() {
+            SimpleJdbcCall call = jdbcCall;
+            if (call != null) {
+                return call;
+            }
+            // La compilación consulta metadata por JDBC: con synchronized fijaría el hilo portador de un hilo virtual
+            compileLock.lock();
+            try {
+                if (jdbcCall == null) {
+                    SimpleJdbcCall created = new SimpleJdbcCall(jdbcTpl)
+                            .withProcedureName(procedureName)
+                            .withSchemaName(schemaName);
+                    if (!parameters.isEmpty()) {
+                        created.declareParameters(parameters.toArray(new SqlParameter[0]));
+                        if (skipMetadataLookup) {
+                            created.withoutProcedureColumnMetaDataAccess();
+                        }
+                    }
+                    created.compile();
+                    compiles.incrementAndGet();
+                    log.debug("Procedimiento {} compilado: {}", qualifiedName(), created.getCallString());
+                    jdbcCall = created;
+                }
+                return jdbcCall;
+            } finally {
+                compileLock.unlock();
+            }
+        }
     }
 }
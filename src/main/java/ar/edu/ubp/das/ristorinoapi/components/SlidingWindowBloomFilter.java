@@ -0,0 +1,200 @@
+package ar.edu.ubp.das.ristorinoapi.components;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Filtro de Bloom con ventana deslizante: responde si una clave se vio en la última ventana de tiempo,
+ * con memoria fija e independiente de la cantidad de claves distintas.
+ * <p>La ventana se divide en {@code slices} franjas; cada franja es un filtro de Bloom propio y se guardan
+ * {@code slices + 1} en un anillo. Una clave se busca en todas las franjas vigentes y se inserta en la
+ * actual; al pasar a una franja nueva se reutiliza (y limpia) la más vieja. Así, una clave repetida se
+ * detecta si la repetición ocurre dentro de la ventana (y como mucho una franja más tarde).</p>
+ * <p>Puede dar falsos positivos (con probabilidad ~{@code falsePositiveRate} mientras la carga no supere
+ * {@code expectedKeys} por ventana) pero nunca falsos negativos dentro de la ventana. Las lecturas e
+ * inserciones son lock-free; sólo la rotación de franja toma un lock.</p>
+ */
+public class SlidingWindowBloomFilter {
+
+    private final long sliceNanos;
+    private final int hashes;
+    private final int bitsPerSlice;
+    private final Slice[] ring;
+    private final LongSupplier nanoClock;
+    private final ReentrantLock rotation = new ReentrantLock();
+
+    /**
+     * @param window ventana en la que una clave repetida se considera duplicada
+     * @param slices franjas en que se divide la ventana (mayor = ventana más precisa)
+     * @param expectedKeys claves distintas esperadas por ventana
+     * @param falsePositiveRate probabilidad de falso positivo buscada para esa carga
+     */
+    public SlidingWindowBloomFilter(Duration window, int slices, long expectedKeys, double falsePositiveRate) {
+        this(window, slices, expectedKeys, falsePositiveRate, System::nanoTime);
+    }
+
+    /**
+     * Variante con reloj configurable (en nanosegundos), útil para pruebas.
+     */
+    public SlidingWindowBloomFilter(Duration window, int slices, long expectedKeys, double falsePositiveRate,
+                                    LongSupplier nanoClock) {
+        if (window.isZero() || window.isNegative() || slices <= 0 || expectedKeys <= 0
+                || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Parámetros inválidos para el filtro de duplicados");
+        }
+        this.sliceNanos = Math.max(1, window.toNanos() / slices);
+        this.nanoClock = nanoClock;
+        // Cada búsqueda consulta slices + 1 filtros: se reparte la tasa de falsos positivos entre ellos
+        double perSliceRate = falsePositiveRate / (slices + 1);
+        long perSliceKeys = Math.max(1, (expectedKeys + slices - 1) / slices);
+        long bits = (long) Math.ceil(-perSliceKeys * Math.log(perSliceRate) / (Math.log(2) * Math.log(2)));
+        this.bitsPerSlice = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, (bits + 63) / 64 * 64));
+        this.hashes = Math.max(1, (int) Math.round((double) bitsPerSlice / perSliceKeys * Math.log(2)));
+        this.ring = new Slice[slices + 1];
+        for (int i = 0; i < ring.length; i++) {
+            ring[i] = new Slice(bitsPerSlice / 64);
+        }
+    }
+
+    /**
+     * Registra la clave y devuelve si ya se había visto dentro de la ventana.
+     * @return true si (probablemente) es un duplicado
+     */
+    public boolean checkAndPut(String key) {
+        long h1 = hash(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1; // impar: recorre todas las posiciones
+        long period = Math.floorDiv(nanoClock.getAsLong(), sliceNanos);
+        Slice current = sliceFor(period);
+        for (Slice s : ring) {
+            if (s != current && isLive(s, period) && s.mightContain(h1, h2)) {
+                current.put(h1, h2);
+                return true;
+            }
+        }
+        // Si ningún bit cambió, la clave ya estaba en la franja actual
+        return !current.put(h1, h2);
+    }
+
+    /**
+     * Consulta sin registrar: permite registrar la clave ({@link #put}) recién cuando la operación que protege
+     * tuvo éxito.
+     * @return true si la clave (probablemente) se vio dentro de la ventana
+     */
+    public boolean mightContain(String key) {
+        long h1 = hash(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        long period = Math.floorDiv(nanoClock.getAsLong(), sliceNanos);
+        for (Slice s : ring) {
+            if (isLive(s, period) && s.mightContain(h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Registra la clave en la franja actual. */
+    public void put(String key) {
+        long h1 = hash(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        sliceFor(Math.floorDiv(nanoClock.getAsLong(), sliceNanos)).put(h1, h2);
+    }
+
+    /** @return memoria ocupada por los bits de todas las franjas */
+    public long sizeInBytes() {
+        return (long) ring.length * bitsPerSlice / 8;
+    }
+
+    /** @return cantidad de funciones de hash por clave */
+    public int hashFunctions() {
+        return hashes;
+    }
+
+    private boolean isLive(Slice s, long period) {
+        long p = s.period;
+        return p <= period && p > period - ring.length;
+    }
+
+    private Slice sliceFor(long period) {
+        Slice s = ring[(int) Math.floorMod(period, (long) ring.length)];
+        if (s.period == period) {
+            return s;
+        }
+        rotation.lock();
+        try {
+            if (s.period != period) {
+                s.clear();
+                s.period = period;
+            }
+            return s;
+        } finally {
+            rotation.unlock();
+        }
+    }
+
+    private final class Slice {
+        private final AtomicLongArray words;
+        private volatile long period = Long.MIN_VALUE;
+
+        private Slice(int words) {
+            this.words = new AtomicLongArray(words);
+        }
+
+        private boolean mightContain(long h1, long h2) {
+            for (int i = 0; i < hashes; i++) {
+                int bit = index(h1, h2, i);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** @return true si se encendió algún bit (la clave no estaba) */
+        private boolean put(long h1, long h2) {
+            boolean changed = false;
+            for (int i = 0; i < hashes; i++) {
+                int bit = index(h1, h2, i);
+                int word = bit >>> 6;
+                long mask = 1L << bit;
+                long prev = words.get(word);
+                while ((prev & mask) == 0) {
+                    if (words.compareAndSet(word, prev, prev | mask)) {
+                        changed = true;
+                        break;
+                    }
+                    prev = words.get(word);
+                }
+            }
+            return changed;
+        }
+
+        private void clear() {
+            for (int i = 0; i < words.length(); i++) {
+                words.set(i, 0);
+            }
+        }
+    }
+
+    private int index(long h1, long h2, int i) {
+        return (int) Long.remainderUnsigned(h1 + i * h2, bitsPerSlice);
+    }
+
+    /** FNV-1a de 64 bits sobre los bytes UTF-8 seguido de un mezclado final (splitmix64). */
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
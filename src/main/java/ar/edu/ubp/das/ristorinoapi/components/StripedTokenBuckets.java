@@ -0,0 +1,94 @@
+package ar.edu.ubp.das.ristorinoapi.components;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Conjunto de token buckets con memoria fija: cada clave se asigna por hash a una de {@code stripes} franjas.
+ * <p>Cada bucket se implementa con GCRA (generic cell rate algorithm), equivalente a un token bucket de
+ * {@code ratePerSecond} tokens por segundo y capacidad {@code burst}: en lugar de tokens y última recarga
+ * se guarda un único long por franja, el "tiempo teórico de llegada" (TAT), que se actualiza con
+ * compareAndSet sin locks.</p>
+ * <p>Claves que caen en la misma franja comparten el bucket; con más franjas que clientes activos las
+ * colisiones son raras y, si ocurren, sólo hacen el límite más estricto.</p>
+ */
+public class StripedTokenBuckets {
+
+    private final AtomicLongArray tat;
+    private final int mask;
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final LongSupplier nanoClock;
+
+    /**
+     * @param stripes cantidad de buckets (se redondea a potencia de 2)
+     * @param ratePerSecond tokens repuestos por segundo
+     * @param burst capacidad del bucket (requests seguidos admitidos con el bucket lleno)
+     */
+    public StripedTokenBuckets(int stripes, double ratePerSecond, int burst) {
+        this(stripes, ratePerSecond, burst, System::nanoTime);
+    }
+
+    /**
+     * Variante con reloj configurable (en nanosegundos), útil para pruebas.
+     */
+    public StripedTokenBuckets(int stripes, double ratePerSecond, int burst, LongSupplier nanoClock) {
+        if (stripes <= 0 || ratePerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("stripes, ratePerSecond y burst deben ser positivos");
+        }
+        int size = Integer.highestOneBit(Math.min(stripes, 1 << 30));
+        if (size < stripes) {
+            size <<= 1;
+        }
+        this.tat = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.emissionIntervalNanos = Math.max(1, (long) (1e9 / ratePerSecond));
+        this.burstToleranceNanos = emissionIntervalNanos * burst;
+        this.nanoClock = nanoClock;
+        long start = nanoClock.getAsLong();
+        for (int i = 0; i < size; i++) {
+            tat.set(i, start - burstToleranceNanos); // buckets llenos
+        }
+    }
+
+    /**
+     * Consume un token del bucket de la clave.
+     * @return 0 si se admitió; si no, nanosegundos hasta que haya un token disponible
+     */
+    public long tryAcquire(Object key) {
+        int stripe = spread(key.hashCode()) & mask;
+        long now = nanoClock.getAsLong();
+        while (true) {
+            long current = tat.get(stripe);
+            long next = Math.max(current, now) + emissionIntervalNanos;
+            long excess = next - now - burstToleranceNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (tat.compareAndSet(stripe, current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Devuelve un token consumido con {@link #tryAcquire} por un request que finalmente no se admitió (p.ej. lo
+     * rechazó otro límite). No puede dejar el bucket por encima de su capacidad: el TAT vuelve, como mucho, al
+     * valor que tenía antes de consumir.
+     */
+    public void release(Object key) {
+        tat.addAndGet(spread(key.hashCode()) & mask, -emissionIntervalNanos);
+    }
+
+    /** @return cantidad de buckets */
+    public int stripes() {
+        return mask + 1;
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h;
+    }
+}
@@ -0,0 +1,114 @@
+package ar.edu.ubp.das.ristorinoapi.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * Cliente HTTP saliente para las notificaciones de clicks a la API de los restaurantes.
+ * <p>Usa Apache HttpClient 5 con un pool de conexiones keep-alive en lugar del {@code SimpleClientHttpRequestFactory}
+ * por defecto de {@code RestTemplate}, que no tiene timeouts: una API lenta podía bloquear al notificador
+ * indefinidamente.</p>
+ * <p>Configuración (application.properties):
+ * <pre>ristorino.notification.http.connect-timeout-ms=2000     # establecer la conexión TCP
+ * ristorino.notification.http.read-timeout-ms=5000        # esperar la respuesta (y entre paquetes)
+ * ristorino.notification.http.pool-timeout-ms=2000        # esperar una conexión libre del pool
+ * ristorino.notification.http.max-total=50
+ * ristorino.notification.http.max-per-route=8             # por defecto, max-in-flight
+ * ristorino.notification.http.keep-alive-seconds=30       # si el servidor no envía Keep-Alive
+ * ristorino.notification.http.idle-evict-seconds=30
+ * ristorino.notification.http.validate-after-inactivity-ms=2000</pre></p>
+ * <p>Métrica {@code ristorino.notifications.http.pool} por {@code state} (leased, available, pending, max).</p>
+ */
+@Configuration
+public class NotificationHttpClientConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationHttpClientConfig.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ristorino.notification.http.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+    @Value("${ristorino.notification.http.read-timeout-ms:5000}")
+    private long readTimeoutMs;
+    @Value("${ristorino.notification.http.pool-timeout-ms:2000}")
+    private long poolTimeoutMs;
+    @Value("${ristorino.notification.http.max-total:50}")
+    private int maxTotal;
+    @Value("${ristorino.notification.http.max-per-route:${ristorino.notification.max-in-flight:8}}")
+    private int maxPerRoute;
+    @Value("${ristorino.notification.http.keep-alive-seconds:30}")
+    private long keepAliveSeconds;
+    @Value("${ristorino.notification.http.idle-evict-seconds:30}")
+    private long idleEvictSeconds;
+    @Value("${ristorino.notification.http.validate-after-inactivity-ms:2000}")
+    private long validateAfterInactivityMs;
+
+    /**
+     * Cliente con pool de conexiones; al cerrarse (fin del contexto) cierra también las conexiones del pool.
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient notificationHttpClient() {
+        PoolingHttpClientConnectionManager pool = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setPoolConcurrencyPolicy(PoolConcurrencyPolicy.STRICT)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setValidateAfterInactivity(TimeValue.ofMilliseconds(validateAfterInactivityMs))
+                        .build())
+                .build();
+        registerPoolGauge(pool, "leased", PoolStats::getLeased);
+        registerPoolGauge(pool, "available", PoolStats::getAvailable);
+        registerPoolGauge(pool, "pending", PoolStats::getPending);
+        registerPoolGauge(pool, "max", PoolStats::getMax);
+        log.info("Cliente HTTP de notificaciones: pool {} por destino ({} total), timeouts conexión {} ms / lectura {} ms",
+                maxPerRoute, maxTotal, connectTimeoutMs, readTimeoutMs);
+        return HttpClients.custom()
+                .setConnectionManager(pool)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setConnectionKeepAlive(TimeValue.ofSeconds(keepAliveSeconds))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleEvictSeconds))
+                .build();
+    }
+
+    /**
+     * RestTemplate que usa {@link ar.edu.ubp.das.ristorinoapi.services.ClickNotificationService} para los POST de notificación.
+     */
+    @Bean
+    public RestTemplate notificationRestTemplate(CloseableHttpClient notificationHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(notificationHttpClient));
+    }
+
+    private void registerPoolGauge(PoolingHttpClientConnectionManager pool, String state, ToIntFunction<PoolStats> stat) {
+        Gauge.builder("ristorino.notifications.http.pool", pool, p -> stat.applyAsInt(p.getTotalStats()))
+                .description("Conexiones del pool HTTP de notificaciones")
+                .tag("state", state)
+                .register(meterRegistry);
+    }
+}
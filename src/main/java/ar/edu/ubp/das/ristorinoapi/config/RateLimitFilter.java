@@ -0,0 +1,120 @@
+package ar.edu.ubp.das.ristorinoapi.config;
+
+import ar.edu.ubp.das.ristorinoapi.components.RateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Aplica los límites de {@link RateLimiter} a {@code /api/promotions/**}:
+ * <ul>
+ *   <li>POST /api/promotions/{nroRestaurante}/{nroIdioma}/{nroContenido}/click: límites de clicks por
+ *       cliente y por restaurante.</li>
+ *   <li>GET /api/promotions/{nroRestaurante}: límites de promociones por cliente y por restaurante.</li>
+ *   <li>GET /api/promotions?ids=... y POST /api/promotions/bulk: límites de consultas de varios restaurantes
+ *       por cliente y global.</li>
+ * </ul>
+ * <p>Las imágenes ({@code GET /api/promotions/{nro}/{idioma}/{contenido}/imagen/{id}}) que están en el cache de
+ * imágenes no se limitan: una página pide una por promoción, se sirven desde memoria y el navegador las cachea
+ * como inmutables. Si no están cacheadas (o el id no existe) servirlas consulta las promociones del restaurante,
+ * así que consumen el límite de promociones.</p>
+ * <p>Si se supera un límite responde 429 con {@code Retry-After} (segundos) sin invocar al controlador.
+ * El cliente se identifica por su IP ({@code getRemoteAddr}).</p>
+ * <p>El path se resuelve como lo hace Spring al enrutar: decodificado y sin parámetros de path
+ * ({@code ;x=1}), para que {@code /api/promotions/1;x=1/1/1/click} se cobre al restaurante 1.</p>
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private static final String PREFIX = "/api/promotions";
+
+    private final RateLimiter rateLimiter;
+    // Imágenes que se sirven desde memoria, sin consultar promociones
+    private final Predicate<String> cachedImage;
+
+    public RateLimitFilter(RateLimiter rateLimiter) {
+        this(rateLimiter, id -> false);
+    }
+
+    public RateLimitFilter(RateLimiter rateLimiter, Predicate<String> cachedImage) {
+        this.rateLimiter = rateLimiter;
+        this.cachedImage = cachedImage;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !rateLimiter.isEnabled() || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+        if (!path.startsWith(PREFIX)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        // Segmentos después de /api/promotions: [] | [nro] | [bulk] | [nro, idioma, contenido, click]
+        //                                       | [nro, idioma, contenido, imagen, id]
+        String rest = path.substring(PREFIX.length());
+        String[] segments = rest.isEmpty() || rest.equals("/") ? new String[0] : rest.substring(1).split("/");
+        String client = request.getRemoteAddr();
+        long wait = 0;
+        if (segments.length == 5 && "imagen".equals(segments[3])) {
+            if (cachedImage.test(segments[4])) {
+                chain.doFilter(request, response);
+                return;
+            }
+            wait = rateLimiter.tryAcquire(RateLimiter.Endpoint.PROMOTIONS, client, parseRestaurant(segments[0]));
+        } else if ("POST".equals(request.getMethod()) && segments.length == 4 && "click".equals(segments[3])) {
+            wait = rateLimiter.tryAcquire(RateLimiter.Endpoint.CLICKS, client, parseRestaurant(segments[0]));
+        } else if (isBulk(request, segments)) {
+            wait = rateLimiter.tryAcquire(RateLimiter.Endpoint.BULK, client, null);
+        } else if ("GET".equals(request.getMethod()) || "POST".equals(request.getMethod())) {
+            Integer nroRestaurante = segments.length == 1 ? parseRestaurant(segments[0]) : null;
+            wait = rateLimiter.tryAcquire(RateLimiter.Endpoint.PROMOTIONS, client, nroRestaurante);
+        }
+        if (wait > 0) {
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+            log.debug("Límite de tasa superado: {} {} desde {}, reintentar en {} s", request.getMethod(), path, client, retryAfter);
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write("{\"error\":\"Demasiadas solicitudes\",\"reintentarEnSegundos\":" + retryAfter + "}");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    /** @return true si es una consulta de varios restaurantes ({@code GET ?ids=} o {@code POST /bulk}) */
+    private static boolean isBulk(HttpServletRequest request, String[] segments) {
+        if ("POST".equals(request.getMethod())) {
+            return segments.length == 1 && "bulk".equals(segments[0]);
+        }
+        return "GET".equals(request.getMethod()) && segments.length == 0 && request.getParameter("ids") != null;
+    }
+
+    /** @return el número de restaurante del path, o null si el segmento no es numérico (p.ej. "bulk") */
+    private static Integer parseRestaurant(String segment) {
+        try {
+            return Integer.valueOf(segment);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -2,6 +2,9 @@ package ar.edu.ubp.das.ristorinoapi.config;
 
 import java.util.Arrays;
 
+import ar.edu.ubp.das.ristorinoapi.components.PromotionImages;
+import ar.edu.ubp.das.ristorinoapi.components.RateLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -19,10 +22,18 @@ import org.springframework.web.filter.CorsFilter;
  * de mismo origen (Same-Origin Policy).</p>
  * <p>Si luego se agregan otros orígenes (deploy en otra URL), se deben agregar
  * aquí o usar patrones con {@code setAllowedOriginPatterns}.</p>
+ * <p>Registra además, a continuación del filtro CORS, el filtro de límites de tasa ({@link RateLimitFilter})
+ * sobre los endpoints de promociones y clicks.</p>
  */
 @Configuration
 public class WebConfig {
 
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private PromotionImages promotionImages;
+
     /**
      * Registra el filtro CORS para toda la aplicación.
      *
@@ -47,6 +58,8 @@ public class WebConfig {
                 "X-Requested-With", "Origin", "Content-Type", "Accept", "Authorization"
         ));
         // Si se necesitaran todos los headers: config.addAllowedHeader("*");
+        // Retry-After de las respuestas 429/503 no es un header "simple": hay que exponerlo para que el frontend lo lea
+        config.addExposedHeader("Retry-After");
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", config);
@@ -55,5 +68,16 @@ public class WebConfig {
         bean.setOrder(Ordered.HIGHEST_PRECEDENCE); // asegura que se ejecute antes que otros filtros
         return bean;
     }
-}
 
+    /**
+     * Registra el filtro de límites de tasa. Va después del CORS para que las respuestas 429 lleven
+     * también los headers CORS y el navegador pueda leer el Retry-After.
+     */
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter() {
+        FilterRegistrationBean<RateLimitFilter> bean = new FilterRegistrationBean<>(new RateLimitFilter(rateLimiter, promotionImages::isCached));
+        bean.addUrlPatterns("/api/promotions", "/api/promotions/*");
+        bean.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return bean;
+    }
+}
@@ -1,19 +1,39 @@
 package ar.edu.ubp.das.ristorinoapi.repositories;
 
+import ar.edu.ubp.das.ristorinoapi.beans.ClickKey;
+import ar.edu.ubp.das.ristorinoapi.beans.ClickRequest;
+import ar.edu.ubp.das.ristorinoapi.beans.JournaledClick;
+import ar.edu.ubp.das.ristorinoapi.beans.PendingClick;
+import ar.edu.ubp.das.ristorinoapi.components.DataAccessMetrics;
+import ar.edu.ubp.das.ristorinoapi.components.ForJsonReader;
+import ar.edu.ubp.das.ristorinoapi.components.PendingClickParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
 import org.springframework.stereotype.Repository;
 
+import java.io.IOException;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * Repositorio para registrar clicks sobre contenidos promocionales.
@@ -24,12 +44,42 @@ public class ClickRepository {
 
     private static final Logger log = LoggerFactory.getLogger(ClickRepository.class);
 
+    /** SQL Server admite hasta 2100 parámetros por request; cada click usa 4. */
+    public static final int MAX_CLICKS_PER_BATCH = 500;
+    /** Con la clave de idempotencia del diario cada click usa 6 parámetros. */
+    public static final int MAX_JOURNALED_CLICKS_PER_BATCH = 300;
+
+    // Nombres de procedimiento usados como tag en las métricas
+    private static final String REGISTER_CLICK_PROC = "dbo.usp_registrar_click_contenido_restaurante";
+    private static final String UNNOTIFIED_CLICKS_PROC = "dbo.usp_get_clicks_no_notificados";
+    private static final String CONFIRM_CLICK_PROC = "dbo.usp_confirmar_click_notificado";
+
+    // Invocaciones individuales con la sintaxis de escape JDBC (portable entre drivers)
+    private static final String REGISTER_CLICK_CALL = "{call " + REGISTER_CLICK_PROC + "(?, ?, ?, ?, ?)}";
+    private static final String UNNOTIFIED_CLICKS_CALL = "{call " + UNNOTIFIED_CLICKS_PROC + "(?, ?, ?)}";
+    private static final String UNNOTIFIED_CLICKS_PAGE_CALL = "{call " + UNNOTIFIED_CLICKS_PROC + "(?, ?, ?, ?, ?, ?, ?, ?)}";
+    private static final String CONFIRM_CLICK_CALL = "{call " + CONFIRM_CLICK_PROC + "(?, ?, ?, ?)}";
+    // Claves de idempotencia de los clicks del diario local (db/clicks_diario.sql)
+    private static final String JOURNAL_KEY_EXISTS_SQL = "SELECT 1 FROM dbo.clicks_diario WHERE nro_segmento = ? AND desplazamiento = ?";
+    private static final String JOURNAL_KEY_INSERT_SQL = "INSERT INTO dbo.clicks_diario (nro_segmento, desplazamiento) VALUES (?, ?)";
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private PendingClickParser pendingClickParser;
+
+    @Autowired
+    private DataAccessMetrics metrics;
+
+    // true = los lotes se envían como un único batch T-SQL con varios EXEC (SQL Server);
+    // false = una invocación preparada por elemento sobre la misma conexión (bases sin batches multi-sentencia)
+    @Value("${ristorino.jdbc.multi-statement-batches:true}")
+    private boolean multiStatementBatches;
+
     /**
      * Ejecuta el procedimiento almacenado para registrar un click anónimo.
      * Devuelve un Map con keys "click" y "contenido" mapeadas como objetos.
@@ -46,9 +96,8 @@ public class ClickRepository {
         if (nroRestaurante == null || nroIdioma == null || nroContenido == null) {
             throw new IllegalArgumentException("Parametros requeridos nroRestaurante, nroIdioma y nroContenido no pueden ser null");
         }
-        String sql = "EXEC dbo.usp_registrar_click_contenido_restaurante ?, ?, ?, ?, ?";
-        return jdbcTemplate.query(con -> {
-            var ps = con.prepareStatement(sql);
+        return metrics.recordProcedure(REGISTER_CLICK_PROC, "single", () -> jdbcTemplate.query(con -> {
+            var ps = con.prepareCall(REGISTER_CLICK_CALL);
             ps.setInt(1, nroRestaurante);
             ps.setInt(2, nroIdioma);
             ps.setInt(3, nroContenido);
@@ -79,78 +128,351 @@ public class ClickRepository {
                 fallback.put("error", "No se pudo parsear JSON devuelto: " + ex.getMessage());
                 return fallback;
             }
-        });
+        }));
+    }
+
+
+    /**
+     * Registra varios clicks anónimos en un único round trip: se envía un batch T-SQL con un
+     * {@code EXEC dbo.usp_registrar_click_contenido_restaurante} por click dentro de una transacción con
+     * {@code XACT_ABORT ON}, por lo que ante cualquier error no queda registrado ningún click del lote.
+     * Las respuestas JSON del SP se descartan sin parsear.
+     * <p>Con {@code ristorino.jdbc.multi-statement-batches=false} se ejecuta una invocación por click sobre
+     * la misma conexión, en una transacción local con la misma semántica de todo o nada.</p>
+     * @param clicks clicks a registrar (como máximo {@link #MAX_CLICKS_PER_BATCH})
+     * @return cantidad de clicks registrados
+     */
+    public int registerAnonymousClicks(List<ClickRequest> clicks) {
+        if (clicks.isEmpty()) {
+            return 0;
+        }
+        if (clicks.size() > MAX_CLICKS_PER_BATCH) {
+            throw new IllegalArgumentException("Un lote admite como máximo " + MAX_CLICKS_PER_BATCH + " clicks");
+        }
+        for (ClickRequest c : clicks) {
+            if (c.getNroRestaurante() == null || c.getNroIdioma() == null || c.getNroContenido() == null) {
+                throw new IllegalArgumentException("Parametros requeridos nroRestaurante, nroIdioma y nroContenido no pueden ser null");
+            }
+        }
+        if (!multiStatementBatches) {
+            return registerSequentially(clicks);
+        }
+        StringBuilder sql = new StringBuilder("SET NOCOUNT ON; SET XACT_ABORT ON; BEGIN TRANSACTION;");
+        for (int i = 0; i < clicks.size(); i++) {
+            sql.append(" EXEC dbo.usp_registrar_click_contenido_restaurante ?, ?, ?, ?, NULL;");
+        }
+        sql.append(" COMMIT TRANSACTION;");
+        metrics.recordProcedure(REGISTER_CLICK_PROC, "batch", () -> jdbcTemplate.execute(con -> {
+            var ps = con.prepareStatement(sql.toString());
+            int idx = 1;
+            for (ClickRequest c : clicks) {
+                ps.setInt(idx++, c.getNroRestaurante());
+                ps.setInt(idx++, c.getNroIdioma());
+                ps.setInt(idx++, c.getNroContenido());
+                if (c.getFechaRegistro() != null) {
+                    ps.setTimestamp(idx++, Timestamp.valueOf(c.getFechaRegistro()));
+                } else {
+                    ps.setNull(idx++, Types.TIMESTAMP);
+                }
+            }
+            return ps;
+        }, (PreparedStatementCallback<Void>) ps -> {
+            // Consumir todos los resultados: los errores de cualquier EXEC se reportan al recorrerlos
+            boolean isResultSet = ps.execute();
+            while (isResultSet || ps.getUpdateCount() != -1) {
+                isResultSet = ps.getMoreResults();
+            }
+            return null;
+        }));
+        return clicks.size();
+    }
+
+    /**
+     * Registra el lote con una invocación preparada por click, dentro de una transacción local.
+     */
+    private int registerSequentially(List<ClickRequest> clicks) {
+        metrics.recordProcedure(REGISTER_CLICK_PROC, "batch", () -> jdbcTemplate.execute((ConnectionCallback<Void>) con ->
+                inLocalTransaction(con, () -> {
+                    try (CallableStatement cs = con.prepareCall(REGISTER_CLICK_CALL)) {
+                        for (ClickRequest c : clicks) {
+                            executeRegister(cs, c);
+                        }
+                    }
+                    return null;
+                })));
+        return clicks.size();
+    }
+
+    /**
+     * Registra clicks del diario local de forma idempotente: en la misma transacción que cada click se inserta su
+     * posición en el diario en {@code dbo.clicks_diario}, y un click cuya posición ya está en la tabla se saltea.
+     * Así un lote con resultado incierto (conexión caída durante el COMMIT, caída del proceso antes de confirmar
+     * el diario) se puede volver a enviar sin duplicar clicks. Requiere la tabla de {@code db/clicks_diario.sql}.
+     * <p>Misma semántica de todo o nada que {@link #registerAnonymousClicks}.</p>
+     * @param clicks clicks a registrar (como máximo {@link #MAX_JOURNALED_CLICKS_PER_BATCH})
+     * @return cantidad de clicks registrados por esta llamada (sin los que ya estaban registrados)
+     */
+    public int registerJournaledClicks(List<JournaledClick> clicks) {
+        if (clicks.isEmpty()) {
+            return 0;
+        }
+        if (clicks.size() > MAX_JOURNALED_CLICKS_PER_BATCH) {
+            throw new IllegalArgumentException("Un lote del diario admite como máximo " + MAX_JOURNALED_CLICKS_PER_BATCH + " clicks");
+        }
+        for (JournaledClick j : clicks) {
+            ClickRequest c = j.click();
+            if (c.getNroRestaurante() == null || c.getNroIdioma() == null || c.getNroContenido() == null) {
+                throw new IllegalArgumentException("Parametros requeridos nroRestaurante, nroIdioma y nroContenido no pueden ser null");
+            }
+        }
+        if (!multiStatementBatches) {
+            return registerJournaledSequentially(clicks);
+        }
+        StringBuilder sql = new StringBuilder("SET NOCOUNT ON; SET XACT_ABORT ON;"
+                + " DECLARE @seg BIGINT, @off INT, @n INT = 0; BEGIN TRANSACTION;");
+        for (int i = 0; i < clicks.size(); i++) {
+            sql.append(" SET @seg = ?; SET @off = ?;"
+                    + " IF NOT EXISTS (SELECT 1 FROM dbo.clicks_diario WITH (UPDLOCK, HOLDLOCK)"
+                    + " WHERE nro_segmento = @seg AND desplazamiento = @off) BEGIN"
+                    + " INSERT INTO dbo.clicks_diario (nro_segmento, desplazamiento) VALUES (@seg, @off);"
+                    + " EXEC dbo.usp_registrar_click_contenido_restaurante ?, ?, ?, ?, NULL; SET @n = @n + 1; END");
+        }
+        sql.append(" COMMIT TRANSACTION; SELECT @n;");
+        return metrics.recordProcedure(REGISTER_CLICK_PROC, "journal", () -> jdbcTemplate.execute(con -> {
+            var ps = con.prepareStatement(sql.toString());
+            int idx = 1;
+            for (JournaledClick j : clicks) {
+                ps.setLong(idx++, j.nroSegmento());
+                ps.setInt(idx++, j.desplazamiento());
+                ClickRequest c = j.click();
+                ps.setInt(idx++, c.getNroRestaurante());
+                ps.setInt(idx++, c.getNroIdioma());
+                ps.setInt(idx++, c.getNroContenido());
+                if (c.getFechaRegistro() != null) {
+                    ps.setTimestamp(idx++, Timestamp.valueOf(c.getFechaRegistro()));
+                } else {
+                    ps.setNull(idx++, Types.TIMESTAMP);
+                }
+            }
+            return ps;
+        }, (PreparedStatementCallback<Integer>) ps -> {
+            // El último result set es el SELECT @n; los anteriores son las respuestas JSON del SP
+            int registered = 0;
+            boolean isResultSet = ps.execute();
+            while (isResultSet || ps.getUpdateCount() != -1) {
+                if (isResultSet) {
+                    try (ResultSet rs = ps.getResultSet()) {
+                        if (rs.next() && rs.getObject(1) instanceof Number n) {
+                            registered = n.intValue();
+                        }
+                    }
+                }
+                isResultSet = ps.getMoreResults();
+            }
+            return registered;
+        }));
+    }
+
+    /**
+     * Variante de {@link #registerJournaledClicks} con una consulta por click dentro de una transacción local.
+     */
+    private int registerJournaledSequentially(List<JournaledClick> clicks) {
+        return metrics.recordProcedure(REGISTER_CLICK_PROC, "journal", () -> jdbcTemplate.execute((ConnectionCallback<Integer>) con ->
+                inLocalTransaction(con, () -> {
+                    int registered = 0;
+                    try (PreparedStatement exists = con.prepareStatement(JOURNAL_KEY_EXISTS_SQL);
+                         PreparedStatement insert = con.prepareStatement(JOURNAL_KEY_INSERT_SQL);
+                         CallableStatement cs = con.prepareCall(REGISTER_CLICK_CALL)) {
+                        for (JournaledClick j : clicks) {
+                            exists.setLong(1, j.nroSegmento());
+                            exists.setInt(2, j.desplazamiento());
+                            try (ResultSet rs = exists.executeQuery()) {
+                                if (rs.next()) {
+                                    continue;
+                                }
+                            }
+                            insert.setLong(1, j.nroSegmento());
+                            insert.setInt(2, j.desplazamiento());
+                            insert.executeUpdate();
+                            executeRegister(cs, j.click());
+                            registered++;
+                        }
+                    }
+                    return registered;
+                })));
+    }
+
+    /**
+     * Ejecuta el SP de registro para un click anónimo, descartando su respuesta.
+     */
+    private static void executeRegister(CallableStatement cs, ClickRequest c) throws SQLException {
+        cs.setInt(1, c.getNroRestaurante());
+        cs.setInt(2, c.getNroIdioma());
+        cs.setInt(3, c.getNroContenido());
+        if (c.getFechaRegistro() != null) {
+            cs.setTimestamp(4, Timestamp.valueOf(c.getFechaRegistro()));
+        } else {
+            cs.setNull(4, Types.TIMESTAMP);
+        }
+        cs.setNull(5, Types.INTEGER);
+        boolean isResultSet = cs.execute();
+        while (isResultSet || cs.getUpdateCount() != -1) {
+            isResultSet = cs.getMoreResults();
+        }
     }
 
+    /**
+     * Ejecuta {@code work} en una transacción local sobre {@code con} y restaura el auto-commit.
+     */
+    private static <T> T inLocalTransaction(Connection con, TransactionWork<T> work) throws SQLException {
+        boolean autoCommit = con.getAutoCommit();
+        con.setAutoCommit(false);
+        try {
+            T result = work.run();
+            con.commit();
+            return result;
+        } catch (Throwable e) {
+            // Cualquier falla (también RuntimeException o Error) deshace el lote antes de restaurar el
+            // auto-commit, que de otro modo confirmaría los clicks ya ejecutados
+            try {
+                con.rollback();
+            } catch (SQLException rollbackError) {
+                e.addSuppressed(rollbackError);
+            }
+            throw e;
+        } finally {
+            con.setAutoCommit(autoCommit);
+        }
+    }
+
+    /** Trabajo JDBC ejecutado dentro de {@link #inLocalTransaction}. */
+    @FunctionalInterface
+    private interface TransactionWork<T> {
+        T run() throws SQLException;
+    }
 
     /**
      * Obtiene todos los clicks no notificados (notificado = 0) opcionalmente filtrando por restaurante, idioma o contenido.
-     * Devuelve lista de mapas con las claves combinadas de 'click' y 'contenido'.
      * Cada elemento original del procedimiento trae { click: {...}, contenido: {...} } pero, por FOR JSON anidado,
-     * a menudo vienen como strings JSON y hay que parsearlos.
+     * a menudo vienen como strings JSON; {@link PendingClickParser} combina ambos en un {@link PendingClick}.
+     * <p>El JSON se parsea en streaming sobre los fragmentos del result set, sin concatenarlo en un String.
+     * Para backlogs grandes usar {@link #forEachUnnotifiedClickPage}.</p>
      */
-    public List<Map<String, Object>> getUnnotifiedClicks(Integer nroRestaurante, Integer nroIdioma, Integer nroContenido) {
-        String sql = "EXEC dbo.usp_get_clicks_no_notificados ?, ?, ?";
-        String json = jdbcTemplate.query(con -> {
-            var ps = con.prepareStatement(sql);
+    public List<PendingClick> getUnnotifiedClicks(Integer nroRestaurante, Integer nroIdioma, Integer nroContenido) {
+        return queryUnnotifiedClicks(UNNOTIFIED_CLICKS_CALL, ps -> {
             if (nroRestaurante != null) ps.setInt(1, nroRestaurante); else ps.setNull(1, Types.INTEGER);
             if (nroIdioma != null) ps.setInt(2, nroIdioma); else ps.setNull(2, Types.INTEGER);
             if (nroContenido != null) ps.setInt(3, nroContenido); else ps.setNull(3, Types.INTEGER);
-            return ps;
-        }, rs -> {
-            StringBuilder sb = new StringBuilder();
-            while (rs.next()) {
-                Object first = rs.getObject(1);
-                if (first != null) sb.append(first);
-            }
-            return sb.toString();
         });
-        if (json == null || json.isEmpty()) {
-            return List.of();
+    }
+
+    /**
+     * Recorre los clicks no notificados por páginas con paginación keyset sobre la clave completa del click
+     * (restaurante, idioma, contenido, nro_click; ver {@link ClickKey#KEYSET_ORDER}): {@code nro_click} sólo es
+     * único dentro de cada contenido, por lo que usarlo solo como cursor saltearía filas entre páginas. Cada
+     * página es una ejecución independiente del SP ({@code @ultimo_nro_restaurante}, {@code @ultimo_nro_idioma},
+     * {@code @ultimo_nro_contenido}, {@code @ultimo_nro_click}, {@code @tamanio_pagina}) que devuelve los
+     * siguientes {@code pageSize} clicks posteriores a la última clave procesada, en ese orden.
+     * La conexión se libera antes de invocar al consumidor, y la memoria usada queda acotada por el tamaño de página.
+     * <p>Con {@code pageSize <= 0} se usa la invocación original del SP (sin paginar) y se entrega una única página.</p>
+     * @param after clave desde la que continuar (exclusive), p.ej. la última procesada por una ejecución anterior;
+     *              null = desde el principio
+     * @param pageConsumer recibe cada página (no vacía) de clicks, igual que {@link #getUnnotifiedClicks};
+     *                     si retorna false no se consultan más páginas
+     * @return cantidad total de clicks entregados
+     */
+    public int forEachUnnotifiedClickPage(Integer nroRestaurante, Integer nroIdioma, Integer nroContenido,
+                                          ClickKey after, int pageSize, Predicate<List<PendingClick>> pageConsumer) {
+        if (pageSize <= 0) {
+            List<PendingClick> all = getUnnotifiedClicks(nroRestaurante, nroIdioma, nroContenido);
+            if (after != null) {
+                all = all.stream().filter(c -> ClickKey.KEYSET_ORDER.compare(c.key(), after) > 0).toList();
+            }
+            if (!all.isEmpty()) {
+                pageConsumer.test(all);
+            }
+            return all.size();
         }
-        try {
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> raw = objectMapper.readValue(json, List.class);
-            List<Map<String, Object>> flattened = new ArrayList<>();
-            for (Map<String, Object> entry : raw) {
-                Map<String, Object> flat = new HashMap<>();
-                Object clickObj = entry.get("click");
-                Object contenidoObj = entry.get("contenido");
-
-                // click puede venir como Map o como String JSON
-                if (clickObj instanceof Map<?, ?> clickMap) {
-                    clickMap.forEach((k, v) -> flat.put(String.valueOf(k), v));
-                } else if (clickObj instanceof String clickJson && !clickJson.isBlank()) {
-                    try {
-                        @SuppressWarnings("unchecked") Map<String, Object> clickParsed = objectMapper.readValue(clickJson, Map.class);
-                        clickParsed.forEach((k, v) -> flat.put(String.valueOf(k), v));
-                    } catch (Exception ex) {
-                        log.warn("No se pudo parsear 'click' embebido: {}", ex.getMessage());
-                    }
-                }
+        int total = 0;
+        ClickKey last = after;
+        while (true) {
+            ClickKey from = last;
+            List<PendingClick> page = queryUnnotifiedClicks(UNNOTIFIED_CLICKS_PAGE_CALL, ps -> {
+                setInteger(ps, 1, nroRestaurante);
+                setInteger(ps, 2, nroIdioma);
+                setInteger(ps, 3, nroContenido);
+                setInteger(ps, 4, from == null ? null : from.nroRestaurante());
+                setInteger(ps, 5, from == null ? null : from.nroIdioma());
+                setInteger(ps, 6, from == null ? null : from.nroContenido());
+                setInteger(ps, 7, from == null ? null : from.nroClick());
+                ps.setInt(8, pageSize);
+            });
+            if (page.isEmpty()) {
+                break;
+            }
+            ClickKey pageLast = page.stream().map(PendingClick::key).max(ClickKey.KEYSET_ORDER).orElseThrow();
+            boolean more = pageConsumer.test(page);
+            total += page.size();
+            // Sin avance del cursor (SP que ignora el keyset) se corta para no repetir páginas
+            if (!more || page.size() < pageSize || (from != null && ClickKey.KEYSET_ORDER.compare(pageLast, from) <= 0)) {
+                break;
+            }
+            last = pageLast;
+        }
+        return total;
+    }
 
-                // contenido puede venir como Map o como String JSON
-                if (contenidoObj instanceof Map<?, ?> contMap) {
-                    contMap.forEach((k, v) -> flat.put(String.valueOf(k), v));
-                } else if (contenidoObj instanceof String contJson && !contJson.isBlank()) {
-                    try {
-                        @SuppressWarnings("unchecked") Map<String, Object> contParsed = objectMapper.readValue(contJson, Map.class);
-                        contParsed.forEach((k, v) -> flat.put(String.valueOf(k), v));
-                    } catch (Exception ex) {
-                        log.warn("No se pudo parsear 'contenido' embebido: {}", ex.getMessage());
-                    }
-                }
+    /**
+     * Ejecuta la consulta de clicks no notificados y parsea el FOR JSON en streaming.
+     */
+    private List<PendingClick> queryUnnotifiedClicks(String sql, StatementBinder binder) {
+        return metrics.recordProcedure(UNNOTIFIED_CLICKS_PROC, "streaming", () -> jdbcTemplate.execute(con -> {
+            var ps = con.prepareCall(sql);
+            binder.bind(ps);
+            return ps;
+        }, (PreparedStatementCallback<List<PendingClick>>) ps -> {
+            boolean isResultSet = ps.execute();
+            while (!isResultSet && ps.getUpdateCount() != -1) {
+                isResultSet = ps.getMoreResults();
+            }
+            if (!isResultSet) {
+                return List.of();
+            }
+            try (ResultSet rs = ps.getResultSet(); ForJsonReader json = new ForJsonReader(rs)) {
+                List<PendingClick> clicks = parseUnnotifiedClicks(json);
+                metrics.recordForJson(UNNOTIFIED_CLICKS_PROC, json.getFragmentCount(), json.getCharCount());
+                return clicks;
+            }
+        }));
+    }
 
-                flattened.add(flat);
+    /**
+     * Parsea el arreglo de clicks elemento a elemento. Ante un JSON inválido se conservan los clicks ya
+     * parseados y se registra el error.
+     */
+    private List<PendingClick> parseUnnotifiedClicks(ForJsonReader json) {
+        List<PendingClick> clicks = new ArrayList<>();
+        try {
+            if (!json.isEmpty()) {
+                metrics.recordParse("ClickRepository.getUnnotifiedClicks", () -> pendingClickParser.parse(json, clicks::add));
             }
-            return flattened;
-        } catch (Exception e) {
-            log.error("Error parseando JSON de clicks no notificados: {}", e.getMessage());
-            Map<String, Object> fallback = new HashMap<>();
-            fallback.put("raw", json);
-            fallback.put("error", e.getMessage());
-            return List.of(fallback);
+        } catch (IOException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw new IllegalStateException("Error leyendo clicks no notificados: " + e.getMessage(), e);
+            }
+            log.error("Error parseando JSON de clicks no notificados (se conservan {}): {}", clicks.size(), e.getMessage());
         }
+        return clicks;
+    }
+
+    private static void setInteger(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value != null) ps.setInt(index, value); else ps.setNull(index, Types.INTEGER);
+    }
+
+    /** Enlaza los parámetros de un PreparedStatement. */
+    @FunctionalInterface
+    private interface StatementBinder {
+        void bind(PreparedStatement ps) throws SQLException;
     }
 
     /**
@@ -158,9 +480,8 @@ public class ClickRepository {
      * Devuelve true si se actualizó (@@ROWCOUNT = 1), false si no había fila pendiente.
      */
     public boolean confirmClickNotified(Integer nroRestaurante, Integer nroIdioma, Integer nroContenido, Integer nroClick) {
-        String sql = "EXEC dbo.usp_confirmar_click_notificado ?, ?, ?, ?";
-        String json = jdbcTemplate.query(con -> {
-            var ps = con.prepareStatement(sql);
+        String json = metrics.recordProcedure(CONFIRM_CLICK_PROC, "single", () -> jdbcTemplate.query(con -> {
+            var ps = con.prepareCall(CONFIRM_CLICK_CALL);
             ps.setInt(1, nroRestaurante);
             ps.setInt(2, nroIdioma);
             ps.setInt(3, nroContenido);
@@ -173,7 +494,117 @@ public class ClickRepository {
                 if (first != null) sb.append(first);
             }
             return sb.toString();
-        });
+        }));
+        return isUpdated(json);
+    }
+
+    /**
+     * Marca varios clicks como notificados en un round trip por cada {@link #MAX_CLICKS_PER_BATCH} claves:
+     * se envía un batch T-SQL con un {@code EXEC dbo.usp_confirmar_click_notificado} por clave y se lee
+     * el {@code actualizado} de cada respuesta, en el mismo orden.
+     * <p>Si un EXEC falla, se devuelven las claves confirmadas hasta ese punto; el resto queda pendiente
+     * y se volverá a notificar en la próxima ejecución.</p>
+     * @param keys claves de los clicks a confirmar
+     * @return subconjunto de claves efectivamente actualizadas (@@ROWCOUNT = 1)
+     */
+    public Set<ClickKey> confirmClicksNotified(Collection<ClickKey> keys) {
+        List<ClickKey> all = new ArrayList<>(keys);
+        Set<ClickKey> updated = new HashSet<>();
+        for (int from = 0; from < all.size(); from += MAX_CLICKS_PER_BATCH) {
+            List<ClickKey> chunk = all.subList(from, Math.min(all.size(), from + MAX_CLICKS_PER_BATCH));
+            if (!confirmChunk(chunk, updated)) {
+                break;
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Confirma un bloque de claves; agrega a {@code updated} las actualizadas.
+     * @return false si el batch se interrumpió por un error
+     */
+    private boolean confirmChunk(List<ClickKey> chunk, Set<ClickKey> updated) {
+        if (!multiStatementBatches) {
+            return confirmSequentially(chunk, updated);
+        }
+        StringBuilder sql = new StringBuilder("SET NOCOUNT ON;");
+        for (int i = 0; i < chunk.size(); i++) {
+            sql.append(" EXEC dbo.usp_confirmar_click_notificado ?, ?, ?, ?;");
+        }
+        Boolean completed = metrics.recordProcedure(CONFIRM_CLICK_PROC, "batch", () -> jdbcTemplate.execute(con -> {
+            var ps = con.prepareStatement(sql.toString());
+            int idx = 1;
+            for (ClickKey k : chunk) {
+                ps.setInt(idx++, k.nroRestaurante());
+                ps.setInt(idx++, k.nroIdioma());
+                ps.setInt(idx++, k.nroContenido());
+                ps.setInt(idx++, k.nroClick());
+            }
+            return ps;
+        }, (PreparedStatementCallback<Boolean>) ps -> {
+            int index = 0;
+            try {
+                boolean isResultSet = ps.execute();
+                while (index < chunk.size() && (isResultSet || ps.getUpdateCount() != -1)) {
+                    if (isResultSet) {
+                        try (ResultSet rs = ps.getResultSet()) {
+                            if (isUpdated(readJson(rs))) {
+                                updated.add(chunk.get(index));
+                            }
+                        }
+                        index++;
+                    }
+                    isResultSet = ps.getMoreResults();
+                }
+                return true;
+            } catch (SQLException e) {
+                log.error("Confirmación en lote interrumpida en la clave {} de {}: {}", index + 1, chunk.size(), e.getMessage());
+                return false;
+            }
+        }));
+        return Boolean.TRUE.equals(completed);
+    }
+
+    /**
+     * Confirma el bloque con una invocación preparada por clave sobre la misma conexión.
+     * @return false si se interrumpió por un error
+     */
+    private boolean confirmSequentially(List<ClickKey> chunk, Set<ClickKey> updated) {
+        Boolean completed = metrics.recordProcedure(CONFIRM_CLICK_PROC, "batch", () -> jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            int index = 0;
+            try (CallableStatement cs = con.prepareCall(CONFIRM_CLICK_CALL)) {
+                for (ClickKey k : chunk) {
+                    cs.setInt(1, k.nroRestaurante());
+                    cs.setInt(2, k.nroIdioma());
+                    cs.setInt(3, k.nroContenido());
+                    cs.setInt(4, k.nroClick());
+                    try (ResultSet rs = cs.executeQuery()) {
+                        if (isUpdated(readJson(rs))) {
+                            updated.add(k);
+                        }
+                    }
+                    index++;
+                }
+                return true;
+            } catch (SQLException | RuntimeException e) {
+                log.error("Confirmación en lote interrumpida en la clave {} de {}: {}", index + 1, chunk.size(), e.getMessage());
+                return false;
+            }
+        }));
+        return Boolean.TRUE.equals(completed);
+    }
+
+    private static String readJson(ResultSet rs) throws SQLException {
+        StringBuilder sb = new StringBuilder();
+        while (rs.next()) {
+            Object first = rs.getObject(1);
+            if (first != null) sb.append(first);
+        }
+        return sb.toString();
+    }
+
+    /** Interpreta la respuesta JSON del SP de confirmación ({"actualizado": n}). */
+    private boolean isUpdated(String json) {
         if (json == null || json.isEmpty()) return false;
         try {
             @SuppressWarnings("unchecked") Map<String,Object> parsed = objectMapper.readValue(json, Map.class);
@@ -1,25 +1,34 @@
 package ar.edu.ubp.das.ristorinoapi.repositories;
 
+import ar.edu.ubp.das.ristorinoapi.beans.PromotionContent;
 import ar.edu.ubp.das.ristorinoapi.beans.RestaurantResponse;
-import com.google.gson.Gson;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.SqlParameter;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Types;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 
+import ar.edu.ubp.das.ristorinoapi.components.DataAccessMetrics;
+import ar.edu.ubp.das.ristorinoapi.components.PromotionCache;
+import ar.edu.ubp.das.ristorinoapi.components.PromotionImages;
+import ar.edu.ubp.das.ristorinoapi.components.PromotionSnapshot;
+import ar.edu.ubp.das.ristorinoapi.components.RestaurantResponseReader;
 import ar.edu.ubp.das.ristorinoapi.components.SimpleJdbcCallFactory;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 
 /**
  * Repositorio encargado de obtener las promociones de un restaurante vía SP SQL Server.
  * El procedimiento {@code dbo.usp_get_promociones_restaurante} devuelve un JSON (FOR JSON PATH)
- * que se parsea y normaliza para mapearlo a {@link RestaurantResponse}.
+ * que se deserializa en streaming a {@link RestaurantResponse}.
+ * <p>Los resultados se sirven a través de {@link PromotionCache}; sólo ante un miss (o entrada expirada)
+ * se ejecuta el SP.</p>
  */
 @Repository
 public class PromotionRepository {
@@ -29,7 +38,31 @@ public class PromotionRepository {
     @Autowired
     private SimpleJdbcCallFactory simpleJdbcCallFactory;
 
-    private final Gson gson = new Gson();
+    @Autowired
+    private PromotionCache promotionCache;
+
+    @Autowired
+    private RestaurantResponseReader restaurantResponseReader;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DataAccessMetrics metrics;
+
+    @Autowired
+    private PromotionImages promotionImages;
+
+    /**
+     * Registra el SP con sus parámetros declarados para que se compile una única vez.
+     */
+    @PostConstruct
+    void registerProcedures() {
+        simpleJdbcCallFactory.register("usp_get_promociones_restaurante", "dbo",
+                new SqlParameter("nro_restaurante", Types.INTEGER),
+                new SqlParameter("soloVigentes", Types.BIT),
+                new SqlParameter("nro_sucursal", Types.INTEGER));
+    }
 
     /**
      * Obtiene promociones para el restaurante default (id=1) sin filtros.
@@ -41,13 +74,104 @@ public class PromotionRepository {
     }
 
     /**
-     * Obtiene promociones invocando el SP con parámetros.
+     * Obtiene promociones desde el cache o, si no están cacheadas, invocando el SP con parámetros.
      * @param nroRestaurante id del restaurante (obligatorio)
      * @param soloVigentes true para filtrar solo vigentes, null equivale a false
      * @param nroSucursal sucursal específica o null para todas/globales
-     * @return respuesta mapeada a {@link RestaurantResponse}
+     * @return respuesta mapeada a {@link RestaurantResponse} (compartida: no modificar)
      */
     public RestaurantResponse getPromotionsWithRestaurant(Integer nroRestaurante, Boolean soloVigentes, Integer nroSucursal) {
+        return getPromotionsWithRestaurant(nroRestaurante, soloVigentes, nroSucursal, 0);
+    }
+
+    /**
+     * Igual que {@link #getPromotionsWithRestaurant(Integer, Boolean, Integer)} pero, si hay que ejecutar el SP,
+     * lo hace con un tiempo máximo de ejecución en la base.
+     * @param queryTimeoutSeconds timeout del SP en segundos (0 = sin timeout propio)
+     */
+    public RestaurantResponse getPromotionsWithRestaurant(Integer nroRestaurante, Boolean soloVigentes, Integer nroSucursal,
+                                                          int queryTimeoutSeconds) {
+        return cachedSnapshot(nroRestaurante, soloVigentes, nroSucursal, queryTimeoutSeconds).response();
+    }
+
+    /**
+     * Igual que {@link #getPromotionsWithRestaurant(Integer, Boolean, Integer)} pero devuelve también el JSON
+     * serializado y su ETag, tal como quedan en el cache.
+     * @return snapshot de las promociones (compartido: no modificar)
+     */
+    public PromotionSnapshot getPromotionSnapshot(Integer nroRestaurante, Boolean soloVigentes, Integer nroSucursal) {
+        return cachedSnapshot(nroRestaurante, soloVigentes, nroSucursal, 0);
+    }
+
+    /**
+     * Variante de {@link #getPromotionSnapshot(Integer, Boolean, Integer)} con las imágenes embebidas reemplazadas
+     * por URLs del endpoint de imágenes (ver {@link PromotionImages}). Se arma a partir del snapshot con imágenes
+     * embebidas, sin volver a ejecutar el SP, y se cachea aparte.
+     * @param imageUrls false equivale a {@link #getPromotionSnapshot(Integer, Boolean, Integer)}
+     * @return snapshot de las promociones (compartido: no modificar)
+     */
+    public PromotionSnapshot getPromotionSnapshot(Integer nroRestaurante, Boolean soloVigentes, Integer nroSucursal,
+                                                  boolean imageUrls) {
+        if (!imageUrls) {
+            return getPromotionSnapshot(nroRestaurante, soloVigentes, nroSucursal);
+        }
+        return promotionCache.get(nroRestaurante, soloVigentes, nroSucursal, true, () -> {
+            PromotionSnapshot inline = getPromotionSnapshot(nroRestaurante, soloVigentes, nroSucursal);
+            RestaurantResponse withUrls = promotionImages.withImageUrls(inline.response());
+            return withUrls == inline.response() ? inline : snapshot(withUrls);
+        });
+    }
+
+    /**
+     * Valor actual de {@code imagen_promocional} de un contenido, buscado en las promociones cacheadas del
+     * restaurante (todas las sucursales, vigentes o no).
+     * @return el valor, o null si el contenido no existe
+     */
+    public String getPromotionImage(Integer nroRestaurante, Integer nroIdioma, Integer nroContenido) {
+        List<PromotionContent> contenidos = getPromotionsWithRestaurant(nroRestaurante, null, null).getContenidos();
+        if (contenidos == null) {
+            return null;
+        }
+        return contenidos.stream()
+                .filter(c -> Objects.equals(c.getNro_idioma(), nroIdioma) && Objects.equals(c.getNro_contenido(), nroContenido))
+                .map(PromotionContent::getImagen_promocional)
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Descarta las promociones cacheadas de un restaurante, de modo que la próxima consulta ejecute el SP.
+     * @param nroRestaurante id del restaurante
+     * @return cantidad de variantes (vigencia/sucursal) invalidadas
+     */
+    public int invalidatePromotions(Integer nroRestaurante) {
+        return promotionCache.invalidateRestaurant(nroRestaurante);
+    }
+
+    private PromotionSnapshot cachedSnapshot(Integer nroRestaurante, Boolean soloVigentes, Integer nroSucursal,
+                                             int queryTimeoutSeconds) {
+        return promotionCache.get(nroRestaurante, soloVigentes, nroSucursal,
+                () -> snapshot(loadPromotionsWithRestaurant(nroRestaurante, soloVigentes, nroSucursal, queryTimeoutSeconds)));
+    }
+
+    /**
+     * Serializa la respuesta una única vez con el mismo ObjectMapper que usa Spring MVC.
+     */
+    private PromotionSnapshot snapshot(RestaurantResponse response) {
+        try {
+            return PromotionSnapshot.of(response, objectMapper.writeValueAsBytes(response));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error al serializar promociones", e);
+        }
+    }
+
+    /**
+     * Ejecuta el SP y mapea su resultado, sin pasar por el cache.
+     * <p>El FOR JSON se deserializa en streaming con {@link RestaurantResponseReader} directamente sobre los
+     * fragmentos del result set, sin concatenarlos ni construir un árbol intermedio.</p>
+     */
+    private RestaurantResponse loadPromotionsWithRestaurant(Integer nroRestaurante, Boolean soloVigentes, Integer nroSucursal,
+                                                            int queryTimeoutSeconds) {
         try {
             logger.info("Ejecutando SP: dbo.usp_get_promociones_restaurante");
 
@@ -56,60 +180,21 @@ public class PromotionRepository {
                     .addValue("soloVigentes", soloVigentes == null ? 0 : (soloVigentes ? 1 : 0))
                     .addValue("nro_sucursal", nroSucursal);
 
-            // Ejecutar y recuperar todo (incluye result sets)
-            Map<String, Object> out = simpleJdbcCallFactory.executeReturningEverything(
+            RestaurantResponse restaurantResponse = simpleJdbcCallFactory.executeStreamingJson(
                     "usp_get_promociones_restaurante",
                     "dbo",
-                    params
-            );
-
-            // SQL Server suele devolver el FOR JSON en el primer result set como filas que pueden venir fragmentadas.
-            // Clave convencional: "#result-set-1"
-            Object rs1 = out.get("#result-set-1");
-            if (!(rs1 instanceof List)) {
-                throw new RuntimeException("El procedimiento no devolvió el result set esperado (#result-set-1)");
-            }
-
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> rows = (List<Map<String, Object>>) rs1;
-            if (rows.isEmpty()) {
-                throw new RuntimeException("No se obtuvieron resultados del procedimiento");
-            }
-
-            // Concatenar los fragmentos (cada fila trae un único valor: el trozo de JSON)
-            StringBuilder sb = new StringBuilder();
-            for (Map<String, Object> row : rows) {
-                // Tomamos el primer valor de la fila (columna sin alias en el SP)
-                Object firstVal = row.values().stream().findFirst().orElse(null);
-                if (firstVal != null) {
-                    sb.append(String.valueOf(firstVal));
-                }
-            }
-
-            String jsonResult = sb.toString();
-            logger.debug("JSON obtenido (longitud={}): {}", jsonResult.length(), jsonResult.length() < 2048 ? jsonResult : "<omitted>");
-
-            if (jsonResult.isEmpty()) {
-                throw new RuntimeException("El JSON devuelto está vacío");
-            }
-
-            // Normalizar JSON cuando 'contenidos' viene doblemente serializado (string)
-            JsonObject root = JsonParser.parseString(jsonResult).getAsJsonObject();
-            if (root.has("contenidos")) {
-                JsonElement contenidos = root.get("contenidos");
-                if (contenidos.isJsonPrimitive() && contenidos.getAsJsonPrimitive().isString()) {
-                    try {
-                        JsonElement parsed = JsonParser.parseString(contenidos.getAsString());
-                        root.add("contenidos", parsed);
-                        logger.debug("Campo 'contenidos' normalizado desde string JSON a arreglo/objeto JSON.");
-                    } catch (Exception ex) {
-                        logger.warn("No se pudo parsear 'contenidos' como JSON embebido: {}", ex.getMessage());
+                    params,
+                    queryTimeoutSeconds,
+                    json -> {
+                        if (json.isEmpty()) {
+                            throw new RuntimeException("No se obtuvieron resultados del procedimiento");
+                        }
+                        RestaurantResponse parsed = metrics.recordParse("PromotionRepository.getPromotionsWithRestaurant",
+                                () -> restaurantResponseReader.read(json));
+                        logger.debug("JSON obtenido (longitud={}, fragmentos={})", json.getCharCount(), json.getFragmentCount());
+                        return parsed;
                     }
-                }
-            }
-
-            // Parsear a objeto usando Gson
-            RestaurantResponse restaurantResponse = gson.fromJson(root, RestaurantResponse.class);
+            );
 
             if (restaurantResponse == null) {
                 throw new RuntimeException("No se pudo parsear el JSON a RestaurantResponse");
@@ -129,4 +214,3 @@ public class PromotionRepository {
         }
     }
 }
-
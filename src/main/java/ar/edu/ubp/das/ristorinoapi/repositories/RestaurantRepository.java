@@ -1,16 +1,27 @@
 package ar.edu.ubp.das.ristorinoapi.repositories;
 
+import ar.edu.ubp.das.ristorinoapi.components.DataAccessMetrics;
+import ar.edu.ubp.das.ristorinoapi.components.ForJsonReader;
+import ar.edu.ubp.das.ristorinoapi.components.JsonProjection;
 import ar.edu.ubp.das.ristorinoapi.components.SimpleJdbcCallFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.SqlParameter;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.stereotype.Repository;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.Types;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * Repositorio para obtener el detalle completo de un restaurante vía SP dbo.usp_get_restaurante_detalle.
@@ -26,6 +37,19 @@ public class RestaurantRepository {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private DataAccessMetrics metrics;
+
+    /**
+     * Registra el SP con sus parámetros declarados para que se compile una única vez.
+     */
+    @PostConstruct
+    void registerProcedures() {
+        simpleJdbcCallFactory.register("usp_get_restaurante_detalle", "dbo",
+                new SqlParameter("nro_restaurante", Types.INTEGER),
+                new SqlParameter("nro_idioma", Types.INTEGER));
+    }
+
     /**
      * Ejecuta el SP y devuelve el JSON anidado como JsonNode.
      * @param nroRestaurante restaurante requerido
@@ -66,11 +90,74 @@ public class RestaurantRepository {
             if (json.isEmpty()) {
                 return null;
             }
-            return objectMapper.readTree(json);
+            return metrics.recordParse("RestaurantRepository.getRestaurantDetails", () -> objectMapper.readTree(json));
         } catch (Exception e) {
             log.error("Error obteniendo detalle de restaurante: {}", e.getMessage(), e);
             throw new RuntimeException("Error al obtener detalle del restaurante", e);
         }
     }
-}
 
+    /**
+     * Ejecuta el SP y copia el JSON devuelto directamente al {@link Writer}, fragmento a fragmento,
+     * sin construir el String completo ni el árbol {@link JsonNode}.
+     * @param nroRestaurante restaurante requerido
+     * @param nroIdioma idioma preferido (si es null, usa 1)
+     * @param validate true para validar la sintaxis JSON mientras se copia (token a token)
+     * @param projection campos a incluir (null = detalle completo); se aplica token a token mientras se copia,
+     *                   por lo que también valida la sintaxis
+     * @param writerSupplier proveedor del destino; sólo se invoca si el SP devolvió contenido
+     * @return true si se escribió el detalle, false si no hubo resultados
+     */
+    public boolean writeRestaurantDetails(Integer nroRestaurante, Integer nroIdioma, boolean validate,
+                                          JsonProjection projection, Supplier<Writer> writerSupplier) {
+        if (nroRestaurante == null) {
+            throw new IllegalArgumentException("nroRestaurante es requerido");
+        }
+        try {
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("nro_restaurante", nroRestaurante)
+                    .addValue("nro_idioma", nroIdioma == null ? 1 : nroIdioma);
+
+            return simpleJdbcCallFactory.executeStreamingJson("usp_get_restaurante_detalle", "dbo", params, json -> {
+                if (json.isEmpty()) {
+                    return false;
+                }
+                Writer out = writerSupplier.get();
+                if (validate || projection != null) {
+                    metrics.recordParse("RestaurantRepository.writeRestaurantDetails", () -> {
+                        copyTokens(json, out, projection);
+                        return null;
+                    });
+                } else {
+                    json.transferTo(out);
+                }
+                out.flush();
+                log.debug("Detalle de restaurante {} enviado en streaming ({} fragmentos, {} caracteres)",
+                        nroRestaurante, json.getFragmentCount(), json.getCharCount());
+                return true;
+            });
+        } catch (Exception e) {
+            log.error("Error obteniendo detalle de restaurante: {}", e.getMessage(), e);
+            throw new RuntimeException("Error al obtener detalle del restaurante", e);
+        }
+    }
+
+    /**
+     * Copia el JSON token a token con Jackson: si la entrada no es JSON válido falla en el primer token
+     * inválido (el contenido ya enviado hasta ese punto no se puede retirar). Con una proyección, las propiedades
+     * excluidas se saltean en el parser sin llegar al generador.
+     */
+    private void copyTokens(ForJsonReader json, Writer out, JsonProjection projection) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                     .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            while (parser.nextToken() != null) {
+                if (projection == null) {
+                    generator.copyCurrentEvent(parser);
+                } else {
+                    projection.copy(parser, generator);
+                }
+            }
+        }
+    }
+}
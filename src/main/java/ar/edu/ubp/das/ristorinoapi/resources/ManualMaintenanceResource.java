@@ -0,0 +1,143 @@
+package ar.edu.ubp.das.ristorinoapi.resources;
+
+import ar.edu.ubp.das.ristorinoapi.components.ClickDeduplicator;
+import ar.edu.ubp.das.ristorinoapi.components.PromotionCache;
+import ar.edu.ubp.das.ristorinoapi.components.PromotionImageVariants;
+import ar.edu.ubp.das.ristorinoapi.components.PromotionImages;
+import ar.edu.ubp.das.ristorinoapi.components.SimpleJdbcCallFactory;
+import ar.edu.ubp.das.ristorinoapi.services.ClickJournalService;
+import ar.edu.ubp.das.ristorinoapi.services.ClickWriteBehindService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Recurso REST de mantenimiento manual (diagnóstico y operación de caches internos).
+ * <p>Al igual que {@link ManualNotificationResource}, es recomendable protegerlo con autenticación propia.</p>
+ * <p>Uso típico:
+ * <pre>GET    /api/manual/cache/promotions     --> Estadísticas del cache de promociones
+ * DELETE /api/manual/cache/promotions/5   --> Invalida las promociones cacheadas del restaurante 5
+ * DELETE /api/manual/cache/promotions     --> Vacía el cache de promociones
+ * GET    /api/manual/cache/images         --> Estadísticas del cache de imágenes promocionales y sus variantes
+ * GET    /api/manual/procedures           --> Compilaciones y ejecuciones por procedimiento almacenado
+ * GET    /api/manual/clicks/write-behind  --> Estado de la cola de registro diferido de clicks
+ * GET    /api/manual/clicks/journal       --> Estado del diario de clicks (pendientes, registrados, perdidos)
+ * GET    /api/manual/clicks/dedup         --> Clicks aceptados y descartados por duplicados</pre></p>
+ */
+@RestController
+@RequestMapping("/api/manual")
+public class ManualMaintenanceResource {
+
+    @Autowired
+    private PromotionCache promotionCache;
+    @Autowired
+    private SimpleJdbcCallFactory simpleJdbcCallFactory;
+    @Autowired
+    private ClickWriteBehindService clickWriteBehindService;
+    @Autowired
+    private ClickDeduplicator clickDeduplicator;
+    @Autowired
+    private ClickJournalService clickJournalService;
+    @Autowired
+    private PromotionImages promotionImages;
+    @Autowired
+    private PromotionImageVariants promotionImageVariants;
+
+    /**
+     * Devuelve las estadísticas del cache de promociones (hits, misses, desalojos, ocupación).
+     */
+    @GetMapping(value = "/cache/promotions", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getPromotionCacheStats() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("habilitado", promotionCache.isEnabled());
+        body.put("estadisticas", promotionCache.stats());
+        body.put("bytes", promotionCache.byteStats());
+        body.put("timestamp", Instant.now().toString());
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Devuelve las estadísticas del cache de imágenes promocionales decodificadas (modo {@code imagenes=url}) y de
+     * sus variantes reducidas.
+     */
+    @GetMapping(value = "/cache/images", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getPromotionImageCacheStats() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("estadisticas", promotionImages.stats());
+        body.put("variantes", promotionImageVariants.stats());
+        body.put("timestamp", Instant.now().toString());
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Invalida las promociones cacheadas de un restaurante.
+     * @param nroRestaurante id del restaurante
+     */
+    @DeleteMapping(value = "/cache/promotions/{nroRestaurante}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> invalidatePromotions(@PathVariable Integer nroRestaurante) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("nroRestaurante", nroRestaurante);
+        body.put("entradasInvalidadas", promotionCache.invalidateRestaurant(nroRestaurante));
+        body.put("timestamp", Instant.now().toString());
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Vacía el cache de promociones completo.
+     */
+    @DeleteMapping(value = "/cache/promotions", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> invalidateAllPromotions() {
+        promotionCache.invalidateAll();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("vaciado", true);
+        body.put("timestamp", Instant.now().toString());
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Devuelve, por procedimiento almacenado registrado, cuántas veces se compiló y se ejecutó.
+     */
+    @GetMapping(value = "/procedures", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getProcedureStats() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("procedimientos", simpleJdbcCallFactory.stats());
+        body.put("timestamp", Instant.now().toString());
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Devuelve el estado del registro diferido de clicks (cola, aceptados, rechazados, persistidos, perdidos).
+     */
+    @GetMapping(value = "/clicks/write-behind", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getClickWriteBehindStats() {
+        Map<String, Object> body = new LinkedHashMap<>(clickWriteBehindService.stats());
+        body.put("timestamp", Instant.now().toString());
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Devuelve el estado del diario de clicks (pendientes de registrar, segmentos, registrados, perdidos).
+     */
+    @GetMapping(value = "/clicks/journal", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getClickJournalStats() {
+        Map<String, Object> body = new LinkedHashMap<>(clickJournalService.stats());
+        body.put("timestamp", Instant.now().toString());
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Devuelve el estado de la deduplicación de clicks (ventana, aceptados, descartados, memoria del filtro).
+     */
+    @GetMapping(value = "/clicks/dedup", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getClickDedupStats() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("deduplicacion", clickDeduplicator.stats());
+        body.put("timestamp", Instant.now().toString());
+        return ResponseEntity.ok(body);
+    }
+}
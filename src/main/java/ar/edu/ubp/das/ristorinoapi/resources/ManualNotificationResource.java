@@ -1,6 +1,8 @@
 package ar.edu.ubp.das.ristorinoapi.resources;
 
+import ar.edu.ubp.das.ristorinoapi.services.ClickNotificationScheduler;
 import ar.edu.ubp.das.ristorinoapi.services.ClickNotificationService;
+import ar.edu.ubp.das.ristorinoapi.services.ClickNotificationService.NotificationRun;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,15 +16,20 @@ import java.util.Map;
 
 /**
  * Recurso REST manual para disparar la notificación de clicks pendientes.
- * <p>Este endpoint no registra nuevos clicks, sólo procesa aquellos que ya existen y están marcados como no notificados.</p>
+ * <p>Este endpoint no registra nuevos clicks, sólo procesa aquellos que ya existen y están marcados como no notificados.
+ * Normalmente los notifica {@link ClickNotificationScheduler} en segundo plano; este recurso fuerza un ciclo inmediato
+ * (aun con el circuito abierto) y reprograma el siguiente según su resultado.</p>
  * <p>La autenticación contra la API externa del restaurante (JWT Bearer) se maneja dentro de {@link ClickNotificationService}.
  * Es recomendable proteger este recurso con autenticación propia para evitar ejecuciones no autorizadas.</p>
  * <p>Uso típico:
  * <pre>POST /api/manual/notify-clicks              --> Notifica todos los pendientes
- * POST /api/manual/notify-clicks?nroRestaurante=5 --> Sólo pendientes del restaurante 5</pre></p>
+ * POST /api/manual/notify-clicks?nroRestaurante=5 --> Sólo pendientes del restaurante 5
+ * GET  /api/manual/notify-clicks/scheduler        --> Estado de la notificación continua (circuito, backoff)</pre></p>
  * Respuesta JSON:
  * <pre>{
  *   "notificadosExitosos": 3,
+ *   "pendientes": 4,
+ *   "fallidos": 1,
  *   "nroRestauranteFilter": 5,
  *   "timestamp": "2025-11-13T18:20:01Z"
  * }</pre>
@@ -34,7 +41,7 @@ public class ManualNotificationResource {
     private static final Logger log = LoggerFactory.getLogger(ManualNotificationResource.class);
 
     @Autowired
-    private ClickNotificationService clickNotificationService;
+    private ClickNotificationScheduler clickNotificationScheduler;
 
     /**
      * Dispara la notificación de todos los clicks pendientes (opcionalmente filtrando por restaurante).
@@ -45,9 +52,13 @@ public class ManualNotificationResource {
     @PostMapping(value = "/notify-clicks", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<?> notifyClicks(@RequestParam(required = false) Integer nroRestaurante) {
         try {
-            int count = clickNotificationService.notifyAllPendingClicks(nroRestaurante);
+            NotificationRun run = clickNotificationScheduler.runNow(nroRestaurante);
             Map<String, Object> body = new LinkedHashMap<>(); // Map.of no admite valores potencialmente null
-            body.put("notificadosExitosos", count);
+            body.put("notificadosExitosos", run.notified());
+            body.put("pendientes", run.pending());
+            body.put("fallidos", run.failed());
+            body.put("rechazados", run.rejected());
+            body.put("omitidos", run.skipped());
             if (nroRestaurante != null) {
                 body.put("nroRestauranteFilter", nroRestaurante);
             }
@@ -61,4 +72,15 @@ public class ManualNotificationResource {
             return ResponseEntity.internalServerError().body(err);
         }
     }
+
+    /**
+     * Devuelve el estado de la notificación continua: circuito, fallas consecutivas, próximo ciclo y resultado
+     * del último ciclo.
+     */
+    @GetMapping(value = "/notify-clicks/scheduler", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getSchedulerStats() {
+        Map<String, Object> body = new LinkedHashMap<>(clickNotificationScheduler.stats());
+        body.put("timestamp", Instant.now().toString());
+        return ResponseEntity.ok(body);
+    }
 }
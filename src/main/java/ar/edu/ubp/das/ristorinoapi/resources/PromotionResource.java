@@ -1,22 +1,52 @@
 package ar.edu.ubp.das.ristorinoapi.resources;
 
 import ar.edu.ubp.das.ristorinoapi.beans.RestaurantResponse;
+import ar.edu.ubp.das.ristorinoapi.components.ClickDeduplicator;
+import ar.edu.ubp.das.ristorinoapi.components.ETags;
+import ar.edu.ubp.das.ristorinoapi.components.PromotionCache;
+import ar.edu.ubp.das.ristorinoapi.components.PromotionImage;
+import ar.edu.ubp.das.ristorinoapi.components.PromotionImages;
+import ar.edu.ubp.das.ristorinoapi.components.PromotionImageVariants;
+import ar.edu.ubp.das.ristorinoapi.components.PromotionSnapshot;
 import ar.edu.ubp.das.ristorinoapi.repositories.PromotionRepository;
 import ar.edu.ubp.das.ristorinoapi.repositories.ClickRepository;
+import ar.edu.ubp.das.ristorinoapi.services.ClickJournalService;
+import ar.edu.ubp.das.ristorinoapi.services.ClickWriteBehindService;
+import ar.edu.ubp.das.ristorinoapi.services.PromotionBulkService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * Controlador REST para exponer promociones y registrar clicks sobre contenidos.
  * Endpoints principales:
  * <ul>
- *   <li>GET /api/promotions/{nroRestaurante}?soloVigentes&nroSucursal<br>
- *       Devuelve estructura {@link RestaurantResponse} con lista de contenidos filtrados opcionalmente.</li>
+ *   <li>GET /api/promotions/{nroRestaurante}?soloVigentes&nroSucursal&imagenes<br>
+ *       Devuelve estructura {@link RestaurantResponse} con lista de contenidos filtrados opcionalmente. Con
+ *       {@code imagenes=url} las imágenes embebidas en base64 se reemplazan por la URL del endpoint de imágenes.</li>
+ *   <li>GET /api/promotions/{nroRestaurante}/{nroIdioma}/{nroContenido}/imagen/{id}<br>
+ *       Devuelve la imagen decodificada de un contenido ({@link PromotionImages}), cacheable como inmutable y con
+ *       soporte de rangos de bytes. Con {@code ?w=} devuelve una variante reducida a ese ancho
+ *       ({@link PromotionImageVariants}).</li>
+ *   <li>GET /api/promotions?ids=1,2,3&amp;soloVigentes&amp;nroSucursal (o POST /api/promotions/bulk con el arreglo
+ *       de ids en el cuerpo)<br>
+ *       Devuelve las promociones de varios restaurantes, resueltos en paralelo, con errores por restaurante.</li>
  *   <li>POST /api/promotions/{nroRestaurante}/{nroIdioma}/{nroContenido}/click<br>
- *       Registra un click anónimo sobre un contenido específico.</li>
+ *       Registra un click anónimo sobre un contenido específico. Con el diario de clicks
+ *       ({@link ClickJournalService}) o el registro diferido ({@link ClickWriteBehindService}) habilitados el
+ *       click se guarda para registrarlo en segundo plano y se responde 202. Los clicks repetidos del mismo
+ *       cliente dentro de la ventana de {@link ClickDeduplicator} se descartan sin llegar a la base.</li>
  * </ul>
  */
 @RestController
@@ -28,27 +58,236 @@ public class PromotionResource {
     @Autowired
     private PromotionRepository promotionRepository;
     @Autowired
+    private PromotionCache promotionCache;
+    @Autowired
     private ClickRepository clickRepository;
+    @Autowired
+    private ClickWriteBehindService clickWriteBehindService;
+    @Autowired
+    private ClickJournalService clickJournalService;
+    @Autowired
+    private PromotionBulkService promotionBulkService;
+    @Autowired
+    private ClickDeduplicator clickDeduplicator;
+    @Autowired
+    private PromotionImages promotionImages;
+    @Autowired
+    private PromotionImageVariants promotionImageVariants;
+
+    // Política de cache HTTP del GET de promociones (vacío = sin header Cache-Control)
+    @Value("${ristorino.promotions.http.cache-control:no-cache}")
+    private String cacheControl;
 
     /**
      * Obtiene las promociones de un restaurante en formato compuesto (incluye metadatos del restaurante).
+     * <p>La respuesta lleva un ETag fuerte calculado sobre el JSON cacheado; si el cliente envía
+     * If-None-Match con ese ETag se responde 304 sin cuerpo. El header Cache-Control se toma de
+     * {@code ristorino.promotions.http.cache-control}.</p>
+     * <p>El cuerpo se escribe desde los bytes ya serializados del cache; si el cliente acepta gzip se envía la
+     * variante precomprimida (Content-Encoding: gzip), sin comprimir por request.</p>
      * @param nroRestaurante id del restaurante
      * @param soloVigentes filtro opcional de vigencia (null = no filtra)
      * @param nroSucursal sucursal específica (null = todas/globales)
-     * @return {@link RestaurantResponse} serializado a JSON
+     * @param imagenes {@code url} para reemplazar las imágenes embebidas por URLs; {@code inline} (por defecto)
+     *                 las deja en el JSON
+     * @param ifNoneMatch ETag(s) que ya tiene el cliente
+     * @param acceptEncoding codificaciones aceptadas por el cliente
+     * @return {@link RestaurantResponse} serializado a JSON, o 304 si no cambió
      */
     @GetMapping("/{nroRestaurante}")
     public ResponseEntity<?> getPromotionsForRestaurant(
             @PathVariable Integer nroRestaurante,
             @RequestParam(required = false) Boolean soloVigentes,
+            @RequestParam(required = false) Integer nroSucursal,
+            @RequestParam(required = false, defaultValue = "inline") String imagenes,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        try {
+            if (!imagenes.equals("inline") && !imagenes.equals("url")) {
+                throw new IllegalArgumentException("imagenes debe ser 'inline' o 'url'");
+            }
+            PromotionSnapshot snapshot = promotionRepository.getPromotionSnapshot(nroRestaurante, soloVigentes, nroSucursal,
+                    imagenes.equals("url"));
+            boolean gzip = snapshot.hasGzip() && acceptsGzip(acceptEncoding);
+            String etag = gzip ? snapshot.gzipEtag() : snapshot.etag();
+            // Cualquiera de las dos variantes es la misma representación: no hace falta reenviar
+            if (ETags.matches(ifNoneMatch, snapshot.etag()) || ETags.matches(ifNoneMatch, snapshot.gzipEtag())) {
+                return withCacheControl(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag))
+                        .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                        .build();
+            }
+            promotionCache.recordSent(snapshot, gzip);
+            ResponseEntity.BodyBuilder ok = withCacheControl(ResponseEntity.ok().eTag(etag))
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .contentType(MediaType.APPLICATION_JSON);
+            if (gzip) {
+                return ok.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.gzip());
+            }
+            return ok.body(snapshot.json());
+        } catch (IllegalArgumentException iae) {
+            return ResponseEntity.badRequest().body(iae.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body("Error interno del servidor: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Devuelve una imagen promocional decodificada, referenciada desde el modo {@code imagenes=url}.
+     * <p>La URL incluye el identificador del contenido de la imagen, por lo que la respuesta es inmutable: lleva
+     * ETag fuerte y {@code ristorino.images.cache-control} (por defecto un año, {@code immutable}). Soporta
+     * {@code Range} (206 con uno o varios rangos, 416 si no son satisfacibles); con {@code If-Range} distinto del
+     * ETag se ignora el rango y se envía la imagen completa.</p>
+     * <p>Con {@code w} se sirve la variante del menor ancho configurado que cubre el pedido, con su propio ETag.
+     * Si la variante todavía no está lista (generador saturado o demorado) se sirve la imagen original con
+     * {@code Cache-Control: no-cache}, para que el cliente no la guarde como si fuera la variante.</p>
+     * @param id identificador de la imagen (de la URL generada)
+     * @param w ancho máximo deseado en píxeles (opcional)
+     * @param ifNoneMatch ETag(s) que ya tiene el cliente
+     * @param ifRange ETag con el que el cliente pide el rango
+     * @return la imagen, 304 si no cambió, 400 si {@code w} no es positivo, o 404 si el contenido no existe o su
+     *         imagen cambió
+     */
+    @GetMapping("/{nroRestaurante}/{nroIdioma}/{nroContenido}/imagen/{id}")
+    public ResponseEntity<?> getPromotionImage(
+            @PathVariable Integer nroRestaurante,
+            @PathVariable Integer nroIdioma,
+            @PathVariable Integer nroContenido,
+            @PathVariable String id,
+            @RequestParam(required = false) Integer w,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange
+    ) {
+        try {
+            if (w != null && w <= 0) {
+                throw new IllegalArgumentException("w debe ser positivo");
+            }
+            PromotionImage image = promotionImages.get(id,
+                    () -> promotionRepository.getPromotionImage(nroRestaurante, nroIdioma, nroContenido));
+            if (image == null) {
+                return ResponseEntity.notFound().build();
+            }
+            String cacheControl = promotionImages.cacheControl();
+            Integer width = w == null ? null : promotionImageVariants.snapWidth(w);
+            if (width != null) {
+                PromotionImage variant = promotionImageVariants.variant(image, width);
+                if (variant == null) {
+                    cacheControl = "no-cache";
+                } else {
+                    image = variant;
+                }
+            }
+            if (ETags.matches(ifNoneMatch, image.etag())) {
+                return imageHeaders(ResponseEntity.status(HttpStatus.NOT_MODIFIED), image, cacheControl).build();
+            }
+            ResponseEntity.BodyBuilder ok = imageHeaders(ResponseEntity.ok(), image, cacheControl)
+                    .contentType(MediaType.parseMediaType(image.contentType()));
+            if (ifRange != null && !ifRange.equals(image.etag())) {
+                // Spring sólo aplica Range a cuerpos Resource: con bytes se envía la imagen completa
+                return ok.body(image.data());
+            }
+            return ok.body(new ByteArrayResource(image.data()));
+        } catch (IllegalArgumentException iae) {
+            return ResponseEntity.badRequest().body(iae.getMessage());
+        } catch (Exception e) {
+            log.error("Error al obtener imagen {} del contenido {}", id, nroContenido, e);
+            return ResponseEntity.internalServerError().body("Error interno del servidor: " + e.getMessage());
+        }
+    }
+
+    private static ResponseEntity.BodyBuilder imageHeaders(ResponseEntity.BodyBuilder builder, PromotionImage image,
+                                                           String cacheControl) {
+        builder.eTag(image.etag())
+                .header("X-Content-Type-Options", "nosniff")
+                .header("Content-Security-Policy", "default-src 'none'; sandbox");
+        if (cacheControl != null && !cacheControl.isBlank()) {
+            builder.header(HttpHeaders.CACHE_CONTROL, cacheControl);
+        }
+        return builder;
+    }
+
+    /**
+     * @return true si Accept-Encoding acepta gzip con calidad distinta de 0. Una entrada explícita de gzip
+     *         prevalece sobre {@code *} (RFC 9110 §12.5.3): {@code gzip;q=0, *} no acepta gzip.
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQ = null;
+        Double anyQ = null;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.split(";");
+            String coding = tokens[0].trim();
+            boolean gzip = coding.equalsIgnoreCase("gzip");
+            if (!gzip && !coding.equals("*")) {
+                continue;
+            }
+            double q = 1.0;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0.0;
+                    }
+                }
+            }
+            if (gzip) {
+                gzipQ = q;
+            } else {
+                anyQ = q;
+            }
+        }
+        Double q = gzipQ != null ? gzipQ : anyQ;
+        return q != null && q > 0.0;
+    }
+
+    private ResponseEntity.BodyBuilder withCacheControl(ResponseEntity.BodyBuilder builder) {
+        if (cacheControl != null && !cacheControl.isBlank()) {
+            builder.header(HttpHeaders.CACHE_CONTROL, cacheControl);
+        }
+        return builder;
+    }
+
+    /**
+     * Obtiene las promociones de varios restaurantes en una sola llamada (ver {@link PromotionBulkService}).
+     * @param ids restaurantes separados por coma
+     * @param soloVigentes filtro opcional de vigencia aplicado a todos
+     * @param nroSucursal sucursal aplicada a todos (null = todas/globales)
+     * @return {"resultados": {nroRestaurante: RestaurantResponse}, "errores": {nroRestaurante: mensaje}}
+     */
+    @GetMapping(params = "ids")
+    public ResponseEntity<?> getPromotionsForRestaurants(
+            @RequestParam List<Integer> ids,
+            @RequestParam(required = false) Boolean soloVigentes,
+            @RequestParam(required = false) Integer nroSucursal
+    ) {
+        return bulk(ids, soloVigentes, nroSucursal);
+    }
+
+    /**
+     * Variante POST de {@link #getPromotionsForRestaurants} para listas de ids largas.
+     * @param ids arreglo JSON de restaurantes
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<?> getPromotionsForRestaurantsBulk(
+            @RequestBody List<Integer> ids,
+            @RequestParam(required = false) Boolean soloVigentes,
             @RequestParam(required = false) Integer nroSucursal
     ) {
+        return bulk(ids, soloVigentes, nroSucursal);
+    }
+
+    private ResponseEntity<?> bulk(List<Integer> ids, Boolean soloVigentes, Integer nroSucursal) {
         try {
-            RestaurantResponse restaurantData = promotionRepository.getPromotionsWithRestaurant(nroRestaurante, soloVigentes, nroSucursal);
-            return ResponseEntity.ok(restaurantData);
+            return ResponseEntity.ok(promotionBulkService.getPromotions(ids, soloVigentes, nroSucursal));
         } catch (IllegalArgumentException iae) {
             return ResponseEntity.badRequest().body(iae.getMessage());
         } catch (Exception e) {
+            log.error("Error en consulta masiva de promociones", e);
             return ResponseEntity.internalServerError()
                     .body("Error interno del servidor: " + e.getMessage());
         }
@@ -59,15 +298,42 @@ public class PromotionResource {
      * @param nroRestaurante id restaurante
      * @param nroIdioma id idioma
      * @param nroContenido id contenido
-     * @return resultado del procedimiento almacenado (JSON deserializado a Map)
+     * @param userAgent junto con la IP identifica al cliente para descartar duplicados
+     * @return resultado del procedimiento almacenado (JSON deserializado a Map), o 202 si el click se guardó en el
+     *         diario o se encoló para registro diferido (503 si la cola está llena); {"duplicado": true} si se descartó
      */
     @PostMapping("/{nroRestaurante}/{nroIdioma}/{nroContenido}/click")
     public ResponseEntity<?> registerClickByContenidoAlt(
             @PathVariable Integer nroRestaurante,
             @PathVariable Integer nroIdioma,
-            @PathVariable Integer nroContenido) {
-        try {
+            @PathVariable Integer nroContenido,
+            @RequestHeader(value = HttpHeaders.USER_AGENT, required = false) String userAgent,
+            HttpServletRequest request) {
+        String clientAddress = request.getRemoteAddr();
+        // La reserva descarta también las repeticiones que llegan mientras éste se registra; el click cuenta para
+        // la ventana sólo una vez aceptado: un reintento tras 503/500 no es duplicado
+        try (ClickDeduplicator.Claim claim = clickDeduplicator.claim(nroRestaurante, nroIdioma, nroContenido, clientAddress, userAgent)) {
+            if (claim == null) {
+                log.debug("Click duplicado descartado: contenido {} desde {}", nroContenido, clientAddress);
+                return ResponseEntity.ok(Map.of("duplicado", true));
+            }
+            if (clickJournalService.isEnabled()
+                    && clickJournalService.append(nroRestaurante, nroIdioma, nroContenido)) {
+                claim.accept();
+                return ResponseEntity.accepted().body(Map.of("encolado", true));
+            }
+            if (clickWriteBehindService.isEnabled()) {
+                if (clickWriteBehindService.enqueue(nroRestaurante, nroIdioma, nroContenido)) {
+                    claim.accept();
+                    return ResponseEntity.accepted().body(Map.of("encolado", true));
+                }
+                log.warn("Cola de clicks llena, se rechaza click de contenido {}", nroContenido);
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body("Servicio saturado, reintente en unos segundos");
+            }
             var result = clickRepository.registerAnonymousClick(nroRestaurante, nroIdioma, nroContenido, null);
+            claim.accept();
             return ResponseEntity.ok(result);
         } catch (IllegalArgumentException iae) {
             log.warn("Registro de click rechazado: {}", iae.getMessage());
@@ -1,43 +1,200 @@
 package ar.edu.ubp.das.ristorinoapi.resources;
 
+import ar.edu.ubp.das.ristorinoapi.components.ETags;
+import ar.edu.ubp.das.ristorinoapi.components.JsonProjection;
+import ar.edu.ubp.das.ristorinoapi.components.JsonProjections;
 import ar.edu.ubp.das.ristorinoapi.repositories.RestaurantRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
 /**
  * Controlador REST para exponer el detalle completo de un restaurante.
+ * <p>Por defecto el JSON del SP se copia en streaming a la respuesta HTTP
+ * ({@code ristorino.restaurants.streaming.enabled}); con el streaming deshabilitado se construye un
+ * {@link JsonNode} intermedio como antes.</p>
+ * <p>Con {@code ristorino.restaurants.http.etag=true} el JSON se copia a un buffer en bytes para calcular su
+ * ETag antes de responder: si coincide con If-None-Match se responde 304 sin cuerpo. Es opcional (false por
+ * defecto) porque resigna el streaming: el detalle completo queda en memoria y un 304 igual ejecuta el SP, así
+ * que sólo ahorra transferencia. El header Cache-Control se toma de
+ * {@code ristorino.restaurants.http.cache-control}.</p>
+ * <p>{@code fields=} limita la respuesta a los campos pedidos (ver {@link JsonProjection}), p.ej.
+ * {@code ?fields=nombre,sucursales(nom_sucursal)}: el JSON se poda mientras se copia, sin árbol intermedio.</p>
  */
 @RestController
 @RequestMapping("/api/restaurants")
 public class RestaurantResource {
 
+    private static final Logger log = LoggerFactory.getLogger(RestaurantResource.class);
+
     @Autowired
     private RestaurantRepository restaurantRepository;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JsonProjections jsonProjections;
+
+    @Value("${ristorino.restaurants.streaming.enabled:true}")
+    private boolean streamingEnabled;
+    @Value("${ristorino.restaurants.streaming.validate:false}")
+    private boolean validateByDefault;
+    @Value("${ristorino.restaurants.http.etag:false}")
+    private boolean etagEnabled;
+    // Política de cache HTTP del detalle (vacío = sin header Cache-Control)
+    @Value("${ristorino.restaurants.http.cache-control:no-cache}")
+    private String cacheControl;
+
     /**
      * Devuelve el detalle anidado del restaurante como JSON (sucursales, zonas, turnos, contenidos, etc.).
      * @param nroRestaurante id del restaurante
      * @param nroIdioma idioma preferido (null -> 1 por defecto en SP)
-     * @return JsonNode con la estructura completa o 404 si no existe
+     * @param validar en modo streaming, valida la sintaxis del JSON mientras se copia (null = valor configurado)
+     * @param fields proyección de campos a incluir (null = detalle completo); 400 si está mal formada
+     * @param ifNoneMatch ETag(s) que ya tiene el cliente
+     * @return JsonNode con la estructura completa, 304 si no cambió o 404 si no existe
      */
     @GetMapping(value = "/{nroRestaurante}", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<?> getRestaurantDetails(
             @PathVariable Integer nroRestaurante,
-            @RequestParam(required = false) Integer nroIdioma
+            @RequestParam(required = false) Integer nroIdioma,
+            @RequestParam(required = false) Boolean validar,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            HttpServletResponse response
     ) {
+        boolean validate = validar != null ? validar : validateByDefault;
+        JsonProjection projection;
+        try {
+            projection = fields == null || fields.isBlank() ? null : jsonProjections.compile(fields);
+        } catch (IllegalArgumentException iae) {
+            return ResponseEntity.badRequest().body(iae.getMessage());
+        }
+        if (streamingEnabled && etagEnabled) {
+            return bufferRestaurantDetails(nroRestaurante, nroIdioma, validate, projection, ifNoneMatch);
+        }
+        if (streamingEnabled) {
+            return streamRestaurantDetails(nroRestaurante, nroIdioma, validate, projection, response);
+        }
         try {
             JsonNode node = restaurantRepository.getRestaurantDetails(nroRestaurante, nroIdioma);
             if (node == null) {
                 return ResponseEntity.notFound().build();
             }
-            return ResponseEntity.ok(node);
+            if (projection != null) {
+                byte[] projected = project(node, projection);
+                return etagEnabled ? conditional(projected, ifNoneMatch)
+                        : withCacheControl(ResponseEntity.ok()).contentType(MediaType.APPLICATION_JSON).body(projected);
+            }
+            if (!etagEnabled) {
+                return withCacheControl(ResponseEntity.ok()).body(node);
+            }
+            return conditional(objectMapper.writeValueAsBytes(node), ifNoneMatch);
         } catch (IllegalArgumentException iae) {
             return ResponseEntity.badRequest().body(iae.getMessage());
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body("Error interno del servidor: " + e.getMessage());
         }
     }
+
+    /**
+     * Copia el JSON del SP a un buffer en bytes (sin árbol intermedio) y responde con su ETag,
+     * o 304 si el cliente ya lo tiene.
+     */
+    private ResponseEntity<?> bufferRestaurantDetails(Integer nroRestaurante, Integer nroIdioma, boolean validate,
+                                                      JsonProjection projection, String ifNoneMatch) {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(8192);
+            boolean found = restaurantRepository.writeRestaurantDetails(nroRestaurante, nroIdioma, validate, projection,
+                    () -> new OutputStreamWriter(buffer, StandardCharsets.UTF_8));
+            if (!found) {
+                return ResponseEntity.notFound().build();
+            }
+            return conditional(buffer.toByteArray(), ifNoneMatch);
+        } catch (IllegalArgumentException iae) {
+            return ResponseEntity.badRequest().body(iae.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Error interno del servidor: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Serializa el árbol aplicando la proyección (recorriendo sus tokens, sin copiar el árbol).
+     */
+    private byte[] project(JsonNode node, JsonProjection projection) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(8192);
+        try (JsonParser parser = objectMapper.treeAsTokens(node);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(buffer)) {
+            projection.copy(parser, generator);
+        }
+        return buffer.toByteArray();
+    }
+
+    private ResponseEntity<?> conditional(byte[] body, String ifNoneMatch) {
+        String etag = ETags.of(body);
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return withCacheControl(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag)).build();
+        }
+        return withCacheControl(ResponseEntity.ok().eTag(etag))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    private ResponseEntity.BodyBuilder withCacheControl(ResponseEntity.BodyBuilder builder) {
+        if (cacheControl != null && !cacheControl.isBlank()) {
+            builder.header(HttpHeaders.CACHE_CONTROL, cacheControl);
+        }
+        return builder;
+    }
+
+    /**
+     * Escribe el JSON directamente en la respuesta. Devuelve null cuando el cuerpo ya fue escrito
+     * (la respuesta queda resuelta) o un ResponseEntity para 404/400/500.
+     */
+    private ResponseEntity<?> streamRestaurantDetails(Integer nroRestaurante, Integer nroIdioma, boolean validate,
+                                                      JsonProjection projection, HttpServletResponse response) {
+        try {
+            boolean found = restaurantRepository.writeRestaurantDetails(nroRestaurante, nroIdioma, validate, projection, () -> {
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+                if (cacheControl != null && !cacheControl.isBlank()) {
+                    response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+                }
+                try {
+                    return response.getWriter();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return found ? null : ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException iae) {
+            return ResponseEntity.badRequest().body(iae.getMessage());
+        } catch (Exception e) {
+            if (response.isCommitted()) {
+                // Ya se enviaron bytes al cliente: no es posible cambiar el status
+                log.error("Error durante el streaming del detalle del restaurante {}: {}", nroRestaurante, e.getMessage());
+                return null;
+            }
+            response.reset();
+            return ResponseEntity.internalServerError().body("Error interno del servidor: " + e.getMessage());
+        }
+    }
 }
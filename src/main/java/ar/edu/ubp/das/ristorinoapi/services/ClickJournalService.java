@@ -0,0 +1,301 @@
+package ar.edu.ubp.das.ristorinoapi.services;
+
+import ar.edu.ubp.das.ristorinoapi.beans.ClickRequest;
+import ar.edu.ubp.das.ristorinoapi.beans.JournaledClick;
+import ar.edu.ubp.das.ristorinoapi.components.ClickJournal;
+import ar.edu.ubp.das.ristorinoapi.components.ClickJournal.Entry;
+import ar.edu.ubp.das.ristorinoapi.components.ClickJournal.Position;
+import ar.edu.ubp.das.ristorinoapi.repositories.ClickRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Registro de clicks a través de un diario local durable ({@link ClickJournal}).
+ * <p>Con {@code ristorino.clicks.journal.enabled=true} el endpoint de click sólo agrega el click al diario (unos
+ * microsegundos, sin tocar la base) y responde 202. Un hilo de fondo lee el diario en lotes de hasta
+ * {@code batch-size} y los registra con {@link ClickRepository#registerJournaledClicks}; si la base está lenta o
+ * caída los clicks siguen acumulándose en disco y se reintenta con backoff exponencial hasta
+ * {@code retry-max-ms}. Los clicks sobreviven a un reinicio del proceso sin registrarse dos veces: cada uno viaja
+ * con su posición en el diario como clave de idempotencia y la base saltea las ya registradas, así que un lote
+ * con resultado incierto (conexión caída después del COMMIT, caída del proceso antes de confirmar el diario) se
+ * vuelve a enviar sin duplicar clicks. Los salteados se cuentan en {@code yaRegistrados}.</p>
+ * <p>Las fallas de conexión, timeouts y errores transitorios (jerarquía {@code TransientDataAccessException},
+ * {@code RecoverableDataAccessException}, {@code DataAccessResourceFailureException}) dejan el lote en el diario.
+ * Cualquier otro error indica un click inválido (p.ej. un contenido inexistente): el lote se reintenta click por
+ * click y los que fallan se descartan y se cuentan como perdidos, para no bloquear el diario. El lote se confirma
+ * en el diario una sola vez, al terminar.</p>
+ * <p>Tiene prioridad sobre el registro diferido en memoria ({@link ClickWriteBehindService}).</p>
+ */
+@Service
+public class ClickJournalService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClickJournalService.class);
+
+    @Autowired
+    private ClickRepository clickRepository;
+
+    @Value("${ristorino.clicks.journal.enabled:false}")
+    private boolean enabled;
+    @Value("${ristorino.clicks.journal.dir:data/click-journal}")
+    private String dir;
+    @Value("${ristorino.clicks.journal.segment-bytes:4194304}")
+    private int segmentBytes;
+    @Value("${ristorino.clicks.journal.batch-size:200}")
+    private int batchSize;
+    @Value("${ristorino.clicks.journal.poll-ms:100}")
+    private long pollMs;
+    @Value("${ristorino.clicks.journal.retry-max-ms:30000}")
+    private long retryMaxMs;
+    // Cada cuánto se bajan a disco los clicks agregados (caída del SO); ante caída del proceso no se pierden
+    @Value("${ristorino.clicks.journal.force-interval-ms:1000}")
+    private long forceIntervalMs;
+
+    private ClickJournal journal;
+    private Thread replayer;
+    private volatile boolean running;
+    private volatile boolean databaseHealthy = true;
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder appendErrors = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder alreadyRegistered = new LongAdder();
+    private final LongAdder lost = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder cursorErrors = new LongAdder();
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        batchSize = Math.max(1, Math.min(batchSize, ClickRepository.MAX_JOURNALED_CLICKS_PER_BATCH));
+        journal = new ClickJournal(Path.of(dir), segmentBytes);
+        running = true;
+        replayer = new Thread(this::replayLoop, "click-journal-replay");
+        replayer.setDaemon(true);
+        replayer.start();
+        log.info("Diario de clicks habilitado en {} ({} clicks pendientes de registrar)", Path.of(dir).toAbsolutePath(), journal.pendingRecords());
+    }
+
+    @PreDestroy
+    void stop() throws IOException {
+        if (replayer == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(replayer);
+        try {
+            replayer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journal.close();
+        log.info("Diario de clicks cerrado con {} clicks pendientes", journal.pendingRecords());
+    }
+
+    /** @return true si el registro de clicks pasa por el diario */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Agrega un click al diario.
+     * @return true si quedó en el diario; false si no se pudo escribir (el llamador debe registrarlo por otra vía)
+     */
+    public boolean append(Integer nroRestaurante, Integer nroIdioma, Integer nroContenido) {
+        if (nroRestaurante == null || nroIdioma == null || nroContenido == null) {
+            throw new IllegalArgumentException("Parametros requeridos nroRestaurante, nroIdioma y nroContenido no pueden ser null");
+        }
+        try {
+            journal.append(nroRestaurante, nroIdioma, nroContenido, System.currentTimeMillis());
+            appended.increment();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            appendErrors.increment();
+            log.error("No se pudo agregar el click al diario: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /** @return contadores del diario y clicks pendientes de registrar */
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("habilitado", enabled);
+        out.put("pendientes", journal == null ? 0 : journal.pendingRecords());
+        out.put("segmentos", journal == null ? 0 : journal.segmentCount());
+        out.put("baseDisponible", databaseHealthy);
+        out.put("agregados", appended.sum());
+        out.put("erroresEscritura", appendErrors.sum());
+        out.put("registrados", replayed.sum());
+        out.put("yaRegistrados", alreadyRegistered.sum());
+        out.put("perdidos", lost.sum());
+        out.put("lotesFallidos", failedBatches.sum());
+        out.put("erroresCursor", cursorErrors.sum());
+        out.put("reintentadosAlIniciar", journal == null ? 0 : journal.uncertainOnOpen());
+        return out;
+    }
+
+    private void replayLoop() {
+        long backoffMs = pollMs;
+        long lastForce = System.nanoTime();
+        while (running) {
+            try {
+                if (System.nanoTime() - lastForce >= TimeUnit.MILLISECONDS.toNanos(forceIntervalMs)) {
+                    journal.force();
+                    lastForce = System.nanoTime();
+                }
+                List<Entry> batch = journal.read(batchSize);
+                if (batch.isEmpty()) {
+                    pause(pollMs);
+                } else if (replay(batch)) {
+                    backoffMs = pollMs;
+                } else {
+                    pause(backoffMs);
+                    backoffMs = Math.min(retryMaxMs, backoffMs * 2);
+                }
+            } catch (Exception e) {
+                log.error("Error inesperado reproduciendo el diario de clicks: {}", e.getMessage(), e);
+                pause(backoffMs);
+            }
+        }
+    }
+
+    /**
+     * Espera sin interrumpir al hilo: una interrupción cerraría el FileChannel del cursor a mitad de escritura.
+     * {@link #stop} la corta con {@code unpark}.
+     */
+    private void pause(long ms) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ms);
+        long remaining;
+        while (running && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+
+    /**
+     * Registra un lote leído del diario.
+     * @return false si la base no está disponible (el lote queda en el diario y se reenvía: si llegó a
+     *         registrarse, la clave de idempotencia evita duplicarlo)
+     */
+    private boolean replay(List<Entry> batch) throws IOException {
+        Position end = batch.get(batch.size() - 1).next();
+        journal.beginReplay(end);
+        try {
+            count(batch.size(), clickRepository.registerJournaledClicks(toJournaled(batch)));
+        } catch (Exception e) {
+            failedBatches.increment();
+            if (isDatabaseUnavailable(e)) {
+                journal.abortReplay();
+                databaseHealthy = false;
+                log.warn("Base de datos no disponible, {} clicks quedan en el diario: {}", journal.pendingRecords(), e.getMessage());
+                return false;
+            }
+            log.warn("Falló el lote de {} clicks del diario, se reintenta individualmente: {}", batch.size(), e.getMessage());
+            return replayIndividually(batch, end);
+        }
+        commit(end);
+        databaseHealthy = true;
+        return true;
+    }
+
+    /**
+     * El lote es atómico, no quedó nada registrado: se registra click por click (el cursor sigue marcando el lote
+     * en curso) y se confirma una sola vez. Si la base se cae a mitad, se confirma sólo lo ya procesado.
+     */
+    private boolean replayIndividually(List<Entry> batch, Position end) throws IOException {
+        Position done = null;
+        for (Entry entry : batch) {
+            try {
+                count(1, clickRepository.registerJournaledClicks(List.of(toJournaled(entry))));
+            } catch (Exception ex) {
+                if (isDatabaseUnavailable(ex)) {
+                    if (done == null) {
+                        journal.abortReplay();
+                    } else {
+                        commit(done);
+                    }
+                    databaseHealthy = false;
+                    return false;
+                }
+                lost.increment();
+                log.error("Click del diario descartado (restaurante={}, idioma={}, contenido={}, fecha={}): {}",
+                        entry.nroRestaurante(), entry.nroIdioma(), entry.nroContenido(),
+                        Instant.ofEpochMilli(entry.epochMillis()), ex.getMessage());
+            }
+            done = entry.next();
+        }
+        commit(end);
+        databaseHealthy = true;
+        return true;
+    }
+
+    /**
+     * Confirma en el diario lo ya registrado en la base. Una falla de E/S local no debe llevar a registrar el lote
+     * otra vez: el diario avanza en memoria igual y el cursor en disco se corrige con la próxima confirmación.
+     */
+    private void commit(Position end) {
+        try {
+            journal.commit(end);
+        } catch (IOException | RuntimeException e) {
+            cursorErrors.increment();
+            log.error("Lote de clicks registrado pero no se pudo confirmar en el diario: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Distingue una base caída, lenta o en failover (se reintenta más tarde) de un click inválido (se descarta).
+     */
+    static boolean isDatabaseUnavailable(Exception e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException;
+    }
+
+    private void count(int sent, int registered) {
+        replayed.add(registered);
+        alreadyRegistered.add(sent - registered);
+    }
+
+    private static List<JournaledClick> toJournaled(List<Entry> batch) {
+        List<JournaledClick> out = new ArrayList<>(batch.size());
+        for (Entry e : batch) {
+            out.add(toJournaled(e));
+        }
+        return out;
+    }
+
+    private static JournaledClick toJournaled(Entry e) {
+        Position key = e.position();
+        return new JournaledClick(key.segment(), key.offset(), toRequest(e));
+    }
+
+    private static ClickRequest toRequest(Entry e) {
+        ClickRequest c = new ClickRequest();
+        c.setNroRestaurante(e.nroRestaurante());
+        c.setNroIdioma(e.nroIdioma());
+        c.setNroContenido(e.nroContenido());
+        c.setFechaRegistro(LocalDateTime.ofInstant(Instant.ofEpochMilli(e.epochMillis()), ZoneId.systemDefault()));
+        return c;
+    }
+}
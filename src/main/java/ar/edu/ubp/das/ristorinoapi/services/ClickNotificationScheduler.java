@@ -0,0 +1,313 @@
+package ar.edu.ubp.das.ristorinoapi.services;
+
+import ar.edu.ubp.das.ristorinoapi.beans.ClickKey;
+import ar.edu.ubp.das.ristorinoapi.services.ClickNotificationService.NotificationRun;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Notificación continua de clicks pendientes: un hilo de fondo ejecuta {@link ClickNotificationService} en
+ * ciclos de hasta {@code max-clicks-per-run} clicks y decide cuándo volver a ejecutar según el resultado.
+ * <ul>
+ *   <li>Backlog: si el ciclo llegó al tope (quedan pendientes) el siguiente arranca enseguida, a continuación del
+ *       último click procesado; si notificó algo espera {@code min-interval-ms}; sin pendientes el intervalo se
+ *       duplica hasta {@code max-interval-ms}. Al recorrer todo el backlog el siguiente ciclo vuelve a empezar
+ *       desde el principio, de modo que los clicks rechazados por la API o con datos incompletos (que no
+ *       consumen el tope) no impiden avanzar sobre el resto.</li>
+ *   <li>Fallas (todos los POST enviados en el ciclo fallaron, o error de BD): backoff exponencial desde
+ *       {@code backoff-initial-ms} hasta {@code backoff-max-ms}.</li>
+ *   <li>Circuit breaker: tras {@code circuit.failure-threshold} ciclos fallidos seguidos se abre el circuito y no
+ *       se envía nada durante {@code circuit.open-ms}; luego se prueba con un único click (half-open) y, si se
+ *       acepta, se cierra y se retoma el backlog.</li>
+ * </ul>
+ * <p>{@link #runNow} (endpoint manual) fuerza un ciclo inmediato, aun con el circuito abierto, y su resultado
+ * alimenta el mismo estado. Las ejecuciones se serializan en el servicio, así que nunca se notifica dos veces el
+ * mismo click.</p>
+ * <p>Con {@code ristorino.notification.page-size > 0} los ciclos recorren el backlog por páginas. Sin paginar
+ * (el SP de producción todavía no admite el keyset) cada ciclo lee el backlog completo pero igual envía a lo sumo
+ * {@code max-clicks-per-run}, continuando desde el cursor en memoria.</p>
+ * <p>Métricas: {@code ristorino.notifications.scheduler.runs} (contador por outcome: notified, idle, failure,
+ * circuit_open) y {@code ristorino.notifications.scheduler.circuit} (0 cerrado, 1 half-open, 2 abierto).</p>
+ */
+@Service
+public class ClickNotificationScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(ClickNotificationScheduler.class);
+
+    /** Estado del circuit breaker sobre la API del restaurante. */
+    public enum CircuitState { CLOSED, HALF_OPEN, OPEN }
+
+    @Autowired
+    private ClickNotificationService clickNotificationService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ristorino.notification.scheduler.enabled:false}")
+    private boolean enabled;
+    @Value("${ristorino.notification.scheduler.max-clicks-per-run:500}")
+    private int maxClicksPerRun;
+    @Value("${ristorino.notification.scheduler.min-interval-ms:1000}")
+    private long minIntervalMs;
+    @Value("${ristorino.notification.scheduler.max-interval-ms:30000}")
+    private long maxIntervalMs;
+    @Value("${ristorino.notification.scheduler.backoff-initial-ms:2000}")
+    private long backoffInitialMs;
+    @Value("${ristorino.notification.scheduler.backoff-max-ms:300000}")
+    private long backoffMaxMs;
+    @Value("${ristorino.notification.scheduler.circuit.failure-threshold:5}")
+    private int failureThreshold;
+    @Value("${ristorino.notification.scheduler.circuit.open-ms:60000}")
+    private long openMs;
+
+    // Estado protegido por stateLock (ciclos programados y manuales pueden terminar en hilos distintos)
+    private final ReentrantLock stateLock = new ReentrantLock();
+    private CircuitState circuit = CircuitState.CLOSED;
+    private int consecutiveFailures;
+    private long idleIntervalMs;
+    private long nextDelayMs;
+    private Instant lastRunAt;
+    private NotificationRun lastRun;
+    private String lastError;
+    // Último click procesado por un ciclo que terminó por el tope (null = empezar desde el principio)
+    private ClickKey cursor;
+
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> next;
+
+    private Counter notifiedRuns;
+    private Counter idleRuns;
+    private Counter failedRuns;
+    private Counter circuitOpened;
+
+    @PostConstruct
+    void start() {
+        idleIntervalMs = minIntervalMs;
+        notifiedRuns = runCounter("notified");
+        idleRuns = runCounter("idle");
+        failedRuns = runCounter("failure");
+        circuitOpened = runCounter("circuit_open");
+        Gauge.builder("ristorino.notifications.scheduler.circuit", this, s -> s.circuitState().ordinal())
+                .description("Estado del circuito hacia la API del restaurante (0 cerrado, 1 half-open, 2 abierto)")
+                .register(meterRegistry);
+        if (!enabled) {
+            return;
+        }
+        if (clickNotificationService.pageSize() <= 0) {
+            log.warn("Notificación continua sin paginar (ristorino.notification.page-size=0): cada ciclo lee el "
+                    + "backlog completo de la base y envía hasta {} clicks", maxClicksPerRun);
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "click-notify-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        reschedule(minIntervalMs);
+        log.info("Notificación continua de clicks habilitada (hasta {} clicks por ciclo, intervalo {}-{} ms)",
+                maxClicksPerRun, minIntervalMs, maxIntervalMs);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /** @return true si la notificación continua está habilitada */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Ejecuta un ciclo completo de notificación en el hilo llamante (sin tope de clicks) y reprograma el
+     * siguiente ciclo según su resultado.
+     * @param nroRestauranteFilter filtro opcional por restaurante (null = todos)
+     * @return resultado del ciclo
+     */
+    public NotificationRun runNow(Integer nroRestauranteFilter) {
+        NotificationRun run;
+        try {
+            run = clickNotificationService.notifyPendingClicks(nroRestauranteFilter, null, 0);
+        } catch (RuntimeException e) {
+            afterRun(null, e);
+            throw e;
+        }
+        afterRun(run, null);
+        return run;
+    }
+
+    /** @return estado del circuito, backoff y último ciclo */
+    public Map<String, Object> stats() {
+        stateLock.lock();
+        try {
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("habilitado", enabled);
+            out.put("circuito", circuit.name());
+            out.put("fallasConsecutivas", consecutiveFailures);
+            out.put("proximoCicloEnMs", nextDelayMs);
+            out.put("ultimoCiclo", lastRunAt == null ? null : lastRunAt.toString());
+            if (lastRun != null) {
+                out.put("pendientes", lastRun.pending());
+                out.put("notificados", lastRun.notified());
+                out.put("fallidos", lastRun.failed());
+                out.put("rechazados", lastRun.rejected());
+                out.put("omitidos", lastRun.skipped());
+            }
+            out.put("ultimoError", lastError);
+            return out;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    public CircuitState circuitState() {
+        stateLock.lock();
+        try {
+            return circuit;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    /**
+     * Ciclo programado, a continuación del anterior si éste terminó por el tope: con el circuito half-open sólo
+     * se envía un click de prueba.
+     */
+    private void scheduledRun() {
+        boolean probe;
+        ClickKey from;
+        stateLock.lock();
+        try {
+            probe = circuit == CircuitState.HALF_OPEN;
+            from = cursor;
+        } finally {
+            stateLock.unlock();
+        }
+        try {
+            NotificationRun run = clickNotificationService.notifyPendingClicks(null, from, probe ? 1 : maxClicksPerRun);
+            afterRun(run, null);
+        } catch (Exception e) {
+            log.error("Falló el ciclo de notificación de clicks: {}", e.getMessage());
+            afterRun(null, e);
+        }
+    }
+
+    /**
+     * Actualiza el estado con el resultado de un ciclo y programa el siguiente.
+     * @param run resultado, o null si el ciclo lanzó {@code error}
+     */
+    private void afterRun(NotificationRun run, Exception error) {
+        long delay;
+        stateLock.lock();
+        try {
+            lastRunAt = Instant.now();
+            lastRun = run;
+            lastError = error == null ? null : String.valueOf(error.getMessage());
+            delay = nextDelay(run, error != null);
+            nextDelayMs = delay;
+        } finally {
+            stateLock.unlock();
+        }
+        if (scheduler != null) {
+            reschedule(delay);
+        }
+    }
+
+    /**
+     * Transición del circuito, cursor y demora hasta el próximo ciclo. Se invoca con {@code stateLock} tomado.
+     * Los clicks rechazados en forma definitiva no cuentan como falla: la API respondió.
+     * @return milisegundos hasta el próximo ciclo
+     */
+    private long nextDelay(NotificationRun run, boolean error) {
+        boolean failed = error || (run.failed() > 0 && run.notified() == 0);
+        if (failed) {
+            // Se conserva el cursor: el siguiente ciclo reintenta los mismos clicks
+            failedRuns.increment();
+            consecutiveFailures++;
+            if (circuit == CircuitState.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+                if (circuit != CircuitState.OPEN) {
+                    log.warn("Circuito de notificación abierto tras {} ciclos fallidos; se reintenta en {} ms",
+                            consecutiveFailures, openMs);
+                    circuitOpened.increment();
+                }
+                circuit = CircuitState.OPEN;
+                return openMs;
+            }
+            int exponent = Math.min(consecutiveFailures - 1, 30);
+            return Math.min(backoffMaxMs, backoffInitialMs << exponent);
+        }
+        if (circuit != CircuitState.CLOSED) {
+            log.info("Circuito de notificación cerrado: la API del restaurante volvió a aceptar clicks");
+        }
+        circuit = CircuitState.CLOSED;
+        consecutiveFailures = 0;
+        cursor = run.resumeAfter();
+        if (cursor != null) {
+            notifiedRuns.increment();
+            idleIntervalMs = minIntervalMs;
+            return 0;
+        }
+        if (run.notified() == 0 && run.failed() == 0) {
+            idleRuns.increment();
+            long delay = idleIntervalMs;
+            idleIntervalMs = Math.min(maxIntervalMs, idleIntervalMs * 2);
+            return delay;
+        }
+        notifiedRuns.increment();
+        idleIntervalMs = minIntervalMs;
+        return minIntervalMs;
+    }
+
+    /**
+     * Reemplaza el ciclo programado; al vencer un circuito abierto pasa a half-open antes de ejecutar.
+     */
+    private void reschedule(long delayMs) {
+        stateLock.lock();
+        try {
+            if (next != null) {
+                next.cancel(false);
+            }
+            if (scheduler.isShutdown()) {
+                return;
+            }
+            next = scheduler.schedule(() -> {
+                stateLock.lock();
+                try {
+                    if (circuit == CircuitState.OPEN) {
+                        circuit = CircuitState.HALF_OPEN;
+                    }
+                } finally {
+                    stateLock.unlock();
+                }
+                scheduledRun();
+            }, delayMs, TimeUnit.MILLISECONDS);
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    private Counter runCounter(String outcome) {
+        return Counter.builder("ristorino.notifications.scheduler.runs")
+                .description("Ciclos de notificación continua de clicks")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -1,33 +1,62 @@
 package ar.edu.ubp.das.ristorinoapi.services;
 
+import ar.edu.ubp.das.ristorinoapi.beans.ClickKey;
+import ar.edu.ubp.das.ristorinoapi.beans.PendingClick;
+import ar.edu.ubp.das.ristorinoapi.components.JwtTokenProvider;
 import ar.edu.ubp.das.ristorinoapi.repositories.ClickRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
-import java.nio.charset.StandardCharsets;
-import java.time.Instant;
-import java.util.Base64;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Servicio para notificar a la API externa de los restaurantes los clicks pendientes de confirmación.
  * <p>Recorre los registros no notificados y realiza POST al endpoint remoto. Si el POST es exitoso se marca
- * el click como notificado en la base de datos. El endpoint remoto actualmente espera un JSON sencillo con
+ * el click como notificado en la base de datos. Envío y confirmación se ejecutan como un pipeline con un
+ * número acotado de requests HTTP en vuelo ({@code ristorino.notification.max-in-flight}); las confirmaciones
+ * se agrupan y se marcan en BD en lote ({@code ristorino.notification.confirm-batch-size}). El endpoint remoto actualmente espera un JSON sencillo con
  * el código externo del contenido y el costo del click.</p>
  * <p>La autenticación se basa en JWT HS256 generado localmente con un secreto compartido y payload fijo
- * que incluye campos estándar iat/exp para control de expiración.</p>
- * <p>Este servicio fue concebido para ejecución manual (endpoint protegido o tarea administrativa); no se
- * programa todavía como tarea automática/scheduler.</p>
+ * que incluye campos estándar iat/exp para control de expiración; {@link JwtTokenProvider} lo renueva en
+ * segundo plano antes de que expire.</p>
+ * <p>Un click que la API rechaza de forma definitiva (4xx distinto de 401, 403, 408 y 429) se cuenta como
+ * rechazado, no como falla: no indica que la API esté caída, y se vuelve a intentar recién en la siguiente pasada
+ * sobre el backlog.</p>
+ * <p>Métricas: {@code ristorino.notifications.send} (timer por outcome: success, rejected, error),
+ * {@code ristorino.notifications.confirm} (contador por outcome: updated, not_updated, error) y
+ * {@code ristorino.notifications.skipped} (filas inválidas).</p>
+ * <p>Lo ejecuta de forma continua {@link ClickNotificationScheduler}, que además lo protege con backoff y
+ * circuit breaker cuando la API del restaurante falla; el endpoint manual sigue disponible para forzar una
+ * ejecución.</p>
  */
 @Service
 public class ClickNotificationService {
@@ -37,134 +66,336 @@ public class ClickNotificationService {
     @Autowired
     private ClickRepository clickRepository;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    // Pool keep-alive con timeouts (ver NotificationHttpClientConfig)
+    @Autowired
+    @Qualifier("notificationRestTemplate")
+    private RestTemplate restTemplate;
 
-    // URL destino del restaurante y secreto JWT ahora externalizados en application.properties
+    // URL destino del restaurante externalizada en application.properties (el secreto JWT lo usa JwtTokenProvider)
     @Value("${ristorino.notification.dest-url}")
     private String destUrl;
-    @Value("${ristorino.notification.jwt-secret}")
-    private String jwtSecret;
-    @Value("${ristorino.notification.jwt-ttl-seconds:300}")
-    private long tokenTtlSeconds;
 
-    // Cache simple del token actual y su expiración (epoch seconds)
-    private String cachedToken;
-    private long cachedTokenExpEpoch;
+    // Cantidad máxima de POST simultáneos hacia la API del restaurante
+    @Value("${ristorino.notification.max-in-flight:8}")
+    private int maxInFlight;
+    // Confirmaciones por round trip a la BD y espera máxima para completar un lote
+    @Value("${ristorino.notification.confirm-batch-size:200}")
+    private int confirmBatchSize;
+    @Value("${ristorino.notification.confirm-linger-ms:20}")
+    private long confirmLingerMs;
+    // Clicks pendientes por página (paginación keyset sobre la clave del click); 0 = una única consulta sin paginar
+    @Value("${ristorino.notification.page-size:0}")
+    private int pageSize;
+    // Con hilos virtuales (Java 21) cada POST corre en su propio hilo virtual; max-in-flight sigue acotando la concurrencia
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final ReentrantLock runLock = new ReentrantLock();
+    private Semaphore inFlight;
+    private ExecutorService sendExecutor;
+    private final BlockingQueue<ConfirmRequest> confirmQueue = new LinkedBlockingQueue<>();
+    private Thread confirmer;
+
+    private Counter skipped;
+
+    @PostConstruct
+    void startPipeline() {
+        skipped = Counter.builder("ristorino.notifications.skipped")
+                .description("Clicks pendientes omitidos por datos incompletos")
+                .register(meterRegistry);
+        int sendThreads = Math.max(1, maxInFlight);
+        inFlight = new Semaphore(sendThreads);
+        sendExecutor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("click-notify-send-", 1).factory())
+                : Executors.newFixedThreadPool(sendThreads, namedDaemonThreads("click-notify-send-"));
+        confirmer = namedDaemonThreads("click-notify-confirm-").newThread(this::confirmLoop);
+        confirmer.start();
+    }
+
+    @PreDestroy
+    void stopPipeline() {
+        sendExecutor.shutdown();
+        confirmer.interrupt();
+    }
 
     /**
      * Notifica todos los clicks no notificados obtenidos desde la base de datos.
+     * <p>El envío HTTP y la confirmación en BD son etapas separadas: hasta {@code max-in-flight} POST se
+     * ejecutan en paralelo y, a medida que cada uno responde 2xx, el click pasa a la cola de confirmación,
+     * que lo marca en BD junto con los demás confirmados del mismo lote, solapando la latencia de red con la
+     * de la base de datos. Con {@code ristorino.notification.page-size} el backlog se recorre por páginas,
+     * con memoria acotada al tamaño de página. Las ejecuciones concurrentes
+     * de este método se serializan para no notificar dos veces el mismo click.</p>
      * @param nroRestauranteFilter filtro opcional por restaurante (null = todos)
      * @return cantidad de clicks notificados exitosamente
      */
     public int notifyAllPendingClicks(Integer nroRestauranteFilter) {
-        List<Map<String, Object>> rows = clickRepository.getUnnotifiedClicks(nroRestauranteFilter, null, null);
-        if (rows.isEmpty()) {
-            log.info("No hay clicks pendientes de notificar.");
-            return 0;
-        }
-        int okCount = 0;
-        String bearerToken = getJwtToken();
-        for (Map<String, Object> row : rows) {
-            Integer nroRestaurante = asInt(row.get("nro_restaurante"));
-            Integer nroIdioma = asInt(row.get("nro_idioma"));
-            Integer nroContenido = asInt(row.get("nro_contenido"));
-            Integer nroClick = asInt(row.get("nro_click"));
-            Double costoClick = asDouble(row.getOrDefault("costo_click", row.get("costoClick")));
-            Object codContenidoObj = row.getOrDefault("cod_contenido_restaurante", row.get("codContenidoRestaurante"));
-            String codContenidoRestaurante = codContenidoObj != null ? codContenidoObj.toString() : null;
-
-            if (nroRestaurante == null || nroContenido == null || nroClick == null) {
-                log.warn("Fila inválida, faltan claves: {}", row);
-                continue;
+        return notifyPendingClicks(nroRestauranteFilter, null, 0).notified();
+    }
+
+    /**
+     * Igual que {@link #notifyAllPendingClicks} pero con un tope de clicks a enviar y a partir de un cursor: al
+     * alcanzar el tope no se consultan más páginas, de modo que una ejecución sobre un backlog grande (o contra un
+     * destino caído) tiene duración acotada, y la siguiente puede continuar donde terminó ésta.
+     * <p>Sólo consumen el tope los clicks enviados que se notificaron o fallaron; las filas omitidas por datos
+     * incompletos y los clicks rechazados por la API se saltean sin consumirlo, para que no bloqueen el resto del
+     * backlog.</p>
+     * @param nroRestauranteFilter filtro opcional por restaurante (null = todos)
+     * @param after clave del último click procesado por la ejecución anterior (null = desde el principio)
+     * @param maxClicks máximo de clicks a enviar (0 = sin tope)
+     * @return resultado de la ejecución
+     */
+    public NotificationRun notifyPendingClicks(Integer nroRestauranteFilter, ClickKey after, int maxClicks) {
+        runLock.lock();
+        try {
+            RunCounts counts = new RunCounts();
+            AtomicInteger budget = new AtomicInteger(maxClicks > 0 ? maxClicks : Integer.MAX_VALUE);
+            AtomicReference<ClickKey> last = new AtomicReference<>(after);
+            clickRepository.forEachUnnotifiedClickPage(nroRestauranteFilter, null, null, after, pageSize, page -> {
+                // La página se envía en tramos de a lo sumo el tope restante (sin paginar, la única página es todo
+                // el backlog); omitidos y rechazados devuelven su parte del tope para el tramo siguiente
+                int from = 0;
+                while (from < page.size() && budget.get() > 0) {
+                    List<PendingClick> clicks = page.subList(from, Math.min(page.size(), from + budget.get()));
+                    int notCharged = counts.skipped.get() + counts.rejected.get();
+                    notifyPage(clicks, counts);
+                    notCharged = counts.skipped.get() + counts.rejected.get() - notCharged;
+                    budget.addAndGet(notCharged - clicks.size());
+                    counts.read.addAndGet(clicks.size());
+                    last.set(clicks.stream().map(PendingClick::key).max(ClickKey.KEYSET_ORDER).orElseThrow());
+                    from += clicks.size();
+                }
+                return budget.get() > 0;
+            });
+            int read = counts.read.get();
+            if (read == 0) {
+                log.info("No hay clicks pendientes de notificar.");
+                return new NotificationRun(0, 0, 0, 0, 0, null);
             }
-            if (codContenidoRestaurante == null || codContenidoRestaurante.isBlank()) {
-                log.warn("Fila sin cod_contenido_restaurante, se omite notificación: click={}", nroClick);
+            log.info("Notificaciones exitosas: {} de {} ({} rechazadas, {} omitidas)",
+                    counts.ok.get(), read, counts.rejected.get(), counts.skipped.get());
+            // Con tope agotado puede quedar backlog después del último procesado
+            ClickKey resumeAfter = budget.get() > 0 ? null : last.get();
+            return new NotificationRun(read, counts.ok.get(), counts.failed.get(), counts.rejected.get(),
+                    counts.skipped.get(), resumeAfter);
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /** @return clicks pendientes por página (0 = sin paginar) */
+    public int pageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Envía y confirma una página de clicks pendientes; retorna cuando todos terminaron.
+     * @param counts suma los clicks notificados y confirmados, los fallidos, los rechazados y los omitidos
+     */
+    private void notifyPage(List<PendingClick> clicks, RunCounts counts) {
+        List<CompletableFuture<Boolean>> results = new ArrayList<>(clicks.size());
+        for (PendingClick pending : clicks) {
+            if (!isNotifiable(pending)) {
+                counts.skipped.incrementAndGet();
                 continue;
             }
-
-            try {
-                Map<String, Object> payload = Map.of(
-                        "codContenidoRestaurante", codContenidoRestaurante,
-                        "costoClick", costoClick != null ? costoClick : 0.0
-                );
-                HttpHeaders headers = new HttpHeaders();
-                headers.setContentType(MediaType.APPLICATION_JSON);
-                headers.setAccept(List.of(MediaType.APPLICATION_JSON));
-                headers.setBearerAuth(bearerToken);
-                HttpEntity<Map<String, Object>> req = new HttpEntity<>(payload, headers);
-
-                var resp = restTemplate.postForEntity(destUrl, req, String.class);
-                if (resp.getStatusCode().is2xxSuccessful() || resp.getStatusCode().value() == 201) {
-                    boolean updated = clickRepository.confirmClickNotified(nroRestaurante, nroIdioma, nroContenido, nroClick);
-                    if (updated) {
-                        okCount++;
-                        log.info("Click {} notificado y confirmado.", nroClick);
-                    } else {
-                        log.warn("Click {} notificado pero no se confirmó en BD.", nroClick);
-                    }
-                } else {
-                    log.warn("Falla notificando click {}: status {} body {}", nroClick, resp.getStatusCode(), resp.getBody());
+            inFlight.acquireUninterruptibly();
+            CompletableFuture<SendOutcome> sent = CompletableFuture.supplyAsync(() -> send(pending), sendExecutor);
+            sent.whenComplete((outcome, ex) -> inFlight.release());
+            results.add(sent.thenCompose(outcome -> {
+                if (outcome != SendOutcome.SUCCESS) {
+                    (outcome == SendOutcome.REJECTED ? counts.rejected : counts.failed).incrementAndGet();
+                    return CompletableFuture.completedFuture(false);
                 }
-            } catch (Exception ex) {
-                log.error("Error notificando click {}: {}", nroClick, ex.getMessage());
+                return requestConfirmation(pending);
+            }));
+        }
+        for (CompletableFuture<Boolean> result : results) {
+            if (result.join()) {
+                counts.ok.incrementAndGet();
             }
         }
-        log.info("Notificaciones exitosas: {} de {}", okCount, rows.size());
-        return okCount;
     }
 
     /**
-     * Obtiene (o reutiliza) un token JWT HS256 con payload fijo {"registrador":"ristorino"}.
-     * Se agrega iat y exp para control de vigencia.
-     * @return token JWT listo para usar en Authorization Bearer
+     * Valida un click pendiente; devuelve false (y lo registra) si no se puede notificar.
      */
-    private synchronized String getJwtToken() {
-        long now = Instant.now().getEpochSecond();
-        if (cachedToken != null && now < cachedTokenExpEpoch) {
-            return cachedToken;
+    private boolean isNotifiable(PendingClick pending) {
+        if (!pending.hasKeys()) {
+            log.warn("Fila inválida, faltan claves: {}", pending);
+            skipped.increment();
+            return false;
+        }
+        String codContenidoRestaurante = pending.codContenidoRestaurante();
+        if (codContenidoRestaurante == null || codContenidoRestaurante.isBlank()) {
+            log.warn("Fila sin cod_contenido_restaurante, se omite notificación: click={}", pending.nroClick());
+            skipped.increment();
+            return false;
         }
-        long exp = now + tokenTtlSeconds;
-        String headerJson = "{\"alg\":\"HS256\",\"typ\":\"JWT\"}";
-        String payloadJson = String.format("{\"registrador\":\"%s\",\"iat\":%d,\"exp\":%d}", "ristorino", now, exp);
-        String headerB64 = base64Url(headerJson.getBytes(StandardCharsets.UTF_8));
-        String payloadB64 = base64Url(payloadJson.getBytes(StandardCharsets.UTF_8));
-        String toSign = headerB64 + "." + payloadB64;
-        String signatureB64 = hmacSha256Base64Url(toSign, jwtSecret);
-        cachedToken = toSign + "." + signatureB64;
-        cachedTokenExpEpoch = exp - 5; // margen de seguridad antes de expirar
-        return cachedToken;
+        return true;
     }
 
     /**
-     * Genera firma HMAC SHA256 y la codifica en base64url.
+     * Etapa de envío: POST a la API del restaurante.
+     * @return SUCCESS si respondió 2xx; REJECTED si rechazó el click de forma definitiva; ERROR en otro caso
      */
-    private String hmacSha256Base64Url(String data, String secret) {
+    private SendOutcome send(PendingClick pending) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        SendOutcome outcome = SendOutcome.ERROR;
         try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
-            byte[] raw = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
-            return base64Url(raw);
-        } catch (Exception e) {
-            throw new IllegalStateException("No se pudo generar firma JWT", e);
+            Map<String, Object> payload = Map.of(
+                    "codContenidoRestaurante", pending.codContenidoRestaurante(),
+                    "costoClick", pending.costoClick()
+            );
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+            headers.setBearerAuth(jwtTokenProvider.getToken());
+            HttpEntity<Map<String, Object>> req = new HttpEntity<>(payload, headers);
+
+            var resp = restTemplate.postForEntity(destUrl, req, String.class);
+            if (resp.getStatusCode().is2xxSuccessful()) {
+                outcome = SendOutcome.SUCCESS;
+                return outcome;
+            }
+            outcome = outcomeOf(resp.getStatusCode());
+            log.warn("Falla notificando click {}: status {} body {}", pending.nroClick(), resp.getStatusCode(), resp.getBody());
+        } catch (HttpClientErrorException ex) {
+            outcome = outcomeOf(ex.getStatusCode());
+            log.warn("Click {} rechazado por la API del restaurante: {}", pending.nroClick(), ex.getMessage());
+        } catch (Exception ex) {
+            log.error("Error notificando click {}: {}", pending.nroClick(), ex.getMessage());
+        } finally {
+            sample.stop(Timer.builder("ristorino.notifications.send")
+                    .description("POST de notificación de clicks a la API del restaurante")
+                    .tag("outcome", outcome.name().toLowerCase())
+                    .register(meterRegistry));
         }
+        return outcome;
+    }
+
+    /**
+     * Un 4xx es un rechazo definitivo del click, salvo los que dependen de la API y no del click: credenciales
+     * (401, 403), timeout (408) y límite de tasa (429).
+     */
+    static SendOutcome outcomeOf(HttpStatusCode status) {
+        int code = status.value();
+        boolean definitive = status.is4xxClientError() && code != 401 && code != 403 && code != 408 && code != 429;
+        return definitive ? SendOutcome.REJECTED : SendOutcome.ERROR;
+    }
+
+    /**
+     * Encola el click para su confirmación en lote.
+     * @return futuro que se completa con true si la fila se actualizó
+     */
+    private CompletableFuture<Boolean> requestConfirmation(PendingClick pending) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        confirmQueue.add(new ConfirmRequest(pending, result));
+        return result;
     }
 
     /**
-     * Codifica bytes en Base64 y adapta a representación URL-safe sin padding.
+     * Etapa de confirmación: agrupa los clicks enviados con éxito y los marca como notificados con
+     * {@link ClickRepository#confirmClicksNotified} (un round trip por lote).
      */
-    private String base64Url(byte[] bytes) {
-        String b64 = Base64.getEncoder().encodeToString(bytes);
-        return b64.replace('+', '-').replace('/', '_').replaceAll("=+$", "");
+    private void confirmLoop() {
+        List<ConfirmRequest> batch = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(confirmQueue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmLingerMs);
+                while (batch.size() < confirmBatchSize) {
+                    confirmQueue.drainTo(batch, confirmBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= confirmBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    ConfirmRequest next = confirmQueue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                confirmBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                batch.forEach(r -> r.result().complete(false)); // no-op para los ya completados
+                batch.clear();
+            }
+        }
     }
 
-    /** Conversión segura a Integer desde objetos genéricos. */
-    private Integer asInt(Object o) {
-        if (o instanceof Number n) return n.intValue();
-        try { return o != null ? Integer.parseInt(o.toString()) : null; } catch (Exception e) { return null; }
+    private void confirmBatch(List<ConfirmRequest> batch) {
+        try {
+            List<ClickKey> keys = new ArrayList<>(batch.size());
+            for (ConfirmRequest r : batch) {
+                keys.add(r.pending().key());
+            }
+            Set<ClickKey> updated = clickRepository.confirmClicksNotified(keys);
+            for (ConfirmRequest r : batch) {
+                boolean ok = updated.contains(r.pending().key());
+                if (ok) {
+                    log.info("Click {} notificado y confirmado.", r.pending().nroClick());
+                } else {
+                    log.warn("Click {} notificado pero no se confirmó en BD.", r.pending().nroClick());
+                }
+                r.result().complete(ok);
+                confirmCounter(ok ? "updated" : "not_updated").increment();
+            }
+        } catch (Exception ex) {
+            log.error("Falló la confirmación en BD de {} clicks notificados: {}", batch.size(), ex.getMessage());
+            confirmCounter("error").increment(batch.size());
+        }
+    }
+
+    private Counter confirmCounter(String outcome) {
+        return Counter.builder("ristorino.notifications.confirm")
+                .description("Confirmaciones en BD de clicks notificados")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
-    /** Conversión segura a Double desde objetos genéricos. */
-    private Double asDouble(Object o) {
-        if (o instanceof Number n) return n.doubleValue();
-        try { return o != null ? Double.parseDouble(o.toString()) : null; } catch (Exception e) { return null; }
+
+    private static ThreadFactory namedDaemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * Resultado de una ejecución de notificación.
+     * @param pending clicks pendientes procesados (leídos de la BD)
+     * @param notified clicks notificados y confirmados
+     * @param failed POST con error o sin respuesta 2xx (la API del restaurante no está disponible)
+     * @param rejected clicks rechazados en forma definitiva por la API
+     * @param skipped filas omitidas por datos incompletos
+     * @param resumeAfter clave del último click procesado si la ejecución terminó por el tope y puede quedar
+     *                    backlog después; null si se recorrió todo el backlog
+     */
+    public record NotificationRun(int pending, int notified, int failed, int rejected, int skipped,
+                                  ClickKey resumeAfter) {}
+
+    /** Resultado del envío de un click. */
+    enum SendOutcome { SUCCESS, REJECTED, ERROR }
+
+    /** Contadores de una ejecución (se actualizan desde los hilos del pipeline). */
+    private static final class RunCounts {
+        private final AtomicInteger read = new AtomicInteger();
+        private final AtomicInteger ok = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger rejected = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
     }
+
+    /** Click enviado con éxito a la espera de su confirmación en BD. */
+    private record ConfirmRequest(PendingClick pending, CompletableFuture<Boolean> result) {}
 }
@@ -0,0 +1,301 @@
+package ar.edu.ubp.das.ristorinoapi.services;
+
+import ar.edu.ubp.das.ristorinoapi.beans.ClickRequest;
+import ar.edu.ubp.das.ristorinoapi.repositories.ClickRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Registro diferido (write-behind) de clicks anónimos.
+ * <p>Con {@code ristorino.clicks.write-behind.enabled=true} el endpoint de click sólo encola el click en una
+ * cola acotada en memoria y responde 202; un hilo de fondo agrupa los clicks en lotes de hasta
+ * {@code batch-size} (esperando como mucho {@code linger-ms} a que se complete el lote) y los registra con
+ * {@link ClickRepository#registerAnonymousClicks} en un único round trip.</p>
+ * <p>Si la cola está llena, {@link #enqueue} espera hasta {@code offer-timeout-ms} y luego rechaza el click
+ * (backpressure: el endpoint responde 503). Al detener la aplicación se deja de aceptar clicks y se vacía la
+ * cola antes de cerrar; dejar de aceptar toma el lock de escritura, así que espera a los {@link #enqueue} en
+ * curso y ningún click aceptado queda en la cola después de que el hilo de fondo terminó. La fecha del click se
+ * fija al encolarlo, no al persistirlo.</p>
+ * <p>Si un lote falla (p.ej. un contenido inexistente) se reintenta click por click para no perder el resto. Si
+ * falló la conexión durante el lote (jerarquía {@code TransientDataAccessException},
+ * {@code RecoverableDataAccessException}, {@code DataAccessResourceFailureException}) no se sabe si la
+ * transacción se confirmó: el lote no se reenvía, para no duplicar clicks, y sus clicks se registran en el log
+ * y se cuentan como inciertos.</p>
+ * <p>Los errores que garantizan que el lote no se aplicó se reintentan enteros hasta {@code retry-attempts} veces
+ * (con {@code retry-backoff-ms} de espera creciente) y después click por click: no haber obtenido conexión
+ * ({@code CannotGetJdbcConnectionException}), deadlocks y timeouts de locks ({@code ConcurrencyFailureException}) y
+ * timeouts de la consulta ({@code QueryTimeoutException}); con {@code XACT_ABORT ON} los dos últimos deshacen la
+ * transacción completa antes del {@code COMMIT}.</p>
+ */
+@Service
+public class ClickWriteBehindService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClickWriteBehindService.class);
+
+    @Autowired
+    private ClickRepository clickRepository;
+
+    @Value("${ristorino.clicks.write-behind.enabled:false}")
+    private boolean enabled;
+    @Value("${ristorino.clicks.write-behind.capacity:10000}")
+    private int capacity;
+    @Value("${ristorino.clicks.write-behind.batch-size:200}")
+    private int batchSize;
+    @Value("${ristorino.clicks.write-behind.linger-ms:200}")
+    private long lingerMs;
+    @Value("${ristorino.clicks.write-behind.offer-timeout-ms:50}")
+    private long offerTimeoutMs;
+    @Value("${ristorino.clicks.write-behind.shutdown-timeout-ms:30000}")
+    private long shutdownTimeoutMs;
+    @Value("${ristorino.clicks.write-behind.retry-attempts:3}")
+    private int retryAttempts;
+    @Value("${ristorino.clicks.write-behind.retry-backoff-ms:100}")
+    private long retryBackoffMs;
+
+    private BlockingQueue<ClickRequest> queue;
+    private Thread flusher;
+    private volatile boolean accepting;
+    // enqueue toma el de lectura (verificar accepting y encolar); stop el de escritura para dejar de aceptar
+    private final ReentrantReadWriteLock acceptLock = new ReentrantReadWriteLock();
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder persisted = new LongAdder();
+    private final LongAdder lost = new LongAdder();
+    private final LongAdder uncertain = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        batchSize = Math.max(1, Math.min(batchSize, ClickRepository.MAX_CLICKS_PER_BATCH));
+        queue = new ArrayBlockingQueue<>(capacity);
+        accepting = true;
+        flusher = new Thread(this::flushLoop, "click-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("Registro diferido de clicks habilitado (capacidad={}, lote={}, linger={}ms)", capacity, batchSize, lingerMs);
+    }
+
+    /** @return true si el modo write-behind está habilitado */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Encola un click para su registro diferido.
+     * @return true si el click fue aceptado, false si la cola está llena o el servicio se está deteniendo
+     */
+    public boolean enqueue(Integer nroRestaurante, Integer nroIdioma, Integer nroContenido) {
+        if (nroRestaurante == null || nroIdioma == null || nroContenido == null) {
+            throw new IllegalArgumentException("Parametros requeridos nroRestaurante, nroIdioma y nroContenido no pueden ser null");
+        }
+        acceptLock.readLock().lock();
+        try {
+            if (!accepting) {
+                rejected.increment();
+                return false;
+            }
+            ClickRequest click = new ClickRequest();
+            click.setNroRestaurante(nroRestaurante);
+            click.setNroIdioma(nroIdioma);
+            click.setNroContenido(nroContenido);
+            click.setFechaRegistro(LocalDateTime.now());
+            if (queue.offer(click, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                accepted.increment();
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            acceptLock.readLock().unlock();
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /** @return contadores de aceptados, rechazados, persistidos, perdidos, inciertos, reintentos y lotes, más el largo de la cola */
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("habilitado", enabled);
+        out.put("enCola", queue == null ? 0 : queue.size());
+        out.put("aceptados", accepted.sum());
+        out.put("rechazados", rejected.sum());
+        out.put("persistidos", persisted.sum());
+        out.put("perdidos", lost.sum());
+        out.put("inciertos", uncertain.sum());
+        out.put("reintentos", retries.sum());
+        out.put("lotes", batches.sum());
+        return out;
+    }
+
+    @PreDestroy
+    void stop() {
+        if (flusher == null) {
+            return;
+        }
+        // Espera a los enqueue en curso (como mucho offer-timeout-ms): después nadie más encola
+        acceptLock.writeLock().lock();
+        try {
+            accepting = false;
+        } finally {
+            acceptLock.writeLock().unlock();
+        }
+        try {
+            flusher.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.error("Se detuvo el registro diferido con {} clicks sin persistir", queue.size());
+        }
+    }
+
+    private void flushLoop() {
+        List<ClickRequest> batch = new ArrayList<>(batchSize);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                ClickRequest first = queue.poll(lingerMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !accepting) {
+                        break;
+                    }
+                    ClickRequest next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                // Sólo se interrumpe si el contenedor fuerza la detención: persistir lo pendiente y salir
+                do {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    flush(batch);
+                    batch.clear();
+                } while (!queue.isEmpty());
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Error inesperado en el registro diferido de clicks: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<ClickRequest> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            registerWithRetries(batch);
+        } catch (Exception e) {
+            if (outcomeUnknown(e)) {
+                uncertain.add(batch.size());
+                log.error("Falló la conexión durante el lote de {} clicks y no se sabe si se confirmó; no se reenvía: {}",
+                        batch.size(), e.getMessage());
+                for (ClickRequest c : batch) {
+                    log.error("Click incierto (restaurante={}, idioma={}, contenido={}, fecha={})",
+                            c.getNroRestaurante(), c.getNroIdioma(), c.getNroContenido(), c.getFechaRegistro());
+                }
+                return;
+            }
+            log.warn("Falló el lote de {} clicks, se reintenta individualmente: {}", batch.size(), e.getMessage());
+            for (ClickRequest c : batch) {
+                try {
+                    clickRepository.registerAnonymousClick(c.getNroRestaurante(), c.getNroIdioma(), c.getNroContenido(), c.getFechaRegistro());
+                    persisted.increment();
+                } catch (Exception ex) {
+                    lost.increment();
+                    log.error("Click perdido (restaurante={}, idioma={}, contenido={}, fecha={}): {}",
+                            c.getNroRestaurante(), c.getNroIdioma(), c.getNroContenido(), c.getFechaRegistro(), ex.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Registra el lote, reintentándolo entero mientras falle con un error que asegura que no se aplicó.
+     * Si se agotan los reintentos (o se interrumpe la espera) propaga el último error.
+     */
+    private void registerWithRetries(List<ClickRequest> batch) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                persisted.add(clickRepository.registerAnonymousClicks(batch));
+                batches.increment();
+                log.debug("Lote de {} clicks registrado", batch.size());
+                return;
+            } catch (RuntimeException e) {
+                if (!notApplied(e) || attempt > retryAttempts) {
+                    throw e;
+                }
+                retries.increment();
+                log.warn("El lote de {} clicks no se aplicó ({}), reintento {} de {}", batch.size(), e.getMessage(),
+                        attempt, retryAttempts);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(retryBackoffMs * attempt);
+                } catch (InterruptedException ie) {
+                    // Detención forzada: se sigue con el reintento click por click y se sale
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true si el error garantiza que el lote no se aplicó: no se obtuvo conexión, o la base deshizo la
+     *         transacción por un deadlock, un timeout de lock o un timeout de la consulta
+     */
+    private static boolean notApplied(Exception e) {
+        return e instanceof CannotGetJdbcConnectionException
+                || e instanceof ConcurrencyFailureException
+                || e instanceof QueryTimeoutException;
+    }
+
+    /**
+     * @return true si el error pudo ocurrir con el lote ya enviado (conexión caída durante el COMMIT): la
+     *         transacción pudo haberse confirmado o no
+     */
+    private static boolean outcomeUnknown(Exception e) {
+        if (notApplied(e)) {
+            return false;
+        }
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException;
+    }
+}
@@ -0,0 +1,155 @@
+package ar.edu.ubp.das.ristorinoapi.services;
+
+import ar.edu.ubp.das.ristorinoapi.beans.RestaurantResponse;
+import ar.edu.ubp.das.ristorinoapi.repositories.PromotionRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Obtiene las promociones de varios restaurantes en una sola operación, resolviendo cada restaurante en
+ * paralelo a través de {@link PromotionRepository} (y por lo tanto de su cache).
+ * <p>El paralelismo queda acotado por un pool de hilos propio cuyo tamaño se deriva del pool de conexiones:
+ * por defecto la mitad de {@code maximumPoolSize} de Hikari, para no acaparar conexiones que necesitan los
+ * demás endpoints. Se puede fijar con {@code ristorino.promotions.bulk.parallelism}.</p>
+ * <p>Un error en un restaurante no hace fallar el lote: se informa en {@link BulkResult#errores()}.</p>
+ */
+@Service
+public class PromotionBulkService {
+
+    private static final Logger log = LoggerFactory.getLogger(PromotionBulkService.class);
+
+    @Autowired
+    private PromotionRepository promotionRepository;
+    @Autowired
+    private DataSource dataSource;
+
+    // Hilos concurrentes contra la BD; 0 = la mitad del pool de conexiones
+    @Value("${ristorino.promotions.bulk.parallelism:0}")
+    private int parallelism;
+    @Value("${ristorino.promotions.bulk.max-ids:100}")
+    private int maxIds;
+    @Value("${ristorino.promotions.bulk.timeout-ms:10000}")
+    private long timeoutMs;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        if (parallelism <= 0) {
+            int poolSize = dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 10;
+            parallelism = Math.max(1, poolSize / 2);
+        }
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threads = r -> {
+            Thread t = new Thread(r, "promotions-bulk-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        executor = Executors.newFixedThreadPool(parallelism, threads);
+        log.info("Consulta masiva de promociones con paralelismo {}", parallelism);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Obtiene las promociones de todos los restaurantes indicados. Los ids repetidos se consultan una vez.
+     * @param ids restaurantes a consultar (no vacío, como máximo {@code max-ids})
+     * @param soloVigentes filtro de vigencia aplicado a todos (null = no filtra)
+     * @param nroSucursal sucursal aplicada a todos (null = todas/globales)
+     * @return resultados y errores por restaurante, en el orden recibido
+     */
+    public BulkResult getPromotions(Collection<Integer> ids, Boolean soloVigentes, Integer nroSucursal) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos un restaurante");
+        }
+        Set<Integer> distinct = new LinkedHashSet<>(ids);
+        if (distinct.contains(null)) {
+            throw new IllegalArgumentException("Los ids de restaurante no pueden ser null");
+        }
+        if (distinct.size() > maxIds) {
+            throw new IllegalArgumentException("Se admiten como máximo " + maxIds + " restaurantes por consulta");
+        }
+
+        // El SP de cada restaurante corre con timeout hasta el vencimiento del lote: cancel(false) no detiene
+        // una consulta JDBC en curso, y sin esto seguiría ocupando una conexión después de responder.
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        Map<Integer, CompletableFuture<RestaurantResponse>> pending = new LinkedHashMap<>();
+        for (Integer id : distinct) {
+            pending.put(id, CompletableFuture.supplyAsync(() -> promotionRepository.getPromotionsWithRestaurant(
+                    id, soloVigentes, nroSucursal, queryTimeoutSeconds(deadline)), executor));
+        }
+
+        Map<Integer, RestaurantResponse> resultados = new LinkedHashMap<>();
+        Map<Integer, String> errores = new LinkedHashMap<>();
+        for (Map.Entry<Integer, CompletableFuture<RestaurantResponse>> e : pending.entrySet()) {
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                resultados.put(e.getKey(), e.getValue().get(remaining, TimeUnit.NANOSECONDS));
+            } catch (TimeoutException ex) {
+                e.getValue().cancel(false);
+                errores.put(e.getKey(), "Tiempo de espera agotado");
+            } catch (ExecutionException ex) {
+                errores.put(e.getKey(), describe(ex.getCause()));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                errores.put(e.getKey(), "Consulta interrumpida");
+            }
+        }
+        if (!errores.isEmpty()) {
+            log.warn("Consulta masiva de promociones: {} de {} restaurantes con error", errores.size(), distinct.size());
+        }
+        return new BulkResult(resultados, errores);
+    }
+
+    /** @return hilos concurrentes usados para resolver cada lote */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Segundos que le quedan al lote al momento de ejecutar el SP (redondeado hacia arriba, mínimo 1).
+     * @throws IllegalStateException si el lote ya venció mientras la tarea esperaba un hilo
+     */
+    private static int queryTimeoutSeconds(long deadline) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            throw new IllegalStateException("Tiempo de espera agotado");
+        }
+        return (int) Math.max(1, (remaining + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static String describe(Throwable t) {
+        return t.getMessage() != null ? t.getMessage() : t.getClass().getSimpleName();
+    }
+
+    /**
+     * Resultado de una consulta masiva.
+     * @param resultados promociones por restaurante resuelto
+     * @param errores mensaje de error por restaurante que falló
+     */
+    public record BulkResult(Map<Integer, RestaurantResponse> resultados, Map<Integer, String> errores) {}
+}
@@ -0,0 +1,19 @@
+-- Claves de idempotencia de los clicks registrados desde el diario local (ristorino.clicks.journal.enabled=true).
+-- Cada fila es la posicion de un click en el diario (segmento, offset); ClickRepository.registerJournaledClicks la
+-- inserta en la misma transaccion que el click y saltea los que ya estan, de modo que un lote con resultado
+-- incierto se puede reenviar sin duplicar clicks. Ejecutar una vez antes de habilitar el diario.
+
+IF OBJECT_ID('dbo.clicks_diario', 'U') IS NULL
+BEGIN
+    CREATE TABLE dbo.clicks_diario (
+        nro_segmento        BIGINT    NOT NULL,
+        desplazamiento      INT       NOT NULL,
+        fecha_hora_registro DATETIME2 NOT NULL CONSTRAINT df_clicks_diario_fecha DEFAULT SYSDATETIME(),
+        CONSTRAINT pk_clicks_diario PRIMARY KEY (nro_segmento, desplazamiento)
+    );
+END;
+GO
+
+-- Las claves solo hacen falta mientras el lote pueda reenviarse (segundos o, con la base caída, horas). Se
+-- pueden purgar las de mas de unos días, p.ej. desde un job diario:
+-- DELETE FROM dbo.clicks_diario WHERE fecha_hora_registro < DATEADD(DAY, -7, SYSDATETIME());
@@ -0,0 +1,118 @@
+package ar.edu.ubp.das.ristorinoapi;
+
+import ar.edu.ubp.das.ristorinoapi.components.BoundedCache;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BoundedCacheTests {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private BoundedCache<String, String> newCache(int maxEntries, long maxWeight) {
+        return new BoundedCache<>(Duration.ofSeconds(10), maxEntries, maxWeight, String::length, now::get);
+    }
+
+    @Test
+    void get_shouldLoadOnceAndThenHit() {
+        BoundedCache<String, String> cache = newCache(10, 1000);
+        AtomicInteger loads = new AtomicInteger();
+
+        Assertions.assertEquals("v-a", cache.get("a", k -> { loads.incrementAndGet(); return "v-" + k; }));
+        Assertions.assertEquals("v-a", cache.get("a", k -> { loads.incrementAndGet(); return "v-" + k; }));
+
+        Assertions.assertEquals(1, loads.get());
+        BoundedCache.Stats stats = cache.stats();
+        Assertions.assertEquals(1, stats.hits());
+        Assertions.assertEquals(1, stats.misses());
+        Assertions.assertEquals(0.5, stats.hitRate());
+    }
+
+    @Test
+    void get_shouldReloadAfterTtl() {
+        BoundedCache<String, String> cache = newCache(10, 1000);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("a", k -> "v" + loads.incrementAndGet());
+        now.addAndGet(Duration.ofSeconds(11).toNanos());
+
+        Assertions.assertEquals("v2", cache.get("a", k -> "v" + loads.incrementAndGet()));
+        Assertions.assertEquals(1, cache.stats().expirations());
+    }
+
+    @Test
+    void put_shouldEvictLeastRecentlyUsedByEntriesAndWeight() {
+        BoundedCache<String, String> cache = newCache(2, 10);
+        cache.get("a", k -> "1111");
+        cache.get("b", k -> "2222");
+        cache.get("a", k -> "xxxx"); // "a" pasa a ser el más reciente
+        cache.get("c", k -> "3333"); // excede maxEntries: sale "b"
+
+        Assertions.assertNull(cache.getIfPresent("b"));
+        Assertions.assertEquals("1111", cache.getIfPresent("a"));
+
+        cache.get("d", k -> "4444444444"); // peso 10: desaloja todo lo anterior
+        Assertions.assertEquals(1, cache.stats().size());
+        Assertions.assertEquals(10, cache.stats().weight());
+        Assertions.assertEquals(3, cache.stats().evictions());
+    }
+
+    @Test
+    void invalidateIf_shouldRemoveMatchingKeysOnly() {
+        BoundedCache<String, String> cache = newCache(10, 1000);
+        cache.get("r1-a", k -> "x");
+        cache.get("r1-b", k -> "y");
+        cache.get("r2-a", k -> "z");
+
+        Assertions.assertEquals(2, cache.invalidateIf(k -> k.startsWith("r1-")));
+        Assertions.assertNull(cache.getIfPresent("r1-a"));
+        Assertions.assertEquals("z", cache.getIfPresent("r2-a"));
+    }
+
+    @Test
+    void get_shouldCollapseConcurrentLoadsOfSameKey() throws Exception {
+        BoundedCache<String, String> cache = newCache(10, 1000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] futures = new Future<?>[4];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = pool.submit(() -> cache.get("a", k -> {
+                    loads.incrementAndGet();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "v";
+                }));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<?> f : futures) {
+                Assertions.assertEquals("v", f.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        Assertions.assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_shouldPropagateLoaderFailureWithoutCaching() {
+        BoundedCache<String, String> cache = newCache(10, 1000);
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> cache.get("a", k -> { throw new IllegalStateException("falla"); }));
+        Assertions.assertEquals("ok", cache.get("a", k -> "ok"));
+        Assertions.assertEquals(1, cache.stats().loadFailures());
+    }
+}
@@ -0,0 +1,135 @@
+package ar.edu.ubp.das.ristorinoapi;
+
+import ar.edu.ubp.das.ristorinoapi.components.ClickDeduplicator;
+import ar.edu.ubp.das.ristorinoapi.components.SlidingWindowBloomFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ClickDeduplicatorTests {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    private SlidingWindowBloomFilter filter(long expectedKeys) {
+        return new SlidingWindowBloomFilter(Duration.ofSeconds(10), 4, expectedKeys, 0.001, clock::get);
+    }
+
+    private void advanceSeconds(double seconds) {
+        clock.addAndGet((long) (seconds * 1e9));
+    }
+
+    @Test
+    void repeatedKey_insideWindow_shouldBeDuplicate() {
+        SlidingWindowBloomFilter f = filter(1000);
+        Assertions.assertFalse(f.checkAndPut("1|1|7|10.0.0.1|ua"));
+        Assertions.assertTrue(f.checkAndPut("1|1|7|10.0.0.1|ua"));
+        Assertions.assertFalse(f.checkAndPut("1|1|7|10.0.0.2|ua"));
+        Assertions.assertFalse(f.checkAndPut("1|1|8|10.0.0.1|ua"));
+
+        // Sigue siendo duplicado en cualquier punto de la ventana, aunque cambie de franja
+        advanceSeconds(9.9);
+        Assertions.assertTrue(f.checkAndPut("1|1|8|10.0.0.1|ua"));
+    }
+
+    @Test
+    void mightContain_shouldNotRegisterTheKey() {
+        SlidingWindowBloomFilter f = filter(1000);
+        Assertions.assertFalse(f.mightContain("1|1|7|10.0.0.1|ua"));
+        Assertions.assertFalse(f.mightContain("1|1|7|10.0.0.1|ua"));
+        f.put("1|1|7|10.0.0.1|ua");
+        Assertions.assertTrue(f.mightContain("1|1|7|10.0.0.1|ua"));
+        Assertions.assertTrue(f.checkAndPut("1|1|7|10.0.0.1|ua"));
+    }
+
+    @Test
+    void key_shouldExpireAfterWindow() {
+        SlidingWindowBloomFilter f = filter(1000);
+        Assertions.assertFalse(f.checkAndPut("a"));
+        advanceSeconds(13); // ventana (10 s) + una franja (2.5 s)
+        Assertions.assertFalse(f.checkAndPut("a"));
+        Assertions.assertTrue(f.checkAndPut("a"));
+    }
+
+    @Test
+    void falsePositives_shouldStayNearConfiguredRate() {
+        SlidingWindowBloomFilter f = filter(20_000);
+        int falsePositives = 0;
+        for (int i = 0; i < 20_000; i++) {
+            if (f.checkAndPut("clave-" + i)) {
+                falsePositives++;
+            }
+            if (i % 2000 == 0) {
+                advanceSeconds(1); // repartidas a lo largo de la ventana
+            }
+        }
+        Assertions.assertTrue(falsePositives < 20_000 * 0.005, "falsos positivos: " + falsePositives);
+        // Memoria fija: no depende de la cantidad de claves insertadas
+        Assertions.assertTrue(f.sizeInBytes() < 256 * 1024, "bytes: " + f.sizeInBytes());
+    }
+
+    private ClickDeduplicator deduplicator(SimpleMeterRegistry registry) {
+        ClickDeduplicator dedup = new ClickDeduplicator();
+        ReflectionTestUtils.setField(dedup, "meterRegistry", registry);
+        ReflectionTestUtils.setField(dedup, "enabled", true);
+        ReflectionTestUtils.setField(dedup, "windowSeconds", 10L);
+        ReflectionTestUtils.setField(dedup, "expectedClicks", 1000L);
+        ReflectionTestUtils.setField(dedup, "falsePositiveRate", 0.001);
+        ReflectionTestUtils.invokeMethod(dedup, "init");
+        return dedup;
+    }
+
+    private static void accept(ClickDeduplicator dedup, int nroIdioma, String userAgent) {
+        try (ClickDeduplicator.Claim claim = dedup.claim(1, nroIdioma, 5, "10.0.0.1", userAgent)) {
+            Assertions.assertNotNull(claim);
+            claim.accept();
+        }
+    }
+
+    @Test
+    void deduplicator_shouldCountSuppressedAndRespectEnabled() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ClickDeduplicator dedup = deduplicator(registry);
+
+        // Un click no aceptado (503/500) no cuenta: el reintento pasa
+        try (ClickDeduplicator.Claim claim = dedup.claim(1, 1, 5, "10.0.0.1", "Mozilla")) {
+            Assertions.assertNotNull(claim);
+        }
+        accept(dedup, 1, "Mozilla");
+        Assertions.assertNull(dedup.claim(1, 1, 5, "10.0.0.1", "Mozilla"));
+        accept(dedup, 1, "curl");
+        accept(dedup, 2, null);
+
+        ClickDeduplicator.Stats stats = dedup.stats();
+        Assertions.assertEquals(3, stats.accepted());
+        Assertions.assertEquals(1, stats.suppressed());
+        Assertions.assertEquals(1.0, registry.get("ristorino.clicks.dedup").tag("outcome", "suppressed").counter().count());
+
+        ReflectionTestUtils.setField(dedup, "enabled", false);
+        Assertions.assertNotNull(dedup.claim(1, 1, 5, "10.0.0.1", "Mozilla"));
+    }
+
+    @Test
+    void claim_shouldSuppressRepeatsWhileTheFirstIsBeingRegistered() {
+        ClickDeduplicator dedup = deduplicator(new SimpleMeterRegistry());
+
+        ClickDeduplicator.Claim first = dedup.claim(1, 1, 5, "10.0.0.1", "Mozilla");
+        Assertions.assertNotNull(first);
+        // Doble toque mientras el primero sigue en la base
+        Assertions.assertNull(dedup.claim(1, 1, 5, "10.0.0.1", "Mozilla"));
+        Assertions.assertNotNull(dedup.claim(1, 1, 6, "10.0.0.1", "Mozilla"));
+
+        // El registro falló: la reserva se libera sin marcar y el reintento pasa
+        first.close();
+        ClickDeduplicator.Claim retry = dedup.claim(1, 1, 5, "10.0.0.1", "Mozilla");
+        Assertions.assertNotNull(retry);
+        retry.accept();
+        retry.close();
+        Assertions.assertNull(dedup.claim(1, 1, 5, "10.0.0.1", "Mozilla"));
+        Assertions.assertEquals(2, dedup.stats().suppressed());
+    }
+}
@@ -0,0 +1,250 @@
+package ar.edu.ubp.das.ristorinoapi;
+
+import ar.edu.ubp.das.ristorinoapi.beans.JournaledClick;
+import ar.edu.ubp.das.ristorinoapi.components.ClickJournal;
+import ar.edu.ubp.das.ristorinoapi.components.ClickJournal.Entry;
+import ar.edu.ubp.das.ristorinoapi.repositories.ClickRepository;
+import ar.edu.ubp.das.ristorinoapi.services.ClickJournalService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ClickJournalTests {
+
+    // 4 registros por segmento para forzar rotaciones
+    private static final int SEGMENT_BYTES = 4 * ClickJournal.RECORD_BYTES;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void append_shouldRotateSegmentsAndDeleteThemOnceReplayed() throws IOException {
+        ClickJournal journal = new ClickJournal(dir, SEGMENT_BYTES);
+        for (int i = 0; i < 10; i++) {
+            journal.append(1, 2, i, 1000L + i);
+        }
+        Assertions.assertEquals(10, journal.pendingRecords());
+        Assertions.assertEquals(3, segmentFiles());
+
+        List<Entry> batch = journal.read(6);
+        Assertions.assertEquals(6, batch.size());
+        Assertions.assertEquals(5, batch.get(5).nroContenido());
+        Assertions.assertEquals(1005L, batch.get(5).epochMillis());
+        journal.beginReplay(batch.get(5).next());
+        journal.commit(batch.get(5).next());
+        Assertions.assertEquals(4, journal.pendingRecords());
+        Assertions.assertEquals(2, segmentFiles(), "el primer segmento ya reproducido se borra");
+
+        List<Entry> rest = journal.read(100);
+        Assertions.assertEquals(List.of(6, 7, 8, 9), rest.stream().map(Entry::nroContenido).toList());
+        journal.close();
+    }
+
+    @Test
+    void reopen_shouldResumeFromCommittedCursor() throws IOException {
+        ClickJournal journal = new ClickJournal(dir, SEGMENT_BYTES);
+        for (int i = 0; i < 7; i++) {
+            journal.append(1, 1, i, i);
+        }
+        List<Entry> batch = journal.read(3);
+        journal.beginReplay(batch.get(2).next());
+        journal.commit(batch.get(2).next());
+        journal.close();
+
+        ClickJournal reopened = new ClickJournal(dir, SEGMENT_BYTES);
+        Assertions.assertEquals(4, reopened.pendingRecords());
+        reopened.append(1, 1, 7, 7);
+        Assertions.assertEquals(List.of(3, 4, 5, 6, 7), reopened.read(100).stream().map(Entry::nroContenido).toList());
+        Assertions.assertEquals(0, reopened.uncertainOnOpen());
+    }
+
+    @Test
+    void crashDuringReplay_shouldReplayTheInFlightBatchAgain() throws IOException {
+        ClickJournal journal = new ClickJournal(dir, SEGMENT_BYTES);
+        for (int i = 0; i < 5; i++) {
+            journal.append(1, 1, i, i);
+        }
+        List<Entry> batch = journal.read(2);
+        journal.beginReplay(batch.get(1).next());
+        // caída: el lote pudo haber llegado a la BD pero no se confirmó ni se cerró el diario
+
+        ClickJournal reopened = new ClickJournal(dir, SEGMENT_BYTES);
+        // Los clicks ya se aceptaron: se vuelven a reproducir en lugar de perderlos
+        Assertions.assertEquals(2, reopened.uncertainOnOpen());
+        Assertions.assertEquals(List.of(0, 1, 2, 3, 4), reopened.read(100).stream().map(Entry::nroContenido).toList());
+    }
+
+    @Test
+    void reopen_shouldStopAtCorruptRecord() throws IOException {
+        ClickJournal journal = new ClickJournal(dir, SEGMENT_BYTES);
+        for (int i = 0; i < 3; i++) {
+            journal.append(1, 1, i, i);
+        }
+        journal.close();
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.filter(p -> p.toString().endsWith(".seg")).sorted().findFirst().orElseThrow();
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(segment.toFile(), "rw")) {
+            raf.seek(ClickJournal.RECORD_BYTES + 12); // contenido del segundo registro
+            raf.writeInt(99);
+        }
+
+        ClickJournal reopened = new ClickJournal(dir, SEGMENT_BYTES);
+        Assertions.assertEquals(List.of(0), reopened.read(100).stream().map(Entry::nroContenido).toList());
+    }
+
+    @Test
+    void service_shouldKeepClicksWhileDatabaseIsDownAndDropInvalidOnes() throws Exception {
+        ClickRepository repository = mock(ClickRepository.class);
+        AtomicBoolean databaseUp = new AtomicBoolean(false);
+        List<Integer> registered = new CopyOnWriteArrayList<>();
+        when(repository.registerJournaledClicks(anyList())).thenAnswer(inv -> {
+            if (!databaseUp.get()) {
+                throw new CannotGetJdbcConnectionException("Connection is not available");
+            }
+            List<JournaledClick> clicks = inv.getArgument(0);
+            if (clicks.stream().anyMatch(j -> j.click().getNroContenido() == 13)) {
+                throw new DataIntegrityViolationException("Contenido inexistente");
+            }
+            clicks.forEach(j -> registered.add(j.click().getNroContenido()));
+            return clicks.size();
+        });
+
+        ClickJournalService service = new ClickJournalService();
+        ReflectionTestUtils.setField(service, "clickRepository", repository);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "dir", dir.toString());
+        ReflectionTestUtils.setField(service, "segmentBytes", SEGMENT_BYTES);
+        ReflectionTestUtils.setField(service, "batchSize", 10);
+        ReflectionTestUtils.setField(service, "pollMs", 10L);
+        ReflectionTestUtils.setField(service, "retryMaxMs", 40L);
+        ReflectionTestUtils.setField(service, "forceIntervalMs", 1000L);
+        ReflectionTestUtils.invokeMethod(service, "start");
+        try {
+            for (int i = 10; i < 16; i++) {
+                Assertions.assertTrue(service.append(1, 1, i));
+            }
+            Thread.sleep(200);
+            Assertions.assertTrue(registered.isEmpty());
+            Assertions.assertEquals(6L, service.stats().get("pendientes"));
+            Assertions.assertEquals(false, service.stats().get("baseDisponible"));
+
+            databaseUp.set(true);
+            long deadline = System.currentTimeMillis() + 5000;
+            while ((long) service.stats().get("pendientes") > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            Assertions.assertEquals(List.of(10, 11, 12, 14, 15), new ArrayList<>(registered));
+            Assertions.assertEquals(1L, service.stats().get("perdidos"));
+        } finally {
+            ReflectionTestUtils.invokeMethod(service, "stop");
+        }
+    }
+
+    @Test
+    void replay_shouldNotRegisterAgainWhenCursorWriteFails() throws IOException {
+        ClickJournal journal = spy(new ClickJournal(dir, SEGMENT_BYTES));
+        doAnswer(inv -> {
+            inv.callRealMethod();
+            throw new IOException("No space left on device");
+        }).when(journal).commit(any());
+        ClickRepository repository = mock(ClickRepository.class);
+        when(repository.registerJournaledClicks(anyList())).thenAnswer(inv -> inv.getArgument(0, List.class).size());
+        ClickJournalService service = new ClickJournalService();
+        ReflectionTestUtils.setField(service, "clickRepository", repository);
+        ReflectionTestUtils.setField(service, "journal", journal);
+        for (int i = 0; i < 3; i++) {
+            journal.append(1, 1, i, i);
+        }
+
+        Boolean replayed = ReflectionTestUtils.invokeMethod(service, "replay", journal.read(10));
+
+        Assertions.assertEquals(Boolean.TRUE, replayed);
+        verify(repository, times(1)).registerJournaledClicks(anyList());
+        Assertions.assertTrue(journal.read(10).isEmpty(), "el lote no se vuelve a leer");
+        Assertions.assertEquals(1L, service.stats().get("erroresCursor"));
+    }
+
+    @Test
+    void uncertainOutcomes_shouldBeResentWithoutDuplicatingClicks() throws IOException {
+        // La base recuerda las claves de idempotencia como dbo.clicks_diario
+        Set<String> keys = ConcurrentHashMap.newKeySet();
+        List<Integer> registered = new CopyOnWriteArrayList<>();
+        AtomicBoolean dropAfterCommit = new AtomicBoolean(true);
+        ClickRepository repository = mock(ClickRepository.class);
+        when(repository.registerJournaledClicks(anyList())).thenAnswer(inv -> {
+            int n = 0;
+            for (JournaledClick j : inv.<List<JournaledClick>>getArgument(0)) {
+                if (keys.add(j.nroSegmento() + ":" + j.desplazamiento())) {
+                    registered.add(j.click().getNroContenido());
+                    n++;
+                }
+            }
+            if (dropAfterCommit.getAndSet(false)) {
+                throw new TransientDataAccessResourceException("Connection reset");
+            }
+            return n;
+        });
+        ClickJournal journal = new ClickJournal(dir, SEGMENT_BYTES);
+        ClickJournalService service = new ClickJournalService();
+        ReflectionTestUtils.setField(service, "clickRepository", repository);
+        ReflectionTestUtils.setField(service, "journal", journal);
+        for (int i = 0; i < 3; i++) {
+            journal.append(1, 1, i, i);
+        }
+
+        // Se cae la conexión después del COMMIT: el lote queda en el diario y se reenvía
+        Assertions.assertEquals(Boolean.FALSE, ReflectionTestUtils.invokeMethod(service, "replay", journal.read(10)));
+        Assertions.assertEquals(3, journal.pendingRecords());
+        Assertions.assertEquals(Boolean.TRUE, ReflectionTestUtils.invokeMethod(service, "replay", journal.read(10)));
+        Assertions.assertEquals(List.of(0, 1, 2), registered);
+        Assertions.assertEquals(3L, service.stats().get("yaRegistrados"));
+
+        // Caída del proceso entre el registro en la base y la confirmación del diario
+        journal.append(1, 1, 3, 3);
+        Entry inFlight = journal.read(10).get(0);
+        journal.beginReplay(inFlight.next());
+        keys.add(inFlight.position().segment() + ":" + inFlight.position().offset());
+        registered.add(3);
+
+        ClickJournal reopened = new ClickJournal(dir, SEGMENT_BYTES);
+        Assertions.assertEquals(1, reopened.uncertainOnOpen());
+        ReflectionTestUtils.setField(service, "journal", reopened);
+        Assertions.assertEquals(Boolean.TRUE, ReflectionTestUtils.invokeMethod(service, "replay", reopened.read(10)));
+        Assertions.assertEquals(List.of(0, 1, 2, 3), registered);
+        Assertions.assertEquals(4L, service.stats().get("yaRegistrados"));
+        Assertions.assertEquals(0, reopened.pendingRecords());
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.toString().endsWith(".seg")).count();
+        }
+    }
+}
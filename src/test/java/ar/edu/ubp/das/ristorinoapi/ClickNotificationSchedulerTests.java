@@ -0,0 +1,158 @@
+package ar.edu.ubp.das.ristorinoapi;
+
+import ar.edu.ubp.das.ristorinoapi.beans.ClickKey;
+import ar.edu.ubp.das.ristorinoapi.services.ClickNotificationScheduler;
+import ar.edu.ubp.das.ristorinoapi.services.ClickNotificationScheduler.CircuitState;
+import ar.edu.ubp.das.ristorinoapi.services.ClickNotificationService;
+import ar.edu.ubp.das.ristorinoapi.services.ClickNotificationService.NotificationRun;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ClickNotificationSchedulerTests {
+
+    private ClickNotificationScheduler scheduler;
+
+    private ClickNotificationScheduler newScheduler(ClickNotificationService service, boolean enabled) {
+        ClickNotificationScheduler s = new ClickNotificationScheduler();
+        ReflectionTestUtils.setField(s, "clickNotificationService", service);
+        ReflectionTestUtils.setField(s, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(s, "enabled", enabled);
+        ReflectionTestUtils.setField(s, "maxClicksPerRun", 100);
+        ReflectionTestUtils.setField(s, "minIntervalMs", 20L);
+        ReflectionTestUtils.setField(s, "maxIntervalMs", 80L);
+        ReflectionTestUtils.setField(s, "backoffInitialMs", 10L);
+        ReflectionTestUtils.setField(s, "backoffMaxMs", 1000L);
+        ReflectionTestUtils.setField(s, "failureThreshold", 3);
+        ReflectionTestUtils.setField(s, "openMs", 200L);
+        when(service.pageSize()).thenReturn(50);
+        ReflectionTestUtils.invokeMethod(s, "start");
+        scheduler = s;
+        return s;
+    }
+
+    @AfterEach
+    void stop() {
+        if (scheduler != null) {
+            ReflectionTestUtils.invokeMethod(scheduler, "stop");
+        }
+    }
+
+    @Test
+    void shouldDrainBacklogContinuouslyAndSlowDownWhenIdle() {
+        ClickNotificationService service = mock(ClickNotificationService.class);
+        AtomicInteger backlog = new AtomicInteger(250);
+        List<ClickKey> cursors = new CopyOnWriteArrayList<>();
+        when(service.notifyPendingClicks(isNull(), any(), anyInt())).thenAnswer(inv -> {
+            cursors.add(inv.getArgument(1));
+            int max = inv.getArgument(2);
+            int pending = backlog.get();
+            int sent = Math.min(pending, max);
+            backlog.addAndGet(-sent);
+            ClickKey resumeAfter = sent == max ? new ClickKey(1, 1, 1, 250 - backlog.get()) : null;
+            return new NotificationRun(sent, sent, 0, 0, 0, resumeAfter);
+        });
+        ClickNotificationScheduler s = newScheduler(service, true);
+
+        // 100 + 100 + 50 en ciclos seguidos, cada uno a continuación del anterior; luego ciclos sin pendientes
+        verify(service, timeout(2000).atLeast(4)).notifyPendingClicks(isNull(), any(), eq(100));
+        Assertions.assertEquals(0, backlog.get());
+        Assertions.assertEquals(Arrays.asList(null, new ClickKey(1, 1, 1, 100), new ClickKey(1, 1, 1, 200), null),
+                cursors.subList(0, 4));
+        Assertions.assertEquals(CircuitState.CLOSED, s.circuitState());
+        long next = (long) s.stats().get("proximoCicloEnMs");
+        Assertions.assertTrue(next >= 20 && next <= 80, "intervalo sin pendientes: " + next);
+    }
+
+    @Test
+    void failures_shouldBackOffThenOpenCircuitAndProbeWithOneClick() {
+        ClickNotificationService service = mock(ClickNotificationService.class);
+        when(service.notifyPendingClicks(any(), any(), anyInt())).thenReturn(new NotificationRun(10, 0, 10, 0, 0, null));
+        ClickNotificationScheduler s = newScheduler(service, false);
+
+        s.runNow(null);
+        Assertions.assertEquals(10L, s.stats().get("proximoCicloEnMs"));
+        s.runNow(null);
+        Assertions.assertEquals(20L, s.stats().get("proximoCicloEnMs"));
+        Assertions.assertEquals(CircuitState.CLOSED, s.circuitState());
+        s.runNow(null);
+        Assertions.assertEquals(CircuitState.OPEN, s.circuitState());
+        Assertions.assertEquals(200L, s.stats().get("proximoCicloEnMs"));
+
+        // Un ciclo parcialmente exitoso cierra el circuito y reinicia el backoff
+        when(service.notifyPendingClicks(any(), any(), anyInt())).thenReturn(new NotificationRun(10, 7, 3, 0, 0, null));
+        s.runNow(null);
+        Assertions.assertEquals(CircuitState.CLOSED, s.circuitState());
+        Assertions.assertEquals(0, s.stats().get("fallasConsecutivas"));
+    }
+
+    @Test
+    void rejectedClicks_shouldNotCountAsFailures() {
+        ClickNotificationService service = mock(ClickNotificationService.class);
+        when(service.notifyPendingClicks(any(), any(), anyInt())).thenReturn(new NotificationRun(10, 0, 0, 8, 2, null));
+        ClickNotificationScheduler s = newScheduler(service, false);
+
+        for (int i = 0; i < 4; i++) {
+            s.runNow(null);
+        }
+        Assertions.assertEquals(CircuitState.CLOSED, s.circuitState());
+        Assertions.assertEquals(0, s.stats().get("fallasConsecutivas"));
+        Assertions.assertEquals(8, s.stats().get("rechazados"));
+    }
+
+    @Test
+    void enabledWithoutPaging_shouldRunCappedCycles() {
+        ClickNotificationService service = mock(ClickNotificationService.class);
+        when(service.notifyPendingClicks(isNull(), any(), anyInt())).thenReturn(new NotificationRun(0, 0, 0, 0, 0, null));
+        ClickNotificationScheduler s = new ClickNotificationScheduler();
+        ReflectionTestUtils.setField(s, "clickNotificationService", service);
+        ReflectionTestUtils.setField(s, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(s, "enabled", true);
+        ReflectionTestUtils.setField(s, "maxClicksPerRun", 100);
+        ReflectionTestUtils.setField(s, "minIntervalMs", 20L);
+        ReflectionTestUtils.setField(s, "maxIntervalMs", 80L);
+        when(service.pageSize()).thenReturn(0);
+        ReflectionTestUtils.invokeMethod(s, "start");
+        scheduler = s;
+
+        verify(service, timeout(2000).atLeastOnce()).notifyPendingClicks(isNull(), isNull(), eq(100));
+    }
+
+    @Test
+    void openCircuit_shouldProbeAndCloseWhenDestinationRecovers() {
+        ClickNotificationService service = mock(ClickNotificationService.class);
+        AtomicBoolean destinationUp = new AtomicBoolean(false);
+        when(service.notifyPendingClicks(isNull(), any(), anyInt())).thenAnswer(inv -> {
+            int max = inv.getArgument(2);
+            return destinationUp.get() ? new NotificationRun(max, max, 0, 0, 0, null)
+                    : new NotificationRun(max, 0, max, 0, 0, null);
+        });
+        ClickNotificationScheduler s = newScheduler(service, true);
+
+        // Tres ciclos fallidos abren el circuito; al vencer se prueba con un único click
+        verify(service, timeout(2000).atLeast(3)).notifyPendingClicks(isNull(), any(), eq(100));
+        verify(service, timeout(2000)).notifyPendingClicks(isNull(), any(), eq(1));
+
+        destinationUp.set(true);
+        verify(service, timeout(2000).atLeast(2)).notifyPendingClicks(isNull(), any(), eq(1));
+        verify(service, timeout(2000).atLeast(4)).notifyPendingClicks(isNull(), any(), eq(100));
+        Assertions.assertEquals(CircuitState.CLOSED, s.circuitState());
+    }
+}
@@ -0,0 +1,150 @@
+package ar.edu.ubp.das.ristorinoapi;
+
+import ar.edu.ubp.das.ristorinoapi.beans.ClickKey;
+import ar.edu.ubp.das.ristorinoapi.beans.PendingClick;
+import ar.edu.ubp.das.ristorinoapi.components.JwtTokenProvider;
+import ar.edu.ubp.das.ristorinoapi.repositories.ClickRepository;
+import ar.edu.ubp.das.ristorinoapi.services.ClickNotificationService;
+import ar.edu.ubp.das.ristorinoapi.services.ClickNotificationService.NotificationRun;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ClickNotificationServiceTests {
+
+    private ClickNotificationService service;
+
+    @AfterEach
+    void stop() {
+        if (service != null) {
+            ReflectionTestUtils.invokeMethod(service, "stopPipeline");
+        }
+    }
+
+    /**
+     * Backlog de 10 clicks: los dos primeros sin cod_contenido_restaurante (se omiten), el 3 y el 4 rechazados
+     * con 400 por la API y el resto aceptados.
+     */
+    private ClickNotificationService newService(int pageSize) {
+        List<PendingClick> backlog = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            backlog.add(new PendingClick(1, 1, 1, i, 0.5, i <= 2 ? null : "C" + i));
+        }
+        ClickRepository repository = mock(ClickRepository.class);
+        when(repository.forEachUnnotifiedClickPage(isNull(), isNull(), isNull(), any(), eq(pageSize), any()))
+                .thenAnswer(inv -> {
+                    ClickKey after = inv.getArgument(3);
+                    Predicate<List<PendingClick>> consumer = inv.getArgument(5);
+                    List<PendingClick> rest = backlog.stream()
+                            .filter(c -> after == null || ClickKey.KEYSET_ORDER.compare(c.key(), after) > 0)
+                            .toList();
+                    // Sin paginar (pageSize 0) se entrega todo en una única página
+                    int size = pageSize > 0 ? pageSize : Math.max(1, rest.size());
+                    int read = 0;
+                    for (int from = 0; from < rest.size(); from += size) {
+                        List<PendingClick> page = rest.subList(from, Math.min(rest.size(), from + size));
+                        read += page.size();
+                        if (!consumer.test(page)) {
+                            break;
+                        }
+                    }
+                    return read;
+                });
+        when(repository.confirmClicksNotified(any())).thenAnswer(inv -> new HashSet<>((Collection<ClickKey>) inv.getArgument(0)));
+
+        RestTemplate restTemplate = mock(RestTemplate.class);
+        when(restTemplate.postForEntity(anyString(), any(HttpEntity.class), eq(String.class))).thenAnswer(inv -> {
+            HttpEntity<Map<String, Object>> req = inv.getArgument(1);
+            String cod = (String) req.getBody().get("codContenidoRestaurante");
+            if (cod.equals("C3") || cod.equals("C4")) {
+                throw new HttpClientErrorException(HttpStatus.BAD_REQUEST);
+            }
+            return ResponseEntity.ok("{}");
+        });
+        JwtTokenProvider jwt = mock(JwtTokenProvider.class);
+        when(jwt.getToken()).thenReturn("token");
+
+        ClickNotificationService s = new ClickNotificationService();
+        ReflectionTestUtils.setField(s, "clickRepository", repository);
+        ReflectionTestUtils.setField(s, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(s, "jwtTokenProvider", jwt);
+        ReflectionTestUtils.setField(s, "restTemplate", restTemplate);
+        ReflectionTestUtils.setField(s, "destUrl", "http://restaurante/api/v1/clicks");
+        ReflectionTestUtils.setField(s, "maxInFlight", 2);
+        ReflectionTestUtils.setField(s, "confirmBatchSize", 10);
+        ReflectionTestUtils.setField(s, "confirmLingerMs", 1L);
+        ReflectionTestUtils.setField(s, "pageSize", pageSize);
+        ReflectionTestUtils.invokeMethod(s, "startPipeline");
+        service = s;
+        return s;
+    }
+
+    @Test
+    void skippedAndRejectedClicks_shouldNotConsumeTheBudget() {
+        ClickNotificationService s = newService(3);
+
+        // Omitidos y rechazados no consumen el tope: se llega a 3 notificados
+        NotificationRun run = s.notifyPendingClicks(null, null, 3);
+        Assertions.assertEquals(3, run.notified());
+        Assertions.assertEquals(0, run.failed());
+        Assertions.assertEquals(2, run.rejected());
+        Assertions.assertEquals(2, run.skipped());
+        Assertions.assertEquals(7, run.pending());
+        Assertions.assertEquals(new ClickKey(1, 1, 1, 7), run.resumeAfter());
+
+        // El siguiente ciclo sigue desde el cursor y recorre el resto del backlog
+        run = s.notifyPendingClicks(null, run.resumeAfter(), 3);
+        Assertions.assertEquals(3, run.notified());
+        Assertions.assertEquals(new ClickKey(1, 1, 1, 10), run.resumeAfter());
+        run = s.notifyPendingClicks(null, run.resumeAfter(), 3);
+        Assertions.assertEquals(0, run.pending());
+        Assertions.assertNull(run.resumeAfter(), "backlog recorrido completo");
+    }
+
+    @Test
+    void unpagedRun_shouldStillHonourTheBudgetAndCursor() {
+        ClickNotificationService s = newService(0);
+
+        NotificationRun run = s.notifyPendingClicks(null, null, 3);
+        Assertions.assertEquals(3, run.notified());
+        Assertions.assertEquals(2, run.rejected());
+        Assertions.assertEquals(2, run.skipped());
+        Assertions.assertEquals(new ClickKey(1, 1, 1, 7), run.resumeAfter());
+
+        run = s.notifyPendingClicks(null, run.resumeAfter(), 3);
+        Assertions.assertEquals(3, run.pending());
+        Assertions.assertEquals(3, run.notified());
+        Assertions.assertEquals(new ClickKey(1, 1, 1, 10), run.resumeAfter());
+    }
+
+    @Test
+    void unlimitedRun_shouldReportTheWholeBacklog() {
+        NotificationRun run = newService(4).notifyPendingClicks(null, null, 0);
+        Assertions.assertEquals(10, run.pending());
+        Assertions.assertEquals(6, run.notified());
+        Assertions.assertEquals(2, run.rejected());
+        Assertions.assertNull(run.resumeAfter());
+    }
+}
@@ -0,0 +1,168 @@
+package ar.edu.ubp.das.ristorinoapi;
+
+import ar.edu.ubp.das.ristorinoapi.beans.ClickRequest;
+import ar.edu.ubp.das.ristorinoapi.repositories.ClickRepository;
+import ar.edu.ubp.das.ristorinoapi.services.ClickWriteBehindService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ClickWriteBehindServiceTests {
+
+    private ClickWriteBehindService newService(ClickRepository repository, int capacity, int batchSize) {
+        ClickWriteBehindService service = new ClickWriteBehindService();
+        ReflectionTestUtils.setField(service, "clickRepository", repository);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "capacity", capacity);
+        ReflectionTestUtils.setField(service, "batchSize", batchSize);
+        ReflectionTestUtils.setField(service, "lingerMs", 20L);
+        ReflectionTestUtils.setField(service, "offerTimeoutMs", 0L);
+        ReflectionTestUtils.setField(service, "shutdownTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(service, "retryAttempts", 3);
+        ReflectionTestUtils.setField(service, "retryBackoffMs", 5L);
+        ReflectionTestUtils.invokeMethod(service, "start");
+        return service;
+    }
+
+    @Test
+    void stop_shouldDrainQueueInBatches() {
+        ClickRepository repository = mock(ClickRepository.class);
+        AtomicInteger persisted = new AtomicInteger();
+        AtomicInteger maxBatch = new AtomicInteger();
+        when(repository.registerAnonymousClicks(anyList())).thenAnswer(inv -> {
+            List<ClickRequest> batch = inv.getArgument(0);
+            maxBatch.accumulateAndGet(batch.size(), Math::max);
+            persisted.addAndGet(batch.size());
+            return batch.size();
+        });
+        ClickWriteBehindService service = newService(repository, 1000, 10);
+
+        for (int i = 0; i < 95; i++) {
+            Assertions.assertTrue(service.enqueue(1, 1, i));
+        }
+        ReflectionTestUtils.invokeMethod(service, "stop");
+
+        Assertions.assertEquals(95, persisted.get());
+        Assertions.assertTrue(maxBatch.get() <= 10);
+        Assertions.assertFalse(service.enqueue(1, 1, 1), "no debe aceptar clicks luego de detenerse");
+    }
+
+    @Test
+    void enqueue_shouldRejectWhenQueueIsFull() {
+        ClickRepository repository = mock(ClickRepository.class);
+        when(repository.registerAnonymousClicks(anyList())).thenAnswer(inv -> {
+            Thread.sleep(200);
+            return ((List<?>) inv.getArgument(0)).size();
+        });
+        ClickWriteBehindService service = newService(repository, 2, 1);
+
+        int rejected = 0;
+        for (int i = 0; i < 20; i++) {
+            if (!service.enqueue(1, 1, i)) {
+                rejected++;
+            }
+        }
+        ReflectionTestUtils.invokeMethod(service, "stop");
+
+        Assertions.assertTrue(rejected > 0);
+        Assertions.assertEquals((long) rejected, service.stats().get("rechazados"));
+    }
+
+    @Test
+    void stop_shouldPersistEveryClickAcceptedConcurrently() throws Exception {
+        ClickRepository repository = mock(ClickRepository.class);
+        AtomicInteger persisted = new AtomicInteger();
+        when(repository.registerAnonymousClicks(anyList())).thenAnswer(inv -> {
+            persisted.addAndGet(((List<?>) inv.getArgument(0)).size());
+            return ((List<?>) inv.getArgument(0)).size();
+        });
+        ClickWriteBehindService service = newService(repository, 100_000, 50);
+        ReflectionTestUtils.setField(service, "offerTimeoutMs", 5L);
+
+        AtomicInteger accepted = new AtomicInteger();
+        ExecutorService producers = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            producers.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    if (service.enqueue(1, 1, i)) {
+                        accepted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        Thread.sleep(20);
+        ReflectionTestUtils.invokeMethod(service, "stop");
+        producers.shutdown();
+        Assertions.assertTrue(producers.awaitTermination(10, TimeUnit.SECONDS));
+
+        Assertions.assertEquals(accepted.get(), persisted.get(), "un click aceptado no puede quedar en la cola");
+        Assertions.assertEquals(0, service.stats().get("enCola"));
+    }
+
+    @Test
+    void flush_shouldNotResendBatchWhenCommitOutcomeIsUnknown() {
+        ClickRepository repository = mock(ClickRepository.class);
+        when(repository.registerAnonymousClicks(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("Connection reset"))
+                .thenThrow(new CannotGetJdbcConnectionException("Pool agotado"));
+        ClickWriteBehindService service = newService(repository, 100, 10);
+
+        Assertions.assertTrue(service.enqueue(1, 1, 1));
+        Assertions.assertTrue(service.enqueue(1, 1, 2));
+        verify(repository, timeout(2000)).registerAnonymousClicks(anyList());
+        verify(repository, after(300).never()).registerAnonymousClick(anyInt(), anyInt(), anyInt(), any());
+        Assertions.assertEquals(2L, service.stats().get("inciertos"));
+
+        // Sin conexión el lote no llegó a enviarse: se reintenta entero y, agotados los reintentos, click por click
+        Assertions.assertTrue(service.enqueue(1, 1, 3));
+        verify(repository, timeout(2000)).registerAnonymousClick(eq(1), eq(1), eq(3), any());
+        ReflectionTestUtils.invokeMethod(service, "stop");
+        Assertions.assertEquals(2L, service.stats().get("inciertos"));
+    }
+
+    @Test
+    void flush_shouldRetryBatchesRolledBackByDeadlocksOrLockTimeouts() {
+        ClickRepository repository = mock(ClickRepository.class);
+        AtomicInteger persisted = new AtomicInteger();
+        when(repository.registerAnonymousClicks(anyList()))
+                .thenThrow(new CannotAcquireLockException("Lock request time out period exceeded"))
+                .thenThrow(new PessimisticLockingFailureException("Transaction was deadlocked"))
+                .thenAnswer(inv -> {
+                    persisted.addAndGet(inv.<List<ClickRequest>>getArgument(0).size());
+                    return inv.<List<ClickRequest>>getArgument(0).size();
+                });
+        ClickWriteBehindService service = newService(repository, 100, 10);
+
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertTrue(service.enqueue(1, 1, i));
+        }
+        ReflectionTestUtils.invokeMethod(service, "stop");
+
+        // Con XACT_ABORT ON el lote se deshizo: se reenvía entero en lugar de darlo por incierto
+        Assertions.assertEquals(5, persisted.get());
+        Assertions.assertEquals(0L, service.stats().get("inciertos"));
+        Assertions.assertEquals(2L, service.stats().get("reintentos"));
+        verify(repository, never()).registerAnonymousClick(anyInt(), anyInt(), anyInt(), any());
+    }
+}
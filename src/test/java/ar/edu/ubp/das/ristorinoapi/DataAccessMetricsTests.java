@@ -0,0 +1,41 @@
+package ar.edu.ubp.das.ristorinoapi;
+
+import ar.edu.ubp.das.ristorinoapi.components.DataAccessMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class DataAccessMetricsTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final DataAccessMetrics metrics = new DataAccessMetrics();
+
+    {
+        ReflectionTestUtils.setField(metrics, "meterRegistry", registry);
+    }
+
+    @Test
+    void recordProcedure_shouldTagOutcome() {
+        Assertions.assertEquals(1, metrics.recordProcedure("dbo.usp_a", "call", () -> 1));
+        Assertions.assertThrows(IllegalStateException.class, () -> metrics.recordProcedure("dbo.usp_a", "call", () -> {
+            throw new IllegalStateException("falla");
+        }));
+
+        Assertions.assertEquals(1, registry.get("ristorino.db.procedure")
+                .tags("procedure", "dbo.usp_a", "mode", "call", "outcome", "success").timer().count());
+        Assertions.assertEquals(1, registry.get("ristorino.db.procedure")
+                .tags("procedure", "dbo.usp_a", "outcome", "error").timer().count());
+    }
+
+    @Test
+    void recordForJson_andParse_shouldRecordPerTag() throws Exception {
+        metrics.recordForJson("dbo.usp_b", 3, 4500);
+        metrics.recordForJson("dbo.usp_b", 1, 500);
+        Assertions.assertEquals("ok", metrics.recordParse("Repo.metodo", () -> "ok"));
+
+        Assertions.assertEquals(4, registry.get("ristorino.db.forjson.fragments").tag("procedure", "dbo.usp_b").summary().totalAmount());
+        Assertions.assertEquals(5000, registry.get("ristorino.db.forjson.size").tag("procedure", "dbo.usp_b").summary().totalAmount());
+        Assertions.assertEquals(1, registry.get("ristorino.json.parse").tag("method", "Repo.metodo").timer().count());
+    }
+}
@@ -0,0 +1,97 @@
+package ar.edu.ubp.das.ristorinoapi;
+
+import ar.edu.ubp.das.ristorinoapi.beans.RestaurantResponse;
+import ar.edu.ubp.das.ristorinoapi.components.ETags;
+import ar.edu.ubp.das.ristorinoapi.components.PromotionCache;
+import ar.edu.ubp.das.ristorinoapi.components.PromotionSnapshot;
+import ar.edu.ubp.das.ristorinoapi.repositories.PromotionRepository;
+import ar.edu.ubp.das.ristorinoapi.resources.PromotionResource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ETagsTests {
+
+    @Test
+    void of_shouldDependOnlyOnContent() {
+        String a = ETags.of("{\"a\":1}".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertEquals(a, ETags.of("{\"a\":1}".getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertNotEquals(a, ETags.of("{\"a\":2}".getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertTrue(a.startsWith("\"") && a.endsWith("\""));
+    }
+
+    @Test
+    void matches_shouldHandleListsWeakPrefixAndWildcard() {
+        String etag = "\"abc\"";
+        Assertions.assertTrue(ETags.matches("\"abc\"", etag));
+        Assertions.assertTrue(ETags.matches("\"x\", W/\"abc\"", etag));
+        Assertions.assertTrue(ETags.matches("*", etag));
+        Assertions.assertFalse(ETags.matches("\"abd\"", etag));
+        Assertions.assertFalse(ETags.matches(null, etag));
+        Assertions.assertFalse(ETags.matches(" ", etag));
+    }
+
+    private static PromotionResource resourceReturning(PromotionSnapshot snapshot) {
+        PromotionRepository repository = mock(PromotionRepository.class);
+        when(repository.getPromotionSnapshot(1, null, null, false)).thenReturn(snapshot);
+        PromotionResource resource = new PromotionResource();
+        ReflectionTestUtils.setField(resource, "promotionRepository", repository);
+        ReflectionTestUtils.setField(resource, "promotionCache", new PromotionCache());
+        ReflectionTestUtils.setField(resource, "cacheControl", "no-cache");
+        return resource;
+    }
+
+    @Test
+    void promotions_shouldReturn304WhenETagMatches() {
+        RestaurantResponse response = new RestaurantResponse();
+        PromotionSnapshot snapshot = PromotionSnapshot.of(response, "{\"nro_restaurante\":1}".getBytes(StandardCharsets.UTF_8));
+        PromotionResource resource = resourceReturning(snapshot);
+
+        ResponseEntity<?> full = resource.getPromotionsForRestaurant(1, null, null, "inline", null, "gzip");
+        ResponseEntity<?> notModified = resource.getPromotionsForRestaurant(1, null, null, "inline", snapshot.etag(), null);
+
+        Assertions.assertEquals(HttpStatus.OK, full.getStatusCode());
+        Assertions.assertSame(snapshot.json(), full.getBody());
+        Assertions.assertEquals(snapshot.etag(), full.getHeaders().getETag());
+        Assertions.assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        Assertions.assertNull(notModified.getBody());
+        Assertions.assertEquals("no-cache", notModified.getHeaders().getFirst(HttpHeaders.CACHE_CONTROL));
+    }
+
+    @Test
+    void promotions_shouldServePrecompressedVariantByAcceptEncoding() throws Exception {
+        String json = "{\"nro_restaurante\":1,\"contenidos\":[" + "{\"contenido_promocional\":\"Promo\"},".repeat(100) + "{}]}";
+        PromotionSnapshot snapshot = PromotionSnapshot.of(new RestaurantResponse(), json.getBytes(StandardCharsets.UTF_8));
+        Assertions.assertTrue(snapshot.hasGzip());
+        Assertions.assertNotEquals(snapshot.etag(), snapshot.gzipEtag());
+        PromotionResource resource = resourceReturning(snapshot);
+
+        ResponseEntity<?> gzip = resource.getPromotionsForRestaurant(1, null, null, "inline", null, "deflate, gzip;q=0.8");
+        ResponseEntity<?> identity = resource.getPromotionsForRestaurant(1, null, null, "inline", null, "gzip;q=0, br");
+        ResponseEntity<?> explicitOverWildcard = resource.getPromotionsForRestaurant(1, null, null, "inline", null, "gzip;q=0, *");
+        ResponseEntity<?> wildcard = resource.getPromotionsForRestaurant(1, null, null, "inline", null, "br, *;q=0.5");
+        ResponseEntity<?> revalidated = resource.getPromotionsForRestaurant(1, null, null, "inline", snapshot.gzipEtag(), null);
+
+        Assertions.assertEquals("gzip", gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        Assertions.assertEquals(snapshot.gzipEtag(), gzip.getHeaders().getETag());
+        Assertions.assertTrue(gzip.getHeaders().getVary().contains(HttpHeaders.ACCEPT_ENCODING));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream((byte[]) gzip.getBody()))) {
+            Assertions.assertEquals(json, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        Assertions.assertNull(identity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        Assertions.assertSame(snapshot.json(), identity.getBody());
+        Assertions.assertNull(explicitOverWildcard.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        Assertions.assertEquals("gzip", wildcard.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        Assertions.assertEquals(HttpStatus.NOT_MODIFIED, revalidated.getStatusCode());
+    }
+}
@@ -0,0 +1,51 @@
+package ar.edu.ubp.das.ristorinoapi;
+
+import ar.edu.ubp.das.ristorinoapi.components.ForJsonReader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.sql.ResultSet;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ForJsonReaderTests {
+
+    private static ResultSet rows(String... fragments) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        Boolean[] more = new Boolean[fragments.length];
+        for (int i = 0; i < more.length; i++) {
+            more[i] = i < fragments.length - 1;
+        }
+        if (fragments.length == 0) {
+            when(rs.next()).thenReturn(false);
+            return rs;
+        }
+        when(rs.next()).thenReturn(true, more);
+        String[] rest = new String[fragments.length - 1];
+        System.arraycopy(fragments, 1, rest, 0, rest.length);
+        when(rs.getString(1)).thenReturn(fragments[0], rest);
+        return rs;
+    }
+
+    @Test
+    void read_shouldConcatenateFragmentsSkippingNulls() throws Exception {
+        ForJsonReader reader = new ForJsonReader(rows("{\"nro_restaurante\":1,", null, "\"razon_social\":\"Test\"}"));
+        StringWriter out = new StringWriter();
+
+        Assertions.assertFalse(reader.isEmpty());
+        reader.transferTo(out);
+
+        Assertions.assertEquals("{\"nro_restaurante\":1,\"razon_social\":\"Test\"}", out.toString());
+        Assertions.assertEquals(2, reader.getFragmentCount());
+        Assertions.assertEquals(out.toString().length(), reader.getCharCount());
+    }
+
+    @Test
+    void isEmpty_shouldBeTrueWithoutRows() throws Exception {
+        ForJsonReader reader = new ForJsonReader(rows());
+        Assertions.assertTrue(reader.isEmpty());
+        Assertions.assertEquals(-1, reader.read());
+    }
+}
@@ -0,0 +1,225 @@
+package ar.edu.ubp.das.ristorinoapi;
+
+import ar.edu.ubp.das.ristorinoapi.components.DiskLruCache;
+import ar.edu.ubp.das.ristorinoapi.components.PromotionImage;
+import ar.edu.ubp.das.ristorinoapi.components.PromotionImageVariants;
+import ar.edu.ubp.das.ristorinoapi.components.PromotionImages;
+import ar.edu.ubp.das.ristorinoapi.repositories.PromotionRepository;
+import ar.edu.ubp.das.ristorinoapi.resources.PromotionResource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ImageVariantsTests {
+
+    @TempDir
+    Path dir;
+
+    private static byte[] png(int width, int height, boolean alpha) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.ORANGE);
+        g.fillRect(0, 0, width / 2, height);
+        g.setColor(Color.BLUE);
+        g.fillRect(width / 2, 0, width - width / 2, height);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static byte[] noisyJpeg(int width, int height, float quality) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private PromotionImageVariants variants(Path cacheDir) {
+        PromotionImageVariants variants = new PromotionImageVariants();
+        ReflectionTestUtils.setField(variants, "enabled", true);
+        ReflectionTestUtils.setField(variants, "widths", new int[]{320, 160});
+        ReflectionTestUtils.setField(variants, "dir", cacheDir.toString());
+        ReflectionTestUtils.setField(variants, "maxBytes", 1L << 20);
+        ReflectionTestUtils.setField(variants, "threads", 1);
+        ReflectionTestUtils.setField(variants, "queue", 4);
+        ReflectionTestUtils.setField(variants, "waitMs", 10_000L);
+        ReflectionTestUtils.setField(variants, "jpegQuality", 0.85f);
+        ReflectionTestUtils.setField(variants, "maxPixels", 1_000_000L);
+        ReflectionTestUtils.invokeMethod(variants, "start");
+        return variants;
+    }
+
+    @Test
+    void diskLruCache_shouldEvictLeastRecentlyUsedAndKeepOrderAcrossReopen() throws IOException {
+        Files.write(dir.resolve("huerfano.1.tmp"), new byte[10]);
+        DiskLruCache cache = new DiskLruCache(dir, 30);
+        Assertions.assertFalse(Files.exists(dir.resolve("huerfano.1.tmp")), "borra temporales huérfanos");
+
+        cache.put("a", new byte[10]);
+        cache.put("b", new byte[10]);
+        cache.put("c", new byte[10]);
+        Assertions.assertNotNull(cache.get("a")); // "b" pasa a ser el menos usado
+        cache.put("d", new byte[10]);
+
+        Assertions.assertNull(cache.get("b"));
+        Assertions.assertFalse(Files.exists(dir.resolve("b")));
+        Assertions.assertEquals(1, cache.stats().evictions());
+        Assertions.assertEquals(30, cache.stats().bytes());
+
+        cache.put("grande", new byte[31]); // más grande que el máximo: no se guarda
+        Assertions.assertNull(cache.get("grande"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> cache.get("../fuera"));
+
+        // Al reabrir, el orden LRU sale de la fecha de modificación (que get actualiza)
+        Files.setLastModifiedTime(dir.resolve("c"), FileTime.fromMillis(1_000));
+        Files.setLastModifiedTime(dir.resolve("a"), FileTime.fromMillis(2_000));
+        Files.setLastModifiedTime(dir.resolve("d"), FileTime.fromMillis(3_000));
+        DiskLruCache reopened = new DiskLruCache(dir, 20);
+        Assertions.assertEquals(2, reopened.stats().entries());
+        Assertions.assertFalse(Files.exists(dir.resolve("c")));
+        Assertions.assertArrayEquals(new byte[10], reopened.get("d"));
+        Assertions.assertArrayEquals(new byte[10], reopened.get("a"));
+    }
+
+    @Test
+    void variant_shouldResizeToSnappedWidthAndReuseDiskCopy() throws IOException {
+        PromotionImageVariants variants = variants(dir);
+        Assertions.assertEquals(160, variants.snapWidth(100));
+        Assertions.assertEquals(320, variants.snapWidth(161));
+        Assertions.assertNull(variants.snapWidth(321), "más ancho que todas las variantes: original");
+
+        PromotionImage original = new PromotionImage("abc", png(800, 400, false), "image/png");
+        PromotionImage variant = variants.variant(original, 160);
+        Assertions.assertEquals("abc-w160", variant.id());
+        Assertions.assertEquals("image/jpeg", variant.contentType(), "sin transparencia se genera en JPEG");
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(variant.data()));
+        Assertions.assertEquals(160, decoded.getWidth());
+        Assertions.assertEquals(80, decoded.getHeight());
+        Assertions.assertTrue(Files.exists(dir.resolve("abc-w160")));
+
+        // Otra instancia sobre el mismo directorio (reinicio) la toma del disco sin regenerarla
+        PromotionImageVariants restarted = variants(dir);
+        Assertions.assertArrayEquals(variant.data(), restarted.variant(original, 160).data());
+        Assertions.assertEquals(0L, restarted.stats().get("generadas"));
+
+        PromotionImage transparent = new PromotionImage("alfa", png(400, 400, true), "image/png");
+        PromotionImage transparentVariant = variants.variant(transparent, 320);
+        Assertions.assertEquals("image/png", transparentVariant.contentType());
+        Assertions.assertEquals(320, ImageIO.read(new ByteArrayInputStream(transparentVariant.data())).getWidth());
+    }
+
+    @Test
+    void variant_shouldReturnOriginalWhenNarrowerUnreadableOrTooLarge() throws IOException {
+        PromotionImageVariants variants = variants(dir);
+        PromotionImage narrow = new PromotionImage("chica", png(100, 50, false), "image/png");
+        Assertions.assertSame(narrow, variants.variant(narrow, 160));
+
+        PromotionImage broken = new PromotionImage("rota", new byte[]{(byte) 0x89, 'P', 'N', 'G', 1, 2, 3}, "image/png");
+        Assertions.assertSame(broken, variants.variant(broken, 160));
+
+        // 2000x600 = 1.2 MP supera max-pixels: no se decodifica
+        PromotionImage huge = new PromotionImage("enorme", png(2000, 600, false), "image/png");
+        Assertions.assertSame(huge, variants.variant(huge, 160));
+        Assertions.assertEquals(1L, variants.stats().get("excedenMaxPixeles"));
+        Assertions.assertEquals(0L, variants.stats().get("generadas"));
+    }
+
+    @Test
+    void variant_shouldReturnOriginalWhenTheVariantIsNotSmaller() throws IOException {
+        PromotionImageVariants variants = variants(dir);
+        ReflectionTestUtils.setField(variants, "jpegQuality", 1.0f);
+
+        // Ruido en un JPEG muy comprimido: recodificado con calidad máxima la variante ocupa más que la original
+        PromotionImage original = new PromotionImage("ruido", noisyJpeg(400, 400, 0.05f), "image/jpeg");
+        Assertions.assertSame(original, variants.variant(original, 320));
+        Assertions.assertEquals(1L, variants.stats().get("noMasChicas"));
+        Assertions.assertEquals(0L, variants.stats().get("generadas"));
+        Assertions.assertEquals(0L, variants.stats().get("bytesAhorradosPorVariante"));
+
+        // La decisión queda en disco: tras un reinicio se sirve la original sin regenerar
+        PromotionImageVariants restarted = variants(dir);
+        Assertions.assertSame(original, restarted.variant(original, 320));
+        Assertions.assertEquals(0L, restarted.stats().get("noMasChicas"));
+    }
+
+    @Test
+    void endpoint_shouldServeVariantWithItsOwnETag() throws Exception {
+        String inline = "data:image/png;base64," + Base64.getEncoder().encodeToString(png(640, 320, false));
+        String id = PromotionImage.idOf(inline);
+        PromotionRepository repository = mock(PromotionRepository.class);
+        when(repository.getPromotionImage(7, 1, 1)).thenReturn(inline);
+        PromotionImages images = new PromotionImages();
+        ReflectionTestUtils.setField(images, "maxEntries", 10);
+        ReflectionTestUtils.setField(images, "maxBytes", 1L << 20);
+        ReflectionTestUtils.setField(images, "baseUrl", "");
+        ReflectionTestUtils.setField(images, "cacheControl", "public, max-age=31536000, immutable");
+        ReflectionTestUtils.invokeMethod(images, "init");
+        PromotionResource resource = new PromotionResource();
+        ReflectionTestUtils.setField(resource, "promotionRepository", repository);
+        ReflectionTestUtils.setField(resource, "promotionImages", images);
+        ReflectionTestUtils.setField(resource, "promotionImageVariants", variants(dir));
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(resource).build();
+        String url = "/api/promotions/7/1/1/imagen/" + id;
+
+        MvcResult result = mvc.perform(get(url).param("w", "150"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/jpeg"))
+                .andExpect(header().string(HttpHeaders.ETAG, '"' + id + "-w160\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"))
+                .andReturn();
+        byte[] body = result.getResponse().getContentAsByteArray();
+        Assertions.assertEquals(160, ImageIO.read(new ByteArrayInputStream(body)).getWidth());
+
+        mvc.perform(get(url).param("w", "150").header(HttpHeaders.IF_NONE_MATCH, '"' + id + "-w160\""))
+                .andExpect(status().isNotModified());
+        mvc.perform(get(url).param("w", "2000"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, '"' + id + '"'));
+        mvc.perform(get(url).param("w", "0"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,102 @@
+package ar.edu.ubp.das.ristorinoapi;
+
+import ar.edu.ubp.das.ristorinoapi.components.JsonProjection;
+import ar.edu.ubp.das.ristorinoapi.components.JsonProjections;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+public class JsonProjectionTests {
+
+    private static final String DETAIL = """
+            {"nro_restaurante":1,"razon_social":"La Esquina","categorias":["pastas","pizzas"],
+             "sucursales":[
+               {"nro_sucursal":1,"nom_sucursal":"Centro","calle":"Colón","nro_calle":100,
+                "contenidos":[{"nro_contenido":5,"contenido_a_publicar":"2x1","costo_click":0.5}]},
+               {"nro_sucursal":2,"nom_sucursal":"Cerro","calle":"Recta Martinoli","nro_calle":8000,
+                "contenidos":[]}
+             ]}""";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void parser_shouldPruneNestedFieldsWhileStreaming() throws IOException {
+        Assertions.assertEquals("""
+                {"razon_social":"La Esquina","sucursales":[{"nom_sucursal":"Centro","contenidos":[{"nro_contenido":5}]},\
+                {"nom_sucursal":"Cerro","contenidos":[]}]}""",
+                stream(JsonProjection.compile("razon_social,sucursales(nom_sucursal,contenidos(nro_contenido))")));
+    }
+
+    @Test
+    void dottedPaths_shouldMergeLikeParentheses() throws IOException {
+        JsonProjection dotted = JsonProjection.compile("sucursales.nom_sucursal, sucursales.contenidos.nro_contenido");
+        JsonProjection nested = JsonProjection.compile("sucursales(nom_sucursal,contenidos(nro_contenido))");
+        Assertions.assertEquals(stream(nested), stream(dotted));
+    }
+
+    @Test
+    void leafMention_shouldIncludeWholeValueAndWildcardTheRestOfTheLevel() throws IOException {
+        // "sucursales" completo gana sobre "sucursales.calle"
+        Assertions.assertEquals(objectMapper.readTree(DETAIL).get("sucursales"),
+                objectMapper.readTree(stream(JsonProjection.compile("sucursales.calle,sucursales"))).get("sucursales"));
+        JsonNode wildcard = objectMapper.readTree(stream(JsonProjection.compile("*,sucursales(nom_sucursal)")));
+        Assertions.assertEquals("La Esquina", wildcard.get("razon_social").asText());
+        Assertions.assertEquals(2, wildcard.get("categorias").size());
+        Assertions.assertEquals("""
+                {"nom_sucursal":"Centro"}""", wildcard.get("sucursales").get(0).toString());
+        Assertions.assertEquals("""
+                {"categorias":["pastas","pizzas"]}""", stream(JsonProjection.compile("categorias")));
+    }
+
+    @Test
+    void tree_shouldProduceSameResultAsText() throws IOException {
+        JsonProjection projection = JsonProjection.compile("nro_restaurante,sucursales(nro_sucursal,nro_calle(x))");
+        StringWriter out = new StringWriter();
+        try (JsonParser parser = objectMapper.treeAsTokens(objectMapper.readTree(DETAIL));
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            projection.copy(parser, generator);
+        }
+        Assertions.assertEquals(stream(projection), out.toString());
+        Assertions.assertEquals("""
+                {"nro_restaurante":1,"sucursales":[{"nro_sucursal":1,"nro_calle":100},{"nro_sucursal":2,"nro_calle":8000}]}""",
+                out.toString());
+    }
+
+    @Test
+    void compile_shouldRejectMalformedExpressions() {
+        for (String invalid : new String[]{" ", "a,,b", "a(b", "a)", "a.", "a(b)c", "a-b", "a(" + "b(".repeat(40)}) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> JsonProjection.compile(invalid), invalid);
+        }
+    }
+
+    @Test
+    void projections_shouldCacheCompiledExpressions() {
+        JsonProjections projections = new JsonProjections();
+        ReflectionTestUtils.setField(projections, "maxEntries", 2);
+        ReflectionTestUtils.setField(projections, "maxChars", 1000L);
+        ReflectionTestUtils.invokeMethod(projections, "init");
+
+        JsonProjection first = projections.compile("a,b(c)");
+        Assertions.assertSame(first, projections.compile("a,b(c)"));
+        projections.compile("x");
+        projections.compile("y");
+        Assertions.assertTrue(projections.stats().size() <= 2);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> projections.compile("a("));
+    }
+
+    private String stream(JsonProjection projection) throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonParser parser = objectMapper.getFactory().createParser(DETAIL);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            projection.copy(parser, generator);
+        }
+        return out.toString();
+    }
+}
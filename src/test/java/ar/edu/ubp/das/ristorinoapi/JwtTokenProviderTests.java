@@ -0,0 +1,108 @@
+package ar.edu.ubp.das.ristorinoapi;
+
+import ar.edu.ubp.das.ristorinoapi.components.JwtTokenProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+public class JwtTokenProviderTests {
+
+    private static final String SECRET = "ClaveSuperDuperHiperMegaSecreta12345";
+    private static final long T0 = 1_700_000_000L;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong(T0);
+    private JwtTokenProvider provider;
+
+    private JwtTokenProvider start(long ttlSeconds, long refreshAheadSeconds) {
+        provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "meterRegistry", registry);
+        ReflectionTestUtils.setField(provider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(provider, "tokenTtlSeconds", ttlSeconds);
+        ReflectionTestUtils.setField(provider, "refreshAheadSeconds", refreshAheadSeconds);
+        ReflectionTestUtils.setField(provider, "epochSeconds", (LongSupplier) clock::get);
+        ReflectionTestUtils.invokeMethod(provider, "start");
+        return provider;
+    }
+
+    @AfterEach
+    void stop() {
+        if (provider != null) {
+            ReflectionTestUtils.invokeMethod(provider, "stop");
+        }
+    }
+
+    @Test
+    void getToken_shouldBeValidHs256() throws Exception {
+        String token = start(300, 30).getToken();
+
+        String[] parts = token.split("\\.");
+        Assertions.assertEquals(3, parts.length);
+        Base64.Decoder dec = Base64.getUrlDecoder();
+        Assertions.assertEquals("{\"alg\":\"HS256\",\"typ\":\"JWT\"}", new String(dec.decode(parts[0]), StandardCharsets.UTF_8));
+        String payload = new String(dec.decode(parts[1]), StandardCharsets.UTF_8);
+        Assertions.assertTrue(payload.startsWith("{\"registrador\":\"ristorino\",\"iat\":"), payload);
+
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] expected = mac.doFinal((parts[0] + "." + parts[1]).getBytes(StandardCharsets.UTF_8));
+        Assertions.assertArrayEquals(expected, dec.decode(parts[2]));
+        // Mientras esté vigente se reutiliza el mismo token
+        Assertions.assertSame(token, provider.getToken());
+    }
+
+    @Test
+    void refresh_shouldReplaceTokenBeforeItStopsBeingUsed() {
+        // ttl 300 s con 30 s de anticipación: se usa hasta T+295 y se renueva en T+265
+        start(300, 30);
+        ReflectionTestUtils.invokeMethod(provider, "stop"); // la renovación se dispara a mano
+        String first = provider.getToken();
+        Object token = ((AtomicReference<?>) ReflectionTestUtils.getField(provider, "current")).get();
+        Assertions.assertEquals(T0 + 265, (Long) ReflectionTestUtils.invokeMethod(token, "refreshAtEpochSeconds"));
+
+        clock.set(T0 + 265);
+        Assertions.assertSame(first, provider.getToken(), "todavía vigente");
+        ReflectionTestUtils.invokeMethod(provider, "refresh");
+
+        Assertions.assertNotEquals(first, provider.getToken());
+        Assertions.assertEquals(1, registry.get("ristorino.jwt.refresh").tag("trigger", "scheduled").counter().count());
+        Assertions.assertEquals(0, registry.get("ristorino.jwt.refresh").tag("trigger", "inline").counter().count());
+    }
+
+    @Test
+    void expiredToken_shouldBeRenewedInlineOnce() throws Exception {
+        start(3, 0); // se usa hasta 1 s antes de expirar: vigente 2 s
+        ReflectionTestUtils.invokeMethod(provider, "stop"); // sin renovación en segundo plano
+        String first = provider.getToken();
+        clock.set(T0 + 1);
+        Assertions.assertSame(first, provider.getToken());
+        clock.set(T0 + 2);
+
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            pool.submit(() -> seen.add(provider.getToken()));
+        }
+        pool.shutdown();
+        Assertions.assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+
+        Assertions.assertFalse(seen.contains(first));
+        Assertions.assertEquals(1, registry.get("ristorino.jwt.refresh").tag("trigger", "inline").counter().count());
+        Assertions.assertEquals(Set.of(provider.getToken()), seen);
+    }
+}
@@ -0,0 +1,93 @@
+package ar.edu.ubp.das.ristorinoapi;
+
+import ar.edu.ubp.das.ristorinoapi.config.NotificationHttpClientConfig;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+public class NotificationHttpClientTests {
+
+    private HttpServer server;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private CloseableHttpClient client;
+    private RestTemplate restTemplate;
+
+    @BeforeEach
+    void start() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ok", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        NotificationHttpClientConfig config = new NotificationHttpClientConfig();
+        ReflectionTestUtils.setField(config, "meterRegistry", registry);
+        ReflectionTestUtils.setField(config, "connectTimeoutMs", 500L);
+        ReflectionTestUtils.setField(config, "readTimeoutMs", 300L);
+        ReflectionTestUtils.setField(config, "poolTimeoutMs", 500L);
+        ReflectionTestUtils.setField(config, "maxTotal", 10);
+        ReflectionTestUtils.setField(config, "maxPerRoute", 2);
+        ReflectionTestUtils.setField(config, "keepAliveSeconds", 30L);
+        ReflectionTestUtils.setField(config, "idleEvictSeconds", 30L);
+        ReflectionTestUtils.setField(config, "validateAfterInactivityMs", 2000L);
+        client = config.notificationHttpClient();
+        restTemplate = config.notificationRestTemplate(client);
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        client.close();
+        server.stop(0);
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    @Test
+    void sequentialRequests_shouldReuseOneKeepAliveConnection() {
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertEquals("{}", restTemplate.postForObject(url("/ok"), "{}", String.class));
+        }
+        Assertions.assertEquals(1, clientPorts.size(), "puertos locales usados: " + clientPorts);
+        Assertions.assertEquals(1.0, registry.get("ristorino.notifications.http.pool").tag("state", "available").gauge().value());
+        Assertions.assertEquals(0.0, registry.get("ristorino.notifications.http.pool").tag("state", "leased").gauge().value());
+    }
+
+    @Test
+    void slowServer_shouldFailWithReadTimeout() {
+        long start = System.nanoTime();
+        Assertions.assertThrows(ResourceAccessException.class,
+                () -> restTemplate.postForObject(url("/slow"), "{}", String.class));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        Assertions.assertTrue(elapsedMs < 1500, "tardó " + elapsedMs + " ms");
+    }
+}
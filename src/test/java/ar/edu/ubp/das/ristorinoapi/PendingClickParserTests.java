@@ -0,0 +1,54 @@
+package ar.edu.ubp.das.ristorinoapi;
+
+import ar.edu.ubp.das.ristorinoapi.beans.PendingClick;
+import ar.edu.ubp.das.ristorinoapi.components.PendingClickParser;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PendingClickParserTests {
+
+    private final PendingClickParser parser = new PendingClickParser();
+
+    private List<PendingClick> parse(String json) throws Exception {
+        List<PendingClick> out = new ArrayList<>();
+        parser.parse(new StringReader(json), out::add);
+        return out;
+    }
+
+    @Test
+    void parse_shouldCombineNestedObjects() throws Exception {
+        String json = "[{\"click\":{\"nro_restaurante\":1,\"nro_idioma\":2,\"nro_contenido\":3,\"nro_click\":40,"
+                + "\"fecha_hora_registro\":\"2025-01-01T10:00:00\",\"notificado\":false},"
+                + "\"contenido\":{\"cod_contenido_restaurante\":\"PROMO-1\",\"costo_click\":12.5,\"tags\":[1,{\"a\":2}]}}]";
+
+        List<PendingClick> clicks = parse(json);
+
+        Assertions.assertEquals(List.of(new PendingClick(1, 2, 3, 40, 12.5, "PROMO-1")), clicks);
+        Assertions.assertTrue(clicks.get(0).hasKeys());
+    }
+
+    @Test
+    void parse_shouldReadStringEmbeddedJson() throws Exception {
+        String json = "[{\"click\":\"{\\\"nro_restaurante\\\":1,\\\"nro_idioma\\\":1,\\\"nro_contenido\\\":7,\\\"nro_click\\\":\\\"99\\\"}\","
+                + "\"contenido\":\"{\\\"codContenidoRestaurante\\\":\\\"X\\\",\\\"costoClick\\\":\\\"3.25\\\"}\"}]";
+
+        Assertions.assertEquals(List.of(new PendingClick(1, 1, 7, 99, 3.25, "X")), parse(json));
+    }
+
+    @Test
+    void parse_shouldToleratePartialAndInvalidEmbeddedData() throws Exception {
+        String json = "[{\"click\":\"{no es json\",\"contenido\":{\"cod_contenido_restaurante\":null}},"
+                + "{\"nro_restaurante\":5,\"nro_idioma\":1,\"nro_contenido\":2,\"nro_click\":8,\"cod_contenido_restaurante\":\"C\"}]";
+
+        List<PendingClick> clicks = parse(json);
+
+        Assertions.assertEquals(2, clicks.size());
+        Assertions.assertFalse(clicks.get(0).hasKeys());
+        Assertions.assertNull(clicks.get(0).codContenidoRestaurante());
+        Assertions.assertEquals(new PendingClick(5, 1, 2, 8, 0.0, "C"), clicks.get(1));
+    }
+}
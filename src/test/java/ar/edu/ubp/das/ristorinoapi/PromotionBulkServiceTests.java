@@ -0,0 +1,95 @@
+package ar.edu.ubp.das.ristorinoapi;
+
+import ar.edu.ubp.das.ristorinoapi.beans.RestaurantResponse;
+import ar.edu.ubp.das.ristorinoapi.repositories.PromotionRepository;
+import ar.edu.ubp.das.ristorinoapi.services.PromotionBulkService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PromotionBulkServiceTests {
+
+    private PromotionBulkService newService(PromotionRepository repository, int poolSize) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(poolSize);
+        PromotionBulkService service = new PromotionBulkService();
+        ReflectionTestUtils.setField(service, "promotionRepository", repository);
+        ReflectionTestUtils.setField(service, "dataSource", dataSource);
+        ReflectionTestUtils.setField(service, "maxIds", 100);
+        ReflectionTestUtils.setField(service, "timeoutMs", 5000L);
+        ReflectionTestUtils.invokeMethod(service, "start");
+        return service;
+    }
+
+    @Test
+    void getPromotions_shouldBoundParallelismAndReportErrorsPerRestaurant() {
+        PromotionRepository repository = mock(PromotionRepository.class);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(repository.getPromotionsWithRestaurant(anyInt(), any(), any(), anyInt())).thenAnswer(inv -> {
+            int nro = inv.getArgument(0);
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+                if (nro == 3) {
+                    throw new RuntimeException("Error al obtener promociones desde la base de datos");
+                }
+                RestaurantResponse r = new RestaurantResponse();
+                r.setNro_restaurante(nro);
+                return r;
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+        PromotionBulkService service = newService(repository, 8);
+
+        PromotionBulkService.BulkResult result = service.getPromotions(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 1), null, null);
+        ReflectionTestUtils.invokeMethod(service, "stop");
+
+        Assertions.assertEquals(4, service.getParallelism());
+        Assertions.assertTrue(maxRunning.get() <= 4);
+        Assertions.assertEquals(9, result.resultados().size());
+        Assertions.assertEquals(List.of(1, 2, 4, 5, 6, 7, 8, 9, 10), List.copyOf(result.resultados().keySet()));
+        Assertions.assertEquals("Error al obtener promociones desde la base de datos", result.errores().get(3));
+    }
+
+    @Test
+    void getPromotions_shouldBoundEachQueryToTheBatchDeadline() {
+        PromotionRepository repository = mock(PromotionRepository.class);
+        List<Integer> timeouts = new CopyOnWriteArrayList<>();
+        when(repository.getPromotionsWithRestaurant(anyInt(), any(), any(), anyInt())).thenAnswer(inv -> {
+            timeouts.add(inv.getArgument(3));
+            return new RestaurantResponse();
+        });
+        PromotionBulkService service = newService(repository, 4);
+        ReflectionTestUtils.setField(service, "timeoutMs", 2500L);
+
+        PromotionBulkService.BulkResult result = service.getPromotions(List.of(1, 2, 3), null, null);
+        ReflectionTestUtils.invokeMethod(service, "stop");
+
+        Assertions.assertEquals(3, result.resultados().size());
+        Assertions.assertEquals(3, timeouts.size());
+        // 2,5 s de lote: cada SP recibe lo que queda, redondeado hacia arriba
+        Assertions.assertTrue(timeouts.stream().allMatch(t -> t >= 1 && t <= 3), timeouts::toString);
+    }
+
+    @Test
+    void getPromotions_shouldRejectEmptyOrOversizedRequests() {
+        PromotionBulkService service = newService(mock(PromotionRepository.class), 2);
+        ReflectionTestUtils.setField(service, "maxIds", 2);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.getPromotions(List.of(), null, null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.getPromotions(List.of(1, 2, 3), null, null));
+        ReflectionTestUtils.invokeMethod(service, "stop");
+    }
+}
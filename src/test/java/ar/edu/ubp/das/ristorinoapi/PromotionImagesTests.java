@@ -0,0 +1,140 @@
+package ar.edu.ubp.das.ristorinoapi;
+
+import ar.edu.ubp.das.ristorinoapi.beans.PromotionContent;
+import ar.edu.ubp.das.ristorinoapi.beans.RestaurantResponse;
+import ar.edu.ubp.das.ristorinoapi.components.PromotionImage;
+import ar.edu.ubp.das.ristorinoapi.components.PromotionImages;
+import ar.edu.ubp.das.ristorinoapi.repositories.PromotionRepository;
+import ar.edu.ubp.das.ristorinoapi.resources.PromotionResource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class PromotionImagesTests {
+
+    // PNG de 1x1 (firma + IHDR)
+    private static final byte[] PNG = Base64.getDecoder().decode(
+            "iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAYAAAAfFcSJAAAADUlEQVR42mNk+M9QDwADhgGAWjR9awAAAABJRU5ErkJggg==");
+    private static final String PNG_DATA_URI = "data:image/png;base64," + Base64.getEncoder().encodeToString(PNG);
+
+    private static PromotionImages images(int maxEntries) {
+        PromotionImages images = new PromotionImages();
+        ReflectionTestUtils.setField(images, "maxEntries", maxEntries);
+        ReflectionTestUtils.setField(images, "maxBytes", 1L << 20);
+        ReflectionTestUtils.setField(images, "baseUrl", "");
+        ReflectionTestUtils.setField(images, "cacheControl", "public, max-age=31536000, immutable");
+        ReflectionTestUtils.invokeMethod(images, "init");
+        return images;
+    }
+
+    private static PromotionContent promotion(int nroContenido, String imagen) {
+        PromotionContent c = new PromotionContent();
+        c.setNro_contenido(nroContenido);
+        c.setNro_idioma(1);
+        c.setContenido_promocional("Promo " + nroContenido);
+        c.setImagen_promocional(imagen);
+        return c;
+    }
+
+    @Test
+    void decode_shouldAcceptOnlyInlineImages() {
+        PromotionImage fromDataUri = PromotionImage.decode(PNG_DATA_URI);
+        Assertions.assertArrayEquals(PNG, fromDataUri.data());
+        Assertions.assertEquals("image/png", fromDataUri.contentType());
+
+        PromotionImage bare = PromotionImage.decode(Base64.getEncoder().encodeToString(PNG));
+        Assertions.assertEquals("image/png", bare.contentType());
+
+        Assertions.assertFalse(PromotionImage.isInline("/assets/promos/restaurante-1/promo-1.jpg"));
+        Assertions.assertFalse(PromotionImage.isInline("https://cdn.example.com/promo.png"));
+        Assertions.assertNull(PromotionImage.decode("data:text/html;base64,PHNjcmlwdD5hbGVydCgxKTwvc2NyaXB0Pg=="));
+        Assertions.assertNull(PromotionImage.decode("A".repeat(100))); // base64 válido pero no es imagen
+    }
+
+    @Test
+    void withImageUrls_shouldReplaceInlineImagesWithoutTouchingTheOriginal() {
+        PromotionImages images = images(10);
+        RestaurantResponse original = new RestaurantResponse();
+        original.setNro_restaurante(7);
+        original.setContenidos(List.of(promotion(1, PNG_DATA_URI), promotion(2, "/img2.png"), promotion(3, PNG_DATA_URI)));
+
+        RestaurantResponse withUrls = images.withImageUrls(original);
+
+        String id = PromotionImage.idOf(PNG_DATA_URI);
+        Assertions.assertEquals("/api/promotions/7/1/1/imagen/" + id, withUrls.getContenidos().get(0).getImagen_promocional());
+        Assertions.assertSame(original.getContenidos().get(1), withUrls.getContenidos().get(1));
+        Assertions.assertEquals("/api/promotions/7/1/3/imagen/" + id, withUrls.getContenidos().get(2).getImagen_promocional());
+        Assertions.assertEquals(PNG_DATA_URI, original.getContenidos().get(0).getImagen_promocional());
+        // La misma imagen se decodifica una sola vez
+        Assertions.assertEquals(1, images.stats().misses());
+        Assertions.assertEquals(1, images.stats().size());
+
+        RestaurantResponse noInline = new RestaurantResponse();
+        noInline.setContenidos(List.of(promotion(4, "/img4.png")));
+        Assertions.assertSame(noInline, images.withImageUrls(noInline));
+    }
+
+    @Test
+    void get_shouldReloadEvictedImageAndRejectChangedOne() {
+        PromotionImages images = images(1);
+        String id = PromotionImage.idOf(PNG_DATA_URI);
+        AtomicReference<String> current = new AtomicReference<>(PNG_DATA_URI);
+
+        Assertions.assertArrayEquals(PNG, images.get(id, current::get).data());
+        images.get(PromotionImage.idOf("data:image/gif;base64,R0lGODlh"), () -> "data:image/gif;base64,R0lGODlh");
+        Assertions.assertArrayEquals(PNG, images.get(id, current::get).data(), "se recarga tras el desalojo");
+
+        images.get(PromotionImage.idOf("data:image/gif;base64,R0lGODlh"), () -> "data:image/gif;base64,R0lGODlh");
+        current.set("data:image/gif;base64,R0lGODlh");
+        Assertions.assertNull(images.get(id, current::get), "la imagen del contenido cambió");
+    }
+
+    @Test
+    void endpoint_shouldServeImageWithETagCachingAndRanges() throws Exception {
+        PromotionRepository repository = mock(PromotionRepository.class);
+        when(repository.getPromotionImage(7, 1, 1)).thenReturn(PNG_DATA_URI);
+        PromotionResource resource = new PromotionResource();
+        ReflectionTestUtils.setField(resource, "promotionRepository", repository);
+        ReflectionTestUtils.setField(resource, "promotionImages", images(10));
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(resource).build();
+        String id = PromotionImage.idOf(PNG_DATA_URI);
+        String url = "/api/promotions/7/1/1/imagen/" + id;
+        String etag = '"' + id + '"';
+
+        mvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(content().bytes(PNG));
+        mvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=1-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 1-3/" + PNG.length))
+                .andExpect(content().bytes(Arrays.copyOfRange(PNG, 1, 4)));
+        mvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=1-3").header(HttpHeaders.IF_RANGE, "\"otro\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(PNG));
+        mvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=" + PNG.length + "-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable());
+        mvc.perform(get("/api/promotions/7/1/1/imagen/otro-id"))
+                .andExpect(status().isNotFound());
+    }
+}
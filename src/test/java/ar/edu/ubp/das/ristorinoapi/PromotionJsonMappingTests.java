@@ -1,6 +1,8 @@
 package ar.edu.ubp.das.ristorinoapi;
 
+import ar.edu.ubp.das.ristorinoapi.beans.PromotionContent;
 import ar.edu.ubp.das.ristorinoapi.beans.RestaurantResponse;
+import ar.edu.ubp.das.ristorinoapi.components.RestaurantResponseReader;
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
@@ -8,9 +10,15 @@ import com.google.gson.JsonParser;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.StringReader;
+
 public class PromotionJsonMappingTests {
 
     private final Gson gson = new Gson();
+    private final RestaurantResponseReader reader = new RestaurantResponseReader();
+
+    private static final String CONTENIDOS = "[{\"nro_contenido\":1,\"nro_sucursal\":null,\"nom_sucursal\":null,\"nro_idioma\":1,\"cod_idioma\":\"es\",\"nom_idioma\":\"Español\",\"contenido_promocional\":\"Promo\",\"imagen_promocional\":\"/img.png\",\"contenido_a_publicar\":\"Texto\",\"fecha_ini_vigencia\":\"2025-01-01\",\"fecha_fin_vigencia\":null,\"costo_click\":1.5,\"cod_contenido_restaurante\":\"ABCD\",\"vigente\":true},"
+            + "{\"nro_contenido\":2,\"nro_sucursal\":3,\"nom_sucursal\":\"Centro \\\"Norte\\\"\",\"nro_idioma\":2,\"cod_idioma\":\"en\",\"nom_idioma\":\"English\",\"contenido_promocional\":\"Promo2\",\"imagen_promocional\":\"/img2.png\",\"contenido_a_publicar\":\"Texto2\",\"fecha_ini_vigencia\":\"2025-02-01\",\"fecha_fin_vigencia\":\"2025-12-31\",\"costo_click\":2,\"cod_contenido_restaurante\":\"EFGH\",\"vigente\":false}]";
 
     @Test
     void parseWithEmbeddedContenidosString_shouldNormalizeAndMap() {
@@ -51,5 +59,48 @@ public class PromotionJsonMappingTests {
         Assertions.assertEquals(2, resp.getContenidos().get(0).getNro_contenido());
         Assertions.assertEquals("Centro", resp.getContenidos().get(0).getNom_sucursal());
     }
-}
 
+    @Test
+    void streamingReader_withEmbeddedContenidosString_shouldMatchGsonMapping() throws Exception {
+        String json = "{\"nro_restaurante\":1,\"razon_social\":\"Test\",\"contenidos\":\""
+                + CONTENIDOS.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+        String normalized = "{\"nro_restaurante\":1,\"razon_social\":\"Test\",\"contenidos\":" + CONTENIDOS + "}";
+
+        assertSameMapping(gson.fromJson(normalized, RestaurantResponse.class), reader.read(new StringReader(json)));
+    }
+
+    @Test
+    void streamingReader_withContenidosArray_shouldMatchGsonMapping() throws Exception {
+        String json = "{\"nro_restaurante\":1,\"razon_social\":\"Test\",\"contenidos\":" + CONTENIDOS + "}";
+
+        RestaurantResponse resp = reader.read(new StringReader(json));
+
+        assertSameMapping(gson.fromJson(json, RestaurantResponse.class), resp);
+        Assertions.assertEquals("Centro \"Norte\"", resp.getContenidos().get(1).getNom_sucursal());
+    }
+
+    @Test
+    void streamingReader_shouldIgnoreUnknownFieldsAndMissingContenidos() throws Exception {
+        String json = "{\"extra\":{\"a\":[1,2,{\"b\":null}]},\"nro_restaurante\":\"7\",\"razon_social\":\"X\","
+                + "\"contenidos\":[{\"nro_contenido\":5,\"nuevo_campo\":[1],\"vigente\":1}]}";
+
+        RestaurantResponse resp = reader.read(new StringReader(json));
+
+        Assertions.assertEquals(7, resp.getNro_restaurante());
+        Assertions.assertEquals(1, resp.getContenidos().size());
+        Assertions.assertEquals(5, resp.getContenidos().get(0).getNro_contenido());
+        Assertions.assertTrue(resp.getContenidos().get(0).getVigente());
+        Assertions.assertNull(reader.read(new StringReader("{\"nro_restaurante\":1}")).getContenidos());
+        Assertions.assertNull(reader.read(new StringReader("")));
+    }
+
+    private void assertSameMapping(RestaurantResponse expected, RestaurantResponse actual) {
+        Assertions.assertEquals(expected.getNro_restaurante(), actual.getNro_restaurante());
+        Assertions.assertEquals(expected.getRazon_social(), actual.getRazon_social());
+        Assertions.assertEquals(expected.getContenidos().size(), actual.getContenidos().size());
+        for (int i = 0; i < expected.getContenidos().size(); i++) {
+            Assertions.assertEquals(gson.toJson(expected.getContenidos().get(i), PromotionContent.class),
+                    gson.toJson(actual.getContenidos().get(i), PromotionContent.class));
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package ar.edu.ubp.das.ristorinoapi;
+
+import ar.edu.ubp.das.ristorinoapi.components.RateLimiter;
+import ar.edu.ubp.das.ristorinoapi.components.StripedTokenBuckets;
+import ar.edu.ubp.das.ristorinoapi.config.RateLimitFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RateLimiterTests {
+
+    @Test
+    void bucket_shouldAdmitBurstThenRefillAtRate() {
+        AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+        StripedTokenBuckets buckets = new StripedTokenBuckets(64, 10, 5, clock::get);
+
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertEquals(0, buckets.tryAcquire("10.0.0.1"), "request " + i);
+        }
+        long wait = buckets.tryAcquire("10.0.0.1");
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(100), wait); // 10/s: un token cada 100 ms
+        Assertions.assertEquals(0, buckets.tryAcquire("10.0.0.2"), "otro cliente tiene su propio bucket");
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        Assertions.assertEquals(0, buckets.tryAcquire("10.0.0.1"));
+        Assertions.assertTrue(buckets.tryAcquire("10.0.0.1") > 0);
+
+        // Tras un segundo sin requests el bucket vuelve a estar lleno, pero no acumula más que el burst
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        int admitted = 0;
+        while (buckets.tryAcquire("10.0.0.1") == 0) {
+            admitted++;
+        }
+        Assertions.assertEquals(5, admitted);
+    }
+
+    @Test
+    void bucket_shouldNotOveradmitUnderContention() throws Exception {
+        AtomicLong clock = new AtomicLong(0);
+        StripedTokenBuckets buckets = new StripedTokenBuckets(16, 1, 100, clock::get);
+        AtomicInteger admitted = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            pool.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    if (buckets.tryAcquire("cliente") == 0) {
+                        admitted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        Assertions.assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(100, admitted.get());
+    }
+
+    @Test
+    void filter_shouldRespond429WithRetryAfter() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RateLimiter limiter = limiter(registry);
+        RateLimitFilter filter = new RateLimitFilter(limiter);
+
+        // Ráfaga de 2 clicks por cliente admitida, el tercero se rechaza
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletResponse ok = doFilter(filter, "POST", "/api/promotions/3/1/7/click", "10.0.0.1");
+            Assertions.assertEquals(200, ok.getStatus());
+        }
+        MockHttpServletResponse limited = doFilter(filter, "POST", "/api/promotions/3/1/7/click", "10.0.0.1");
+        Assertions.assertEquals(429, limited.getStatus());
+        Assertions.assertEquals("1", limited.getHeader("Retry-After"));
+        Assertions.assertTrue(limited.getContentAsString().contains("reintentarEnSegundos"));
+
+        // Las promociones tienen sus propios límites; OPTIONS (preflight) nunca se limita
+        Assertions.assertEquals(200, doFilter(filter, "GET", "/api/promotions/3", "10.0.0.1").getStatus());
+        Assertions.assertEquals(200, doFilter(filter, "OPTIONS", "/api/promotions/3/1/7/click", "10.0.0.1").getStatus());
+
+        // Límite por restaurante: 3 clicks en ráfaga entre todos los clientes
+        Assertions.assertEquals(200, doFilter(filter, "POST", "/api/promotions/3/1/7/click", "10.0.0.2").getStatus());
+        Assertions.assertEquals(429, doFilter(filter, "POST", "/api/promotions/3/1/7/click", "10.0.0.3").getStatus());
+        Assertions.assertEquals(200, doFilter(filter, "POST", "/api/promotions/4/1/7/click", "10.0.0.3").getStatus());
+
+        Assertions.assertEquals(1, registry.get("ristorino.ratelimit.rejected")
+                .tags("endpoint", "clicks", "scope", "client").counter().count());
+        Assertions.assertEquals(1, registry.get("ristorino.ratelimit.rejected")
+                .tags("endpoint", "clicks", "scope", "restaurant").counter().count());
+    }
+
+    @Test
+    void filter_shouldChargeTheRestaurantEvenWithPathParameters() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(limiter(new SimpleMeterRegistry()));
+
+        // Spring enruta estos paths al endpoint de clicks del restaurante 3: todos comparten su ráfaga (3)
+        Assertions.assertEquals(200, doFilter(filter, "POST", "/api/promotions/3;x=1/1/7/click", "10.0.0.1").getStatus());
+        Assertions.assertEquals(200, doFilter(filter, "POST", "/api/promotions/3;y=2/1/7/click", "10.0.0.2").getStatus());
+        Assertions.assertEquals(200, doFilter(filter, "POST", "/api/promotions/%33/1/7/click", "10.0.0.3").getStatus());
+        Assertions.assertEquals(429, doFilter(filter, "POST", "/api/promotions/3/1/7/click;z=3", "10.0.0.4").getStatus());
+        Assertions.assertEquals(200, doFilter(filter, "POST", "/api/promotions/4;x=1/1/7/click", "10.0.0.4").getStatus());
+    }
+
+    @Test
+    void filter_shouldLimitBulkQueriesSeparatelyAndOnlyChargeAdmittedRequests() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RateLimitFilter filter = new RateLimitFilter(limiter(registry));
+
+        // Límite bulk por cliente: 2 en ráfaga, sin consumir el límite de promociones
+        Assertions.assertEquals(200, doFilter(filter, "GET", "/api/promotions", "10.0.0.1", "1,2,3").getStatus());
+        Assertions.assertEquals(200, doFilter(filter, "POST", "/api/promotions/bulk", "10.0.0.1").getStatus());
+        Assertions.assertEquals(429, doFilter(filter, "GET", "/api/promotions", "10.0.0.1", "4").getStatus());
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertEquals(200, doFilter(filter, "GET", "/api/promotions/3", "10.0.0.1").getStatus());
+        }
+
+        // Límite global: 3 en ráfaga entre todos los clientes; el rechazado no consume el token del cliente
+        Assertions.assertEquals(200, doFilter(filter, "POST", "/api/promotions/bulk", "10.0.0.2").getStatus());
+        Assertions.assertEquals(429, doFilter(filter, "POST", "/api/promotions/bulk", "10.0.0.2").getStatus());
+        Assertions.assertEquals(1, registry.get("ristorino.ratelimit.rejected")
+                .tags("endpoint", "bulk", "scope", "global").counter().count());
+        Assertions.assertEquals(1, registry.get("ristorino.ratelimit.rejected")
+                .tags("endpoint", "bulk", "scope", "client").counter().count());
+    }
+
+    @Test
+    void filter_shouldOnlyExemptCachedImages() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(limiter(new SimpleMeterRegistry()), "cacheada"::equals);
+
+        // Las imágenes cacheadas no consumen tokens; las demás consultan promociones y consumen su límite (10)
+        for (int i = 0; i < 20; i++) {
+            Assertions.assertEquals(200, doFilter(filter, "GET", "/api/promotions/3/1/7/imagen/cacheada", "10.0.0.1").getStatus());
+        }
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertEquals(200, doFilter(filter, "GET", "/api/promotions/3/1/7/imagen/otra" + i, "10.0.0.1").getStatus());
+        }
+        Assertions.assertEquals(429, doFilter(filter, "GET", "/api/promotions/3/1/7/imagen/otra", "10.0.0.1").getStatus());
+        Assertions.assertEquals(429, doFilter(filter, "GET", "/api/promotions/3", "10.0.0.1").getStatus());
+        Assertions.assertEquals(200, doFilter(filter, "GET", "/api/promotions/3/1/7/imagen/cacheada", "10.0.0.1").getStatus());
+    }
+
+    @Test
+    void limiter_shouldReturnClientTokenWhenRestaurantRejects() {
+        RateLimiter limiter = limiter(new SimpleMeterRegistry());
+
+        // Se agota el restaurante 3 (ráfaga de 3) con otros clientes
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(0, limiter.tryAcquire(RateLimiter.Endpoint.CLICKS, "10.0.0." + (10 + i), 3));
+        }
+        // Los rechazos por restaurante no gastan la ráfaga del cliente (2)
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertTrue(limiter.tryAcquire(RateLimiter.Endpoint.CLICKS, "10.0.0.1", 3) > 0);
+        }
+        Assertions.assertEquals(0, limiter.tryAcquire(RateLimiter.Endpoint.CLICKS, "10.0.0.1", 4));
+        Assertions.assertEquals(0, limiter.tryAcquire(RateLimiter.Endpoint.CLICKS, "10.0.0.1", 5));
+    }
+
+    @Test
+    void filter_shouldPassEverythingWhenDisabled() throws Exception {
+        RateLimiter limiter = limiter(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(limiter, "enabled", false);
+        RateLimitFilter filter = new RateLimitFilter(limiter);
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertEquals(200, doFilter(filter, "POST", "/api/promotions/3/1/7/click", "10.0.0.1").getStatus());
+        }
+    }
+
+    private static RateLimiter limiter(SimpleMeterRegistry registry) {
+        RateLimiter limiter = new RateLimiter();
+        ReflectionTestUtils.setField(limiter, "meterRegistry", registry);
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "stripes", 1024);
+        ReflectionTestUtils.setField(limiter, "clicksPerClientRate", 1.0);
+        ReflectionTestUtils.setField(limiter, "clicksPerClientBurst", 2);
+        ReflectionTestUtils.setField(limiter, "clicksPerRestaurantRate", 1.0);
+        ReflectionTestUtils.setField(limiter, "clicksPerRestaurantBurst", 3);
+        ReflectionTestUtils.setField(limiter, "promotionsPerClientRate", 10.0);
+        ReflectionTestUtils.setField(limiter, "promotionsPerClientBurst", 10);
+        ReflectionTestUtils.setField(limiter, "promotionsPerRestaurantRate", 10.0);
+        ReflectionTestUtils.setField(limiter, "promotionsPerRestaurantBurst", 10);
+        ReflectionTestUtils.setField(limiter, "bulkPerClientRate", 1.0);
+        ReflectionTestUtils.setField(limiter, "bulkPerClientBurst", 2);
+        ReflectionTestUtils.setField(limiter, "bulkGlobalRate", 1.0);
+        ReflectionTestUtils.setField(limiter, "bulkGlobalBurst", 3);
+        ReflectionTestUtils.invokeMethod(limiter, "init");
+        return limiter;
+    }
+
+    private static MockHttpServletResponse doFilter(RateLimitFilter filter, String method, String uri, String remoteAddr)
+            throws Exception {
+        return doFilter(filter, method, uri, remoteAddr, null);
+    }
+
+    private static MockHttpServletResponse doFilter(RateLimitFilter filter, String method, String uri, String remoteAddr,
+                                                    String ids) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr(remoteAddr);
+        if (ids != null) {
+            request.setParameter("ids", ids);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}